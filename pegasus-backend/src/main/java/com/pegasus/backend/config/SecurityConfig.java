@@ -3,6 +3,7 @@ package com.pegasus.backend.config;
 import com.pegasus.backend.security.jwt.JwtAuthenticationEntryPoint;
 import com.pegasus.backend.security.jwt.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -40,6 +41,10 @@ public class SecurityConfig {
                         session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 .authorizeHttpRequests(auth -> auth
+                        // Re-despacho de respuestas asíncronas (SSE, exportaciones en streaming):
+                        // la solicitud original ya fue autorizada
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Endpoints públicos - Autenticación
                         .requestMatchers("/api/auth/**").permitAll()
                         
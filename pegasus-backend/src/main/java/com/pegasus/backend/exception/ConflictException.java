@@ -0,0 +1,16 @@
+package com.pegasus.backend.exception;
+
+/**
+ * Excepción personalizada para conflictos con el estado actual del recurso
+ * Se lanza cuando la solicitud choca con otra en curso o ya procesada
+ */
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+
+    public ConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,7 @@
+package com.pegasus.backend.features.catalog.event;
+
+/**
+ * Evento publicado cuando cambia el árbol de categorías
+ * (categoría creada, eliminada o con nuevo padre).
+ */
+public record CategoryHierarchyChangedEvent(Long categoryId) {}
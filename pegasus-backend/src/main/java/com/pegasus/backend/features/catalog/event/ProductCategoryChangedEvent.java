@@ -0,0 +1,13 @@
+package com.pegasus.backend.features.catalog.event;
+
+/**
+ * Evento publicado cuando un producto cambia de categoría.
+ *
+ * @param previousCategoryId Categoría anterior
+ * @param newCategoryId Categoría nueva
+ */
+public record ProductCategoryChangedEvent(
+        Long productId,
+        Long previousCategoryId,
+        Long newCategoryId
+) {}
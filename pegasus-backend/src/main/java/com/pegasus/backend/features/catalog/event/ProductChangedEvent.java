@@ -0,0 +1,7 @@
+package com.pegasus.backend.features.catalog.event;
+
+/**
+ * Evento publicado cuando cambian los datos visibles de un producto
+ * (producto editado, activado/desactivado o alguna de sus variantes modificada, p. ej. el precio).
+ */
+public record ProductChangedEvent(Long productId) {}
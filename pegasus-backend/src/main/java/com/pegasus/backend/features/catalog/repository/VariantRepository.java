@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +20,8 @@ public interface VariantRepository extends JpaRepository<Variant, Long> {
 
     Optional<Variant> findBySku(String sku);
 
+    List<Variant> findBySkuIn(Collection<String> skus);
+
     boolean existsBySku(String sku);
 
     List<Variant> findByProductId(Long productId);
@@ -26,6 +29,12 @@ public interface VariantRepository extends JpaRepository<Variant, Long> {
     @Query("SELECT v FROM Variant v WHERE v.productId = :productId AND v.isActive = true")
     List<Variant> findActiveByProductId(@Param("productId") Long productId);
 
+    @Query("SELECT v FROM Variant v JOIN FETCH v.product WHERE v.id IN :ids")
+    List<Variant> findAllWithProductByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT v.id FROM Variant v WHERE v.productId IN :productIds")
+    List<Long> findIdsByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
     @Query("SELECT v FROM Variant v WHERE " +
            "LOWER(v.sku) LIKE LOWER(CONCAT('%', :search, '%'))")
     Page<Variant> searchVariants(@Param("search") String search, Pageable pageable);
@@ -5,12 +5,14 @@ import com.pegasus.backend.features.catalog.dto.CategoryResponse;
 import com.pegasus.backend.features.catalog.dto.CreateCategoryRequest;
 import com.pegasus.backend.features.catalog.dto.UpdateCategoryRequest;
 import com.pegasus.backend.features.catalog.entity.Category;
+import com.pegasus.backend.features.catalog.event.CategoryHierarchyChangedEvent;
 import com.pegasus.backend.features.catalog.mapper.CategoryMapper;
 import com.pegasus.backend.features.catalog.repository.CategoryRepository;
 import com.pegasus.backend.features.catalog.repository.ProductRepository;
 import com.pegasus.backend.shared.dto.PageResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -18,6 +20,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.text.Normalizer;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Service para gestión de categorías
@@ -31,6 +34,7 @@ public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Obtener todas las categorías con paginación y búsqueda opcional
@@ -181,6 +185,7 @@ public class CategoryService {
 
         Category category = categoryMapper.toEntity(request);
         Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryHierarchyChangedEvent(saved.getId()));
 
         log.info("Category created successfully: {}", saved.getName());
         return categoryMapper.toResponse(saved);
@@ -210,9 +215,14 @@ public class CategoryService {
             findCategoryById(request.parentId());
         }
 
+        Long previousParentId = category.getParentId();
         categoryMapper.updateEntityFromDto(request, category);
         Category updated = categoryRepository.save(category);
 
+        if (!Objects.equals(previousParentId, updated.getParentId())) {
+            eventPublisher.publishEvent(new CategoryHierarchyChangedEvent(updated.getId()));
+        }
+
         log.info("Category updated successfully: {}", updated.getName());
         return categoryMapper.toResponse(updated);
     }
@@ -245,6 +255,7 @@ public class CategoryService {
 
         // Eliminación física permanente
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(new CategoryHierarchyChangedEvent(id));
         log.info("Category deleted permanently: {}", id);
     }
 
@@ -5,6 +5,8 @@ import com.pegasus.backend.features.catalog.dto.CreateProductRequest;
 import com.pegasus.backend.features.catalog.dto.ProductResponse;
 import com.pegasus.backend.features.catalog.dto.UpdateProductRequest;
 import com.pegasus.backend.features.catalog.entity.Product;
+import com.pegasus.backend.features.catalog.event.ProductCategoryChangedEvent;
+import com.pegasus.backend.features.catalog.event.ProductChangedEvent;
 import com.pegasus.backend.features.catalog.mapper.ProductMapper;
 import com.pegasus.backend.features.catalog.repository.BrandRepository;
 import com.pegasus.backend.features.catalog.repository.CategoryRepository;
@@ -12,12 +14,14 @@ import com.pegasus.backend.features.catalog.repository.ProductRepository;
 import com.pegasus.backend.shared.dto.PageResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Service para gestión de productos
@@ -32,6 +36,7 @@ public class ProductService {
     private final BrandRepository brandRepository;
     private final CategoryRepository categoryRepository;
     private final ProductMapper productMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Obtener todos los productos con paginación y búsqueda opcional
@@ -224,10 +229,17 @@ public class ProductService {
             throw new ResourceNotFoundException("Marca no encontrada con ID: " + request.brandId());
         }
 
+        Long previousCategoryId = product.getCategoryId();
         productMapper.updateEntityFromDto(request, product);
         
         Product updated = productRepository.save(product);
 
+        eventPublisher.publishEvent(new ProductChangedEvent(updated.getId()));
+        if (!Objects.equals(previousCategoryId, updated.getCategoryId())) {
+            eventPublisher.publishEvent(new ProductCategoryChangedEvent(
+                    updated.getId(), previousCategoryId, updated.getCategoryId()));
+        }
+
         log.info("Product updated successfully: {}", updated.getName());
         return productMapper.toResponse(updated);
     }
@@ -241,6 +253,7 @@ public class ProductService {
         Product product = findProductById(id);
         product.setIsActive(false);
         productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
         log.info("Product deleted successfully: {}", id);
     }
 
@@ -253,6 +266,7 @@ public class ProductService {
         Product product = findProductById(id);
         product.setIsActive(!product.getIsActive());
         Product updated = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
         log.info("Product status toggled: {} -> {}", id, updated.getIsActive());
         return productMapper.toResponse(updated);
     }
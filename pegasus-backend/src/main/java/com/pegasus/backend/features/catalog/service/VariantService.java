@@ -6,6 +6,7 @@ import com.pegasus.backend.features.catalog.dto.UpdateVariantRequest;
 import com.pegasus.backend.features.catalog.dto.VariantResponse;
 import com.pegasus.backend.features.catalog.dto.VariantWithStockResponse;
 import com.pegasus.backend.features.catalog.entity.Variant;
+import com.pegasus.backend.features.catalog.event.ProductChangedEvent;
 import com.pegasus.backend.features.catalog.mapper.VariantMapper;
 import com.pegasus.backend.features.catalog.repository.ProductRepository;
 import com.pegasus.backend.features.catalog.repository.VariantRepository;
@@ -15,6 +16,7 @@ import com.pegasus.backend.features.order.repository.OrderItemRepository;
 import com.pegasus.backend.shared.dto.PageResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -37,6 +39,7 @@ public class VariantService {
     private final StockService stockService;
     private final StockRepository stockRepository;
     private final OrderItemRepository orderItemRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Obtener todas las variantes con paginación y búsqueda opcional
@@ -115,6 +118,7 @@ public class VariantService {
 
         // Ensure this new variant appears in all active warehouses with stock 0
         stockService.initializeZeroStockForVariantAcrossActiveWarehouses(saved.getId());
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getProductId()));
 
         log.info("Variant created successfully: {}", saved.getSku());
         return variantMapper.toResponseWithOrders(saved, false);
@@ -138,6 +142,7 @@ public class VariantService {
 
         variantMapper.updateEntityFromDto(request, variant);
         Variant updated = variantRepository.save(variant);
+        eventPublisher.publishEvent(new ProductChangedEvent(updated.getProductId()));
 
         log.info("Variant updated successfully: {}", updated.getSku());
         return variantMapper.toResponseWithOrders(updated, hasOrders(id));
@@ -152,6 +157,7 @@ public class VariantService {
         Variant variant = findVariantById(id);
         variant.setIsActive(false);
         variantRepository.save(variant);
+        eventPublisher.publishEvent(new ProductChangedEvent(variant.getProductId()));
         log.info("Variant deleted successfully: {}", id);
     }
 
@@ -164,6 +170,7 @@ public class VariantService {
         Variant variant = findVariantById(id);
         variant.setIsActive(!variant.getIsActive());
         Variant updated = variantRepository.save(variant);
+        eventPublisher.publishEvent(new ProductChangedEvent(updated.getProductId()));
         log.info("Variant status toggled: {} -> {}", id, updated.getIsActive());
         return variantMapper.toResponseWithOrders(updated, hasOrders(id));
     }
@@ -242,6 +249,7 @@ public class VariantService {
         
         // Delete the variant
         variantRepository.delete(variant);
+        eventPublisher.publishEvent(new ProductChangedEvent(variant.getProductId()));
         log.info("Variant hard deleted successfully: {}", id);
     }
 }
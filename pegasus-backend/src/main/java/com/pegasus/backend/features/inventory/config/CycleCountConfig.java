@@ -0,0 +1,25 @@
+package com.pegasus.backend.features.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de los conteos cíclicos.
+ * Cargada desde application.properties con prefijo "inventory.cycle-count"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "inventory.cycle-count")
+@Data
+public class CycleCountConfig {
+
+    /**
+     * SKUs aplicados por transacción.
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Tiempo máximo (ms) de la respuesta de un conteo (se escribe mientras se aplica).
+     */
+    private long timeoutMs = 1800000;
+}
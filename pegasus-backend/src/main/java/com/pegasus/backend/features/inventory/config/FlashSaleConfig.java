@@ -0,0 +1,39 @@
+package com.pegasus.backend.features.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuración del modo "flash sale" (alta concurrencia) de reservas de stock.
+ * Cargada desde application.properties con prefijo "inventory.flash-sale"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "inventory.flash-sale")
+@Data
+public class FlashSaleConfig {
+
+    /**
+     * Si está activo, las variantes marcadas reservan stock desde memoria
+     * en lugar de bloquear la fila de stocks en cada pedido.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Almacén desde el que se reservan las variantes marcadas.
+     */
+    private Long warehouseId = 1L;
+
+    /**
+     * Variantes marcadas como de alta concurrencia (SKUs en promoción).
+     */
+    private List<Long> variantIds = new ArrayList<>();
+
+    /**
+     * Intervalo (ms) entre volcados de las reservas acumuladas a la tabla stocks.
+     */
+    private long flushIntervalMs = 200;
+}
@@ -0,0 +1,27 @@
+package com.pegasus.backend.features.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de los puntos de control del kardex.
+ * Cargada desde application.properties con prefijo "inventory.kardex-snapshot"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "inventory.kardex-snapshot")
+@Data
+public class KardexSnapshotConfig {
+
+    /**
+     * Activar la generación periódica de puntos de control.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Margen (segundos) restado al corte, que ya no pasa del inicio de la transacción
+     * abierta más antigua. Cubre la diferencia de reloj entre la aplicación (que fija
+     * el created_at de algunos movimientos) y la base de datos.
+     */
+    private int lagSeconds = 300;
+}
@@ -0,0 +1,40 @@
+package com.pegasus.backend.features.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuración de la asignación de stock de pedidos entre almacenes.
+ * Cargada desde application.properties con prefijo "inventory.allocation"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "inventory.allocation")
+@Data
+public class StockAllocationConfig {
+
+    /**
+     * Preferir los almacenes más cercanos al ubigeo de destino
+     * (mismo distrito, luego provincia, luego departamento).
+     */
+    private boolean preferDestinationUbigeo = true;
+
+    /**
+     * Prioridad por almacén (menor = preferido). Los almacenes sin prioridad
+     * configurada van después, ordenados por id.
+     */
+    private Map<Long, Integer> priorityByWarehouseId = new HashMap<>();
+
+    /**
+     * Intervalo (ms) entre recargas de las variantes modificadas.
+     */
+    private long dirtyRefreshIntervalMs = 200;
+
+    /**
+     * Intervalo (ms) entre recargas completas (almacenes activos y cambios de otros nodos).
+     */
+    private long fullRefreshIntervalMs = 30000;
+}
@@ -1,6 +1,8 @@
 package com.pegasus.backend.features.inventory.controller;
 
+import com.pegasus.backend.features.inventory.dto.KardexBalanceResponse;
 import com.pegasus.backend.features.inventory.dto.MovementResponse;
+import com.pegasus.backend.features.inventory.service.KardexSnapshotService;
 import com.pegasus.backend.features.inventory.service.MovementService;
 import com.pegasus.backend.shared.enums.OperationType;
 import io.swagger.v3.oas.annotations.Operation;
@@ -24,6 +26,7 @@ import java.time.OffsetDateTime;
 public class MovementController {
 
     private final MovementService movementService;
+    private final KardexSnapshotService kardexSnapshotService;
 
     @GetMapping("/search")
     @Operation(summary = "Buscar movimientos con filtros")
@@ -63,4 +66,13 @@ public class MovementController {
         return ResponseEntity.ok(movementService.getMovementsByReference(
                 referenceId, referenceTable, pageable));
     }
+
+    @GetMapping("/balance")
+    @Operation(summary = "Saldo de una variante en un almacén a una fecha")
+    public ResponseEntity<KardexBalanceResponse> getBalanceAsOf(
+            @RequestParam Long variantId,
+            @RequestParam Long warehouseId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime asOf) {
+        return ResponseEntity.ok(kardexSnapshotService.getBalanceAsOf(variantId, warehouseId, asOf));
+    }
 }
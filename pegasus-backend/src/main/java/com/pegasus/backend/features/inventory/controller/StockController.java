@@ -1,17 +1,26 @@
 package com.pegasus.backend.features.inventory.controller;
 
+import com.pegasus.backend.features.inventory.config.CycleCountConfig;
 import com.pegasus.backend.features.inventory.dto.*;
+import com.pegasus.backend.features.inventory.service.CycleCountService;
 import com.pegasus.backend.features.inventory.service.StockService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -24,13 +33,20 @@ import java.util.List;
 public class StockController {
 
     private final StockService stockService;
+    private final CycleCountService cycleCountService;
+    private final CycleCountConfig cycleCountConfig;
 
     @GetMapping("/warehouse/{warehouseId}")
     @Operation(summary = "Obtener stock de un almacén")
     public ResponseEntity<Page<StockResponse>> getStockByWarehouse(
             @PathVariable Long warehouseId,
+            @Parameter(description = "Buscar por SKU o nombre de producto")
+            @RequestParam(required = false) String search,
+            @Parameter(description = "Solo variantes con stock disponible menor o igual")
+            @RequestParam(required = false) Integer lowStockThreshold,
             Pageable pageable) {
-        return ResponseEntity.ok(stockService.getStockByWarehouse(warehouseId, pageable));
+        return ResponseEntity.ok(stockService.getStockByWarehouse(warehouseId, search, lowStockThreshold,
+                pageable));
     }
 
     @GetMapping("/variant/{variantId}")
@@ -83,6 +99,25 @@ public class StockController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/cycle-counts")
+    @Operation(summary = "Registrar conteo cíclico",
+            description = "Ajusta el stock del almacén a las cantidades contadas y devuelve las diferencias en CSV")
+    public WebAsyncTask<Void> applyCycleCount(
+            @Valid @RequestBody CycleCountRequest request,
+            Authentication authentication,
+            HttpServletResponse response) {
+        Long userId = extractUserId(authentication);
+        cycleCountService.validate(request);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("conteo_almacen_" + request.warehouseId() + ".csv").build().toString());
+        response.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8).toString());
+        return new WebAsyncTask<>(cycleCountConfig.getTimeoutMs(), () -> {
+            cycleCountService.apply(request, userId, response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
     private Long extractUserId(Authentication authentication) {
         // Implementación pendiente según el sistema de autenticación
         // Por ahora retorna un ID fijo (1L)
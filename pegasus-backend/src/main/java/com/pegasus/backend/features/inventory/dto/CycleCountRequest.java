@@ -0,0 +1,37 @@
+package com.pegasus.backend.features.inventory.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * DTO para cargar un conteo cíclico (inventario físico) de un almacén
+ */
+public record CycleCountRequest(
+        @NotNull(message = "El ID del almacén es requerido")
+        Long warehouseId,
+
+        @NotBlank(message = "La razón del conteo es requerida")
+        String reason,
+
+        @NotEmpty(message = "Debe indicar al menos un SKU contado")
+        @Size(max = 50000, message = "Máximo 50000 SKUs por conteo")
+        List<@Valid Line> lines
+) {
+    /**
+     * Cantidad física contada de un SKU
+     */
+    public record Line(
+            @NotBlank(message = "El SKU es requerido")
+            String sku,
+
+            @NotNull(message = "La cantidad contada es requerida")
+            @Min(value = 0, message = "La cantidad contada no puede ser negativa")
+            Integer countedQuantity
+    ) {}
+}
@@ -0,0 +1,18 @@
+package com.pegasus.backend.features.inventory.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * DTO de saldo físico de una variante en un almacén a una fecha
+ *
+ * @param snapshotAt Punto de control usado (null si no había ninguno anterior)
+ * @param replayedMovements Movimientos aplicados desde el punto de control
+ */
+public record KardexBalanceResponse(
+        Long variantId,
+        Long warehouseId,
+        OffsetDateTime asOf,
+        Integer balance,
+        OffsetDateTime snapshotAt,
+        Long replayedMovements
+) {}
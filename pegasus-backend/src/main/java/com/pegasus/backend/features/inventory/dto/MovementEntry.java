@@ -0,0 +1,19 @@
+package com.pegasus.backend.features.inventory.dto;
+
+import com.pegasus.backend.shared.enums.OperationType;
+
+import java.math.BigDecimal;
+
+/**
+ * Movimiento a registrar en el kardex (ids ya validados por quien lo genera)
+ */
+public record MovementEntry(
+        Long variantId,
+        Long warehouseId,
+        Integer quantity,
+        BigDecimal unitCost,
+        OperationType operationType,
+        String description,
+        Long referenceId,
+        String referenceTable
+) {}
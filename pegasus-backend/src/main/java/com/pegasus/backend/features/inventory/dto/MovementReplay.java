@@ -0,0 +1,12 @@
+package com.pegasus.backend.features.inventory.dto;
+
+/**
+ * Suma de los movimientos físicos de un intervalo (para reconstruir saldos)
+ *
+ * @param delta Cambio neto de la cantidad física
+ * @param movements Movimientos del intervalo
+ */
+public record MovementReplay(
+        Long delta,
+        Long movements
+) {}
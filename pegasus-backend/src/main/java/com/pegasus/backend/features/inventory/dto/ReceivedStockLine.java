@@ -0,0 +1,12 @@
+package com.pegasus.backend.features.inventory.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Línea de stock recibido (para ingresos en lote)
+ */
+public record ReceivedStockLine(
+        Long variantId,
+        Integer quantity,
+        BigDecimal unitCost
+) {}
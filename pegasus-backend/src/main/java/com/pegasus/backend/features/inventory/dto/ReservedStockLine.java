@@ -0,0 +1,10 @@
+package com.pegasus.backend.features.inventory.dto;
+
+/**
+ * Línea de stock reservado por un pedido (para liberaciones en lote)
+ */
+public record ReservedStockLine(
+        Long orderId,
+        Long variantId,
+        Integer quantity
+) {}
@@ -0,0 +1,10 @@
+package com.pegasus.backend.features.inventory.dto;
+
+/**
+ * Cantidad de una variante asignada a un almacén para un pedido
+ */
+public record StockAllocation(
+        Long warehouseId,
+        Long variantId,
+        Integer quantity
+) {}
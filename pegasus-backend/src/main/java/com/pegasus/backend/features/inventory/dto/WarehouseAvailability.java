@@ -0,0 +1,11 @@
+package com.pegasus.backend.features.inventory.dto;
+
+/**
+ * Disponible (cantidad física - reservada) de una variante en un almacén activo
+ * (INTERNO - carga del StockAllocator)
+ */
+public record WarehouseAvailability(
+        Long warehouseId,
+        Long variantId,
+        Integer available
+) {}
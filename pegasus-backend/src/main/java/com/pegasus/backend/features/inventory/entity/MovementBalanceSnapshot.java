@@ -0,0 +1,44 @@
+package com.pegasus.backend.features.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Entidad MovementBalanceSnapshot (Punto de control del kardex)
+ * Saldo físico de una variante en un almacén incluyendo todos los movimientos
+ * hasta snapshotAt. Las consultas a una fecha parten del punto más cercano.
+ */
+@Entity
+@Table(name = "movement_balance_snapshots")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovementBalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "variant_id", nullable = false)
+    private Long variantId;
+
+    @Column(name = "warehouse_id", nullable = false)
+    private Long warehouseId;
+
+    @Column(name = "snapshot_at", nullable = false)
+    private OffsetDateTime snapshotAt;
+
+    @Column(name = "balance", nullable = false)
+    private Integer balance;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+}
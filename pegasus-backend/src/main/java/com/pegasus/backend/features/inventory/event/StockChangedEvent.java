@@ -0,0 +1,6 @@
+package com.pegasus.backend.features.inventory.event;
+
+/**
+ * Evento publicado cuando cambia el stock físico o reservado de una variante en un almacén.
+ */
+public record StockChangedEvent(Long warehouseId, Long variantId) {}
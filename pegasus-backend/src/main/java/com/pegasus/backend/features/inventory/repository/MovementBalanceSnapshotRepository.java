@@ -0,0 +1,92 @@
+package com.pegasus.backend.features.inventory.repository;
+
+import com.pegasus.backend.features.inventory.entity.MovementBalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+/**
+ * Repository para la entidad MovementBalanceSnapshot
+ */
+@Repository
+public interface MovementBalanceSnapshotRepository extends JpaRepository<MovementBalanceSnapshot, Long> {
+
+        /**
+         * Punto de control más reciente de una variante en un almacén hasta la fecha
+         */
+        Optional<MovementBalanceSnapshot> findFirstByVariantIdAndWarehouseIdAndSnapshotAtLessThanEqualOrderBySnapshotAtDesc(
+                        Long variantId,
+                        Long warehouseId,
+                        OffsetDateTime snapshotAt);
+
+        /**
+         * Crear puntos de control al corte para cada variante y almacén con movimientos
+         * desde el último corte. El saldo parte del punto anterior más los movimientos
+         * físicos desde entonces (las cancelaciones solo liberan reservas); sin punto
+         * anterior, se toma el balance del último movimiento hasta el corte.
+         *
+         * El corte sale de los datos confirmados y no solo del reloj: es el menor entre
+         * ahora y el inicio de la transacción abierta más antigua de la base de datos,
+         * menos el margen indicado, redondeado al minuto hacia abajo (siempre anterior a
+         * ese inicio). Un movimiento toma su created_at dentro de su transacción, por lo
+         * que todo movimiento hasta el corte ya está confirmado y ninguno puede aparecer
+         * después por debajo de un corte ya tomado.
+         * Varias ejecuciones con el mismo corte no duplican puntos.
+         *
+         * @param marginSeconds Margen para la diferencia de reloj entre la aplicación y la base de datos
+         * @return Puntos de control creados
+         */
+        @Transactional
+        @Modifying
+        @Query(value = """
+                        WITH cutoff AS (
+                                SELECT date_trunc('minute', LEAST(NOW(), COALESCE((
+                                        SELECT MIN(a.xact_start) FROM pg_stat_activity a
+                                        WHERE a.datname = current_database()
+                                        AND a.pid <> pg_backend_pid()
+                                ), NOW())) - make_interval(secs => :marginSeconds)
+                                        - interval '1 microsecond') AS at
+                        )
+                        INSERT INTO movement_balance_snapshots (variant_id, warehouse_id, snapshot_at, balance)
+                        SELECT p.variant_id, p.warehouse_id, c.at,
+                                CASE WHEN prev.snapshot_at IS NULL THEN last_m.balance
+                                     ELSE prev.balance + COALESCE(d.delta, 0) END
+                        FROM cutoff c
+                        CROSS JOIN LATERAL (
+                                SELECT DISTINCT m.variant_id, m.warehouse_id
+                                FROM movements m
+                                WHERE m.created_at > COALESCE(
+                                        (SELECT MAX(s.snapshot_at) FROM movement_balance_snapshots s), '-infinity')
+                                AND m.created_at <= c.at
+                        ) p
+                        LEFT JOIN LATERAL (
+                                SELECT s.snapshot_at, s.balance
+                                FROM movement_balance_snapshots s
+                                WHERE s.variant_id = p.variant_id AND s.warehouse_id = p.warehouse_id
+                                ORDER BY s.snapshot_at DESC
+                                LIMIT 1
+                        ) prev ON TRUE
+                        LEFT JOIN LATERAL (
+                                SELECT SUM(m.quantity) FILTER (WHERE m.operation_type <> 'CANCELLATION') AS delta
+                                FROM movements m
+                                WHERE m.variant_id = p.variant_id AND m.warehouse_id = p.warehouse_id
+                                AND m.created_at > prev.snapshot_at AND m.created_at <= c.at
+                        ) d ON TRUE
+                        LEFT JOIN LATERAL (
+                                SELECT m.balance
+                                FROM movements m
+                                WHERE m.variant_id = p.variant_id AND m.warehouse_id = p.warehouse_id
+                                AND m.created_at <= c.at
+                                ORDER BY m.created_at DESC, m.id DESC
+                                LIMIT 1
+                        ) last_m ON TRUE
+                        ON CONFLICT (variant_id, warehouse_id, snapshot_at) DO NOTHING
+                        """, nativeQuery = true)
+        int createSnapshots(@Param("marginSeconds") int marginSeconds);
+}
@@ -1,22 +1,27 @@
 package com.pegasus.backend.features.inventory.repository;
 
+import com.pegasus.backend.features.inventory.dto.MovementReplay;
 import com.pegasus.backend.features.inventory.entity.Movement;
 import com.pegasus.backend.shared.enums.OperationType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository para la entidad Movement
  */
 @Repository
-public interface MovementRepository extends JpaRepository<Movement, Long> {
+public interface MovementRepository extends JpaRepository<Movement, Long>, JpaSpecificationExecutor<Movement> {
 
         /**
          * Buscar movimientos por almacén
@@ -106,44 +111,98 @@ public interface MovementRepository extends JpaRepository<Movement, Long> {
                         @Param("warehouseId") Long warehouseId);
 
         /**
-         * Búsqueda compleja con múltiples filtros
+         * Balance del último movimiento de una variante en un almacén hasta la fecha
          */
         @Query("""
-                        SELECT m FROM Movement m
-                        WHERE (:warehouseId IS NULL OR m.warehouseId = :warehouseId)
-                        AND (:variantId IS NULL OR m.variantId = :variantId)
-                        AND (:operationType IS NULL OR m.operationType = :operationType)
-                        AND (:startDate IS NULL OR m.createdAt >= :startDate)
-                        AND (:endDate IS NULL OR m.createdAt <= :endDate)
-                        ORDER BY m.createdAt DESC
+                        SELECT m.balance FROM Movement m
+                        WHERE m.variantId = :variantId
+                        AND m.warehouseId = :warehouseId
+                        AND m.createdAt <= :asOf
+                        ORDER BY m.createdAt DESC, m.id DESC
+                        LIMIT 1
                         """)
-        Page<Movement> searchMovements(
-                        @Param("warehouseId") Long warehouseId,
+        Optional<Integer> findBalanceAsOf(
                         @Param("variantId") Long variantId,
-                        @Param("operationType") OperationType operationType,
-                        @Param("startDate") OffsetDateTime startDate,
-                        @Param("endDate") OffsetDateTime endDate,
-                        Pageable pageable);
+                        @Param("warehouseId") Long warehouseId,
+                        @Param("asOf") OffsetDateTime asOf);
 
         /**
-         * Búsqueda compleja limitada a un conjunto de tipos permitidos.
+         * Saldo físico previo al primer movimiento posterior a la fecha
+         * (balance de ese movimiento menos su efecto físico)
          */
         @Query("""
-                            SELECT m FROM Movement m
-                            WHERE m.operationType IN :allowedTypes
-                        AND m.warehouseId = COALESCE(:warehouseId, m.warehouseId)
-                        AND m.variantId = COALESCE(:variantId, m.variantId)
-                        AND m.operationType = COALESCE(:operationType, m.operationType)
-                        AND m.createdAt >= COALESCE(:startDate, m.createdAt)
-                        AND m.createdAt <= COALESCE(:endDate, m.createdAt)
-                            ORDER BY m.createdAt DESC
-                            """)
-        Page<Movement> searchMovementsAllowed(
-                        @Param("allowedTypes") List<OperationType> allowedTypes,
+                        SELECT m.balance - CASE WHEN m.operationType = com.pegasus.backend.shared.enums.OperationType.CANCELLATION
+                                THEN 0 ELSE m.quantity END
+                        FROM Movement m
+                        WHERE m.variantId = :variantId
+                        AND m.warehouseId = :warehouseId
+                        AND m.createdAt > :asOf
+                        ORDER BY m.createdAt ASC, m.id ASC
+                        LIMIT 1
+                        """)
+        Optional<Integer> findOpeningBalanceAfter(
+                        @Param("variantId") Long variantId,
                         @Param("warehouseId") Long warehouseId,
+                        @Param("asOf") OffsetDateTime asOf);
+
+        /**
+         * Cambio físico neto y número de movimientos en el intervalo (from, to]
+         * (las cancelaciones solo liberan reservas y no cambian la cantidad física)
+         */
+        @Query("""
+                        SELECT new com.pegasus.backend.features.inventory.dto.MovementReplay(
+                                COALESCE(SUM(CASE WHEN m.operationType = com.pegasus.backend.shared.enums.OperationType.CANCELLATION
+                                        THEN 0 ELSE m.quantity END), 0L),
+                                COUNT(m))
+                        FROM Movement m
+                        WHERE m.variantId = :variantId
+                        AND m.warehouseId = :warehouseId
+                        AND m.createdAt > :from
+                        AND m.createdAt <= :to
+                        """)
+        MovementReplay replay(
                         @Param("variantId") Long variantId,
-                        @Param("operationType") OperationType operationType,
-                        @Param("startDate") OffsetDateTime startDate,
-                        @Param("endDate") OffsetDateTime endDate,
-                        Pageable pageable);
+                        @Param("warehouseId") Long warehouseId,
+                        @Param("from") OffsetDateTime from,
+                        @Param("to") OffsetDateTime to);
+
+        /**
+         * Registrar varios movimientos en una sola sentencia. El balance sale de la fila de
+         * stock ya actualizada en la transacción; si una misma variante y almacén aparece
+         * varias veces, se descuentan las líneas posteriores para obtener el saldo de cada una
+         * (las cancelaciones solo liberan reservas y no cambian la cantidad física).
+         * Las líneas sin registro de stock no se insertan.
+         *
+         * @return Número de movimientos insertados
+         */
+        @Modifying(flushAutomatically = true)
+        @Query(value = """
+                        INSERT INTO movements (variant_id, warehouse_id, quantity, balance, unit_cost,
+                                operation_type, description, reference_id, reference_table, user_id, created_at)
+                        SELECT l.variant_id, l.warehouse_id, l.quantity,
+                                s.quantity - COALESCE(SUM(CASE WHEN l.operation_type = 'CANCELLATION'
+                                        THEN 0 ELSE l.quantity END) OVER (
+                                        PARTITION BY l.warehouse_id, l.variant_id ORDER BY l.ord
+                                        ROWS BETWEEN 1 FOLLOWING AND UNBOUNDED FOLLOWING), 0),
+                                l.unit_cost, l.operation_type, l.description, l.reference_id, l.reference_table,
+                                :userId, NOW()
+                        FROM unnest(CAST(:variantIds AS bigint[]), CAST(:warehouseIds AS bigint[]),
+                                CAST(:quantities AS integer[]), CAST(:unitCosts AS numeric[]),
+                                CAST(:operationTypes AS varchar[]), CAST(:descriptions AS text[]),
+                                CAST(:referenceIds AS bigint[]), CAST(:referenceTables AS varchar[]))
+                                WITH ORDINALITY AS l(variant_id, warehouse_id, quantity, unit_cost, operation_type,
+                                        description, reference_id, reference_table, ord)
+                        JOIN stocks s ON s.warehouse_id = l.warehouse_id AND s.variant_id = l.variant_id
+                        ORDER BY l.ord
+                        """, nativeQuery = true)
+        int insertBatch(
+                        @Param("variantIds") Long[] variantIds,
+                        @Param("warehouseIds") Long[] warehouseIds,
+                        @Param("quantities") Integer[] quantities,
+                        @Param("unitCosts") BigDecimal[] unitCosts,
+                        @Param("operationTypes") String[] operationTypes,
+                        @Param("descriptions") String[] descriptions,
+                        @Param("referenceIds") Long[] referenceIds,
+                        @Param("referenceTables") String[] referenceTables,
+                        @Param("userId") Long userId);
 }
@@ -0,0 +1,58 @@
+package com.pegasus.backend.features.inventory.repository;
+
+import com.pegasus.backend.features.inventory.entity.Movement;
+import com.pegasus.backend.shared.enums.OperationType;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Specifications para búsquedas dinámicas de movimientos (kardex).
+ * Solo se agregan los predicados de los filtros presentes, para que el planificador
+ * use el índice de cada combinación: (variant_id, warehouse_id, created_at),
+ * (variant_id, created_at), (warehouse_id, created_at) o created_at.
+ */
+public final class MovementSpecifications {
+
+    private MovementSpecifications() {
+    }
+
+    /**
+     * Búsqueda del kardex limitada a los tipos permitidos.
+     *
+     * @param allowedTypes Tipos visibles; si se indica operationType, solo ese
+     */
+    public static Specification<Movement> search(
+            Collection<OperationType> allowedTypes,
+            Long warehouseId,
+            Long variantId,
+            OperationType operationType,
+            OffsetDateTime fromDate,
+            OffsetDateTime toDate) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (operationType != null) {
+                predicates.add(cb.equal(root.get("operationType"), operationType));
+            } else {
+                predicates.add(root.get("operationType").in(allowedTypes));
+            }
+            if (warehouseId != null) {
+                predicates.add(cb.equal(root.get("warehouseId"), warehouseId));
+            }
+            if (variantId != null) {
+                predicates.add(cb.equal(root.get("variantId"), variantId));
+            }
+            if (fromDate != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), fromDate));
+            }
+            if (toDate != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), toDate));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.pegasus.backend.features.inventory.repository;
+
+import com.pegasus.backend.features.inventory.dto.StockResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Grilla de stock de un almacén como proyección (sin instanciar entidades)
+ */
+public interface StockGridRepository {
+
+    /**
+     * Página de variantes activas con su stock en el almacén (0 si no tienen registro)
+     * y el nombre del producto, en una sola consulta más la de conteo.
+     *
+     * @param search Texto a buscar en el SKU o el nombre del producto (opcional)
+     * @param lowStockThreshold Solo variantes con disponible menor o igual (opcional)
+     */
+    Page<StockResponse> findGrid(Long warehouseId, String search, Integer lowStockThreshold, Pageable pageable);
+}
@@ -0,0 +1,139 @@
+package com.pegasus.backend.features.inventory.repository;
+
+import com.pegasus.backend.features.catalog.entity.Product;
+import com.pegasus.backend.features.catalog.entity.Variant;
+import com.pegasus.backend.features.inventory.dto.StockResponse;
+import com.pegasus.backend.features.inventory.entity.Stock;
+import com.pegasus.backend.features.inventory.entity.Warehouse;
+import com.pegasus.backend.shared.query.LikePatterns;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementación con Criteria API de {@link StockGridRepository}
+ */
+@RequiredArgsConstructor
+public class StockGridRepositoryImpl implements StockGridRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Page<StockResponse> findGrid(Long warehouseId, String search, Integer lowStockThreshold,
+            Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Variant> variant = query.from(Variant.class);
+        Join<Variant, Product> product = variant.join("product", JoinType.LEFT);
+        Root<Warehouse> warehouse = query.from(Warehouse.class);
+        Join<Variant, Stock> stock = joinStock(cb, variant, warehouseId);
+
+        query.multiselect(
+                stock.get("id"), warehouse.get("id"), warehouse.get("code"), warehouse.get("name"),
+                variant.get("id"), variant.get("sku"), product.get("name"),
+                quantity(cb, stock), reserved(cb, stock), stock.get("updatedAt"));
+        List<Predicate> predicates = predicates(cb, variant, product, stock, search, lowStockThreshold);
+        predicates.add(cb.equal(warehouse.get("id"), warehouseId));
+        query.where(predicates.toArray(new Predicate[0]));
+
+        // Orden del listado anterior (por SKU) si el cliente no indica otro
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("sku");
+        query.orderBy(QueryUtils.toOrders(sort, variant, cb));
+
+        var typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<StockResponse> content = typedQuery.getResultList().stream()
+                .map(this::toResponse)
+                .toList();
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> count(warehouseId, search, lowStockThreshold));
+    }
+
+    private long count(Long warehouseId, String search, Integer lowStockThreshold) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Variant> variant = query.from(Variant.class);
+        Join<Variant, Product> product = variant.join("product", JoinType.LEFT);
+        Join<Variant, Stock> stock = joinStock(cb, variant, warehouseId);
+        query.select(cb.count(variant));
+        query.where(predicates(cb, variant, product, stock, search, lowStockThreshold).toArray(new Predicate[0]));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * LEFT JOIN al registro de stock de la variante en el almacén (índice único
+     * warehouse_id + variant_id)
+     */
+    private Join<Variant, Stock> joinStock(CriteriaBuilder cb, Root<Variant> variant, Long warehouseId) {
+        Join<Variant, Stock> stock = variant.join(Stock.class, JoinType.LEFT);
+        stock.on(cb.equal(stock.get("variantId"), variant.get("id")),
+                cb.equal(stock.get("warehouseId"), warehouseId));
+        return stock;
+    }
+
+    /**
+     * Solo los filtros presentes
+     */
+    private List<Predicate> predicates(CriteriaBuilder cb, Root<Variant> variant, Join<Variant, Product> product,
+            Join<Variant, Stock> stock, String search, Integer lowStockThreshold) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.isTrue(variant.get("isActive")));
+        if (search != null && !search.isBlank()) {
+            String term = LikePatterns.contains(search);
+            predicates.add(cb.or(
+                    cb.like(cb.lower(variant.get("sku")), term, LikePatterns.ESCAPE),
+                    cb.like(cb.lower(product.get("name")), term, LikePatterns.ESCAPE)));
+        }
+        if (lowStockThreshold != null) {
+            predicates.add(cb.le(cb.diff(quantity(cb, stock), reserved(cb, stock)), lowStockThreshold));
+        }
+        return predicates;
+    }
+
+    private Expression<Integer> quantity(CriteriaBuilder cb, Join<Variant, Stock> stock) {
+        return cb.coalesce(stock.<Integer>get("quantity"), 0);
+    }
+
+    private Expression<Integer> reserved(CriteriaBuilder cb, Join<Variant, Stock> stock) {
+        return cb.coalesce(stock.<Integer>get("reservedQuantity"), 0);
+    }
+
+    private StockResponse toResponse(Tuple row) {
+        Integer quantity = row.get(7, Integer.class);
+        Integer reserved = row.get(8, Integer.class);
+        String productName = row.get(6, String.class);
+        return new StockResponse(
+                row.get(0, Long.class),
+                row.get(1, Long.class),
+                row.get(2, String.class),
+                row.get(3, String.class),
+                row.get(4, Long.class),
+                row.get(5, String.class),
+                productName != null ? productName : "N/A",
+                quantity,
+                reserved,
+                quantity - reserved,
+                row.get(9, OffsetDateTime.class));
+    }
+}
@@ -1,13 +1,20 @@
 package com.pegasus.backend.features.inventory.repository;
 
+import com.pegasus.backend.features.inventory.dto.WarehouseAvailability;
 import com.pegasus.backend.features.inventory.entity.Stock;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,13 +22,419 @@ import java.util.Optional;
  * Repository para la entidad Stock
  */
 @Repository
-public interface StockRepository extends JpaRepository<Stock, Long> {
+public interface StockRepository extends JpaRepository<Stock, Long>, StockGridRepository {
 
     /**
      * Buscar stock por almacén y variante
      */
     Optional<Stock> findByWarehouseIdAndVariantId(Long warehouseId, Long variantId);
 
+    /**
+     * Buscar el stock de varias variantes en un almacén (una sola consulta)
+     */
+    List<Stock> findByWarehouseIdAndVariantIdIn(Long warehouseId, Collection<Long> variantIds);
+
+    /**
+     * Reservar stock de varias variantes en una sola sentencia.
+     * Las filas se bloquean primero en orden de variante, para que dos pedidos con
+     * variantes en común no se interbloqueen. Cada fila solo se actualiza si tiene
+     * disponible suficiente, por lo que el número de filas actualizadas indica
+     * cuántas reservas se aplicaron.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            WITH locked AS (
+                SELECT l.id FROM stocks l
+                WHERE l.warehouse_id = :warehouseId
+                AND l.variant_id = ANY(CAST(:variantIds AS bigint[]))
+                ORDER BY l.variant_id
+                FOR UPDATE
+            )
+            UPDATE stocks s
+            SET reserved_quantity = s.reserved_quantity + r.quantity,
+                updated_at = NOW()
+            FROM unnest(CAST(:variantIds AS bigint[]), CAST(:quantities AS integer[])) AS r(variant_id, quantity),
+                 locked
+            WHERE s.id = locked.id
+            AND s.variant_id = r.variant_id
+            AND s.quantity - s.reserved_quantity >= r.quantity
+            """, nativeQuery = true)
+    int reserveBatch(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantIds") Long[] variantIds,
+            @Param("quantities") Integer[] quantities
+    );
+
+    /**
+     * Liberar stock reservado de varias variantes en una sola sentencia (sin bajar de 0).
+     * Bloquea las filas en orden de variante, igual que {@link #reserveBatch}.
+     *
+     * @return Número de filas de stock actualizadas
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            WITH locked AS (
+                SELECT l.id FROM stocks l
+                WHERE l.warehouse_id = :warehouseId
+                AND l.variant_id = ANY(CAST(:variantIds AS bigint[]))
+                ORDER BY l.variant_id
+                FOR UPDATE
+            )
+            UPDATE stocks s
+            SET reserved_quantity = CASE WHEN s.reserved_quantity > r.quantity
+                                         THEN s.reserved_quantity - r.quantity ELSE 0 END,
+                updated_at = NOW()
+            FROM unnest(CAST(:variantIds AS bigint[]), CAST(:quantities AS integer[])) AS r(variant_id, quantity),
+                 locked
+            WHERE s.id = locked.id
+            AND s.variant_id = r.variant_id
+            """, nativeQuery = true)
+    int releaseBatch(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantIds") Long[] variantIds,
+            @Param("quantities") Integer[] quantities
+    );
+
+    /**
+     * Reservar stock de forma atómica: solo actualiza si el disponible alcanza.
+     *
+     * @return 1 si se reservó, 0 si no existe el registro o el disponible es insuficiente
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE Stock s
+            SET s.reservedQuantity = s.reservedQuantity + :quantity,
+                s.updatedAt = :now
+            WHERE s.warehouseId = :warehouseId
+            AND s.variantId = :variantId
+            AND s.quantity - s.reservedQuantity >= :quantity
+            """)
+    int reserve(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantId") Long variantId,
+            @Param("quantity") Integer quantity,
+            @Param("now") OffsetDateTime now
+    );
+
+    /**
+     * Liberar stock reservado de forma atómica (sin bajar de 0).
+     *
+     * @return 1 si se liberó, 0 si no existe el registro
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE Stock s
+            SET s.reservedQuantity = CASE WHEN s.reservedQuantity > :quantity
+                                          THEN s.reservedQuantity - :quantity ELSE 0 END,
+                s.updatedAt = :now
+            WHERE s.warehouseId = :warehouseId
+            AND s.variantId = :variantId
+            """)
+    int release(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantId") Long variantId,
+            @Param("quantity") Integer quantity,
+            @Param("now") OffsetDateTime now
+    );
+
+    /**
+     * Descontar stock físico y reservado de forma atómica (venta despachada).
+     *
+     * @return 1 si se descontó, 0 si no existe el registro o la cantidad física es insuficiente
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE Stock s
+            SET s.quantity = s.quantity - :quantity,
+                s.reservedQuantity = CASE WHEN s.reservedQuantity > :quantity
+                                          THEN s.reservedQuantity - :quantity ELSE 0 END,
+                s.updatedAt = :now
+            WHERE s.warehouseId = :warehouseId
+            AND s.variantId = :variantId
+            AND s.quantity >= :quantity
+            """)
+    int decrease(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantId") Long variantId,
+            @Param("quantity") Integer quantity,
+            @Param("now") OffsetDateTime now
+    );
+
+    /**
+     * Ajustar el stock físico de forma atómica sin dejarlo negativo (ajuste manual).
+     *
+     * @return 1 si se ajustó, 0 si no existe el registro o el ajuste lo dejaría negativo
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE Stock s
+            SET s.quantity = s.quantity + :delta,
+                s.updatedAt = :now
+            WHERE s.warehouseId = :warehouseId
+            AND s.variantId = :variantId
+            AND s.quantity + :delta >= 0
+            """)
+    int adjustQuantity(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantId") Long variantId,
+            @Param("delta") Integer delta,
+            @Param("now") OffsetDateTime now
+    );
+
+    /**
+     * Retirar stock disponible de forma atómica (salida de una transferencia).
+     *
+     * @return 1 si se retiró, 0 si no existe el registro o el disponible es insuficiente
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE Stock s
+            SET s.quantity = s.quantity - :quantity,
+                s.updatedAt = :now
+            WHERE s.warehouseId = :warehouseId
+            AND s.variantId = :variantId
+            AND s.quantity - s.reservedQuantity >= :quantity
+            """)
+    int withdrawAvailable(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantId") Long variantId,
+            @Param("quantity") Integer quantity,
+            @Param("now") OffsetDateTime now
+    );
+
+    /**
+     * Incrementar stock físico de forma atómica, creando el registro si no existe.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO stocks (warehouse_id, variant_id, quantity, reserved_quantity, updated_at)
+            VALUES (:warehouseId, :variantId, :quantity, 0, NOW())
+            ON CONFLICT (warehouse_id, variant_id)
+            DO UPDATE SET quantity = stocks.quantity + EXCLUDED.quantity,
+                          updated_at = NOW()
+            """, nativeQuery = true)
+    int increase(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantId") Long variantId,
+            @Param("quantity") Integer quantity
+    );
+
+    /**
+     * Incrementar stock físico de varias variantes en una sola sentencia, creando los
+     * registros que no existan (una entrada por variante).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO stocks (warehouse_id, variant_id, quantity, reserved_quantity, updated_at)
+            SELECT :warehouseId, r.variant_id, r.quantity, 0, NOW()
+            FROM unnest(CAST(:variantIds AS bigint[]), CAST(:quantities AS integer[])) AS r(variant_id, quantity)
+            ON CONFLICT (warehouse_id, variant_id)
+            DO UPDATE SET quantity = stocks.quantity + EXCLUDED.quantity,
+                          updated_at = NOW()
+            """, nativeQuery = true)
+    int increaseBatch(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantIds") Long[] variantIds,
+            @Param("quantities") Integer[] quantities
+    );
+
+    /**
+     * Crear con cantidad 0 los registros de stock que no existan en el almacén.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO stocks (warehouse_id, variant_id, quantity, reserved_quantity, updated_at)
+            SELECT :warehouseId, v.variant_id, 0, 0, NOW()
+            FROM unnest(CAST(:variantIds AS bigint[])) AS v(variant_id)
+            ON CONFLICT (warehouse_id, variant_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertMissing(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantIds") Long[] variantIds
+    );
+
+    /**
+     * Crear con cantidad 0 el stock de una variante en todos los almacenes activos
+     * (los registros existentes no se modifican).
+     *
+     * @return Número de registros creados
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO stocks (warehouse_id, variant_id, quantity, reserved_quantity, updated_at)
+            SELECT w.id, :variantId, 0, 0, NOW()
+            FROM warehouses w
+            WHERE w.is_active = true
+            ON CONFLICT (warehouse_id, variant_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertZeroForActiveWarehouses(@Param("variantId") Long variantId);
+
+    /**
+     * Crear con cantidad 0 el stock de todas las variantes activas en un almacén
+     * (los registros existentes no se modifican).
+     *
+     * @return Número de registros creados
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO stocks (warehouse_id, variant_id, quantity, reserved_quantity, updated_at)
+            SELECT :warehouseId, v.id, 0, 0, NOW()
+            FROM variants v
+            WHERE v.is_active = true
+            ON CONFLICT (warehouse_id, variant_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertZeroForActiveVariants(@Param("warehouseId") Long warehouseId);
+
+    /**
+     * Bloquear los registros de stock de varias variantes en un almacén
+     * (en orden de variante, para no generar interbloqueos entre conteos).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT s FROM Stock s
+            WHERE s.warehouseId = :warehouseId
+            AND s.variantId IN :variantIds
+            ORDER BY s.variantId
+            """)
+    List<Stock> lockByWarehouseIdAndVariantIdIn(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantIds") Collection<Long> variantIds
+    );
+
+    /**
+     * Fijar la cantidad física de varias variantes en una sola sentencia.
+     *
+     * @return Número de filas de stock actualizadas
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            UPDATE stocks s
+            SET quantity = c.quantity,
+                updated_at = NOW()
+            FROM unnest(CAST(:variantIds AS bigint[]), CAST(:quantities AS integer[])) AS c(variant_id, quantity)
+            WHERE s.warehouse_id = :warehouseId
+            AND s.variant_id = c.variant_id
+            """, nativeQuery = true)
+    int setQuantities(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantIds") Long[] variantIds,
+            @Param("quantities") Integer[] quantities
+    );
+
+    /**
+     * Sumar reservas ya concedidas en memoria (modo flash sale) al stock reservado.
+     * No verifica disponibilidad: el ledger en memoria ya la garantizó. Un delta
+     * negativo descuenta liberaciones aplicadas antes del volcado (sin bajar de 0).
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE Stock s
+            SET s.reservedQuantity = CASE WHEN s.reservedQuantity + :delta > 0
+                                          THEN s.reservedQuantity + :delta ELSE 0 END,
+                s.updatedAt = :now
+            WHERE s.warehouseId = :warehouseId
+            AND s.variantId = :variantId
+            """)
+    int addReserved(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantId") Long variantId,
+            @Param("delta") Integer delta,
+            @Param("now") OffsetDateTime now
+    );
+
+    /**
+     * Bloquear el registro de stock y leer su cantidad reservada (modo flash sale,
+     * antes de liberar o despachar una variante marcada).
+     */
+    @Query(value = """
+            SELECT reserved_quantity FROM stocks
+            WHERE warehouse_id = :warehouseId
+            AND variant_id = :variantId
+            FOR UPDATE
+            """, nativeQuery = true)
+    Optional<Integer> lockReservedQuantity(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantId") Long variantId
+    );
+
+    /**
+     * Recalcular el stock reservado desde las asignaciones de los pedidos abiertos
+     * (creados y aún no despachados ni cancelados). Usado para reconciliar tras un reinicio las reservas
+     * del modo flash sale que no llegaron a volcarse.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE stocks s
+            SET reserved_quantity = COALESCE((
+                    SELECT SUM(a.quantity)
+                    FROM order_allocations a
+                    JOIN orders o ON o.id = a.order_id
+                    WHERE a.warehouse_id = s.warehouse_id
+                    AND a.variant_id = s.variant_id
+                    AND o.status IN ('PENDING', 'AWAIT_PAYMENT', 'PAID', 'PROCESSING')
+                ), 0),
+                updated_at = NOW()
+            WHERE s.warehouse_id = :warehouseId
+            AND s.variant_id = :variantId
+            """, nativeQuery = true)
+    int reconcileReservedFromOpenOrders(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantId") Long variantId
+    );
+
+    /**
+     * Cantidad física actual leída de la base de datos (no del contexto de persistencia)
+     */
+    @Query("""
+            SELECT s.quantity FROM Stock s
+            WHERE s.warehouseId = :warehouseId
+            AND s.variantId = :variantId
+            """)
+    Optional<Integer> findQuantity(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantId") Long variantId
+    );
+
+    /**
+     * Cantidad disponible actual (quantity - reservedQuantity) leída de la base de datos
+     */
+    @Query("""
+            SELECT s.quantity - s.reservedQuantity FROM Stock s
+            WHERE s.warehouseId = :warehouseId
+            AND s.variantId = :variantId
+            """)
+    Optional<Integer> findAvailableQuantity(
+            @Param("warehouseId") Long warehouseId,
+            @Param("variantId") Long variantId
+    );
+
+    /**
+     * Disponible de todas las variantes en los almacenes activos (carga del StockAllocator)
+     */
+    @Query("""
+            SELECT new com.pegasus.backend.features.inventory.dto.WarehouseAvailability(
+                s.warehouseId, s.variantId, s.quantity - s.reservedQuantity)
+            FROM Stock s
+            WHERE s.warehouse.isActive = true
+            """)
+    List<WarehouseAvailability> findAvailabilityInActiveWarehouses();
+
+    /**
+     * Disponible de varias variantes en los almacenes activos
+     */
+    @Query("""
+            SELECT new com.pegasus.backend.features.inventory.dto.WarehouseAvailability(
+                s.warehouseId, s.variantId, s.quantity - s.reservedQuantity)
+            FROM Stock s
+            WHERE s.warehouse.isActive = true
+            AND s.variantId IN :variantIds
+            """)
+    List<WarehouseAvailability> findAvailabilityInActiveWarehouses(
+            @Param("variantIds") Collection<Long> variantIds
+    );
+
     /**
      * Buscar todo el stock de una variante en todos los almacenes
      */
@@ -0,0 +1,187 @@
+package com.pegasus.backend.features.inventory.service;
+
+import com.pegasus.backend.exception.BadRequestException;
+import com.pegasus.backend.exception.ResourceNotFoundException;
+import com.pegasus.backend.features.catalog.entity.Variant;
+import com.pegasus.backend.features.catalog.repository.VariantRepository;
+import com.pegasus.backend.features.inventory.config.CycleCountConfig;
+import com.pegasus.backend.features.inventory.dto.CycleCountRequest;
+import com.pegasus.backend.features.inventory.dto.MovementEntry;
+import com.pegasus.backend.features.inventory.entity.Stock;
+import com.pegasus.backend.features.inventory.event.StockChangedEvent;
+import com.pegasus.backend.features.inventory.repository.StockRepository;
+import com.pegasus.backend.features.inventory.repository.WarehouseRepository;
+import com.pegasus.backend.shared.csv.CsvWriter;
+import com.pegasus.backend.shared.enums.OperationType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de conteos cíclicos (inventario físico por almacén).
+ *
+ * Las cantidades contadas se aplican por bloques, cada uno en su transacción: se
+ * bloquean las filas de stock del bloque, la diferencia se calcula contra esas filas
+ * bloqueadas (ninguna otra operación puede cambiarlas hasta confirmar) y los ajustes
+ * y sus movimientos se escriben con una sentencia cada uno. Las diferencias se
+ * informan como CSV a medida que cada bloque se confirma.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CycleCountService {
+
+        private static final String[] HEADER = {
+                        "SKU", "ID variante", "Stock sistema", "Contado", "Diferencia", "Reservado", "Estado",
+                        "Detalle" };
+
+        private final CycleCountConfig config;
+        private final StockRepository stockRepository;
+        private final WarehouseRepository warehouseRepository;
+        private final VariantRepository variantRepository;
+        private final MovementService movementService;
+        private final ApplicationEventPublisher eventPublisher;
+        private final TransactionTemplate transactionTemplate;
+
+        /**
+         * Validar el conteo antes de iniciar la respuesta (una vez que empieza a
+         * escribirse ya no puede devolver un error).
+         */
+        public void validate(CycleCountRequest request) {
+                if (!warehouseRepository.existsById(request.warehouseId())) {
+                        throw new ResourceNotFoundException("Almacén no encontrado con ID: " + request.warehouseId());
+                }
+
+                Set<String> skus = new HashSet<>();
+                for (CycleCountRequest.Line line : request.lines()) {
+                        if (!skus.add(line.sku().trim())) {
+                                throw new BadRequestException("SKU repetido en el conteo: " + line.sku());
+                        }
+                }
+        }
+
+        /**
+         * Aplicar el conteo y escribir las diferencias (solo filas ajustadas, SKUs no
+         * encontrados, líneas rechazadas y bloques con error). Una cantidad contada menor
+         * que lo reservado se rechaza (ERROR) sin ajustar esa variante. Los bloques ya
+         * confirmados no se revierten si uno posterior falla.
+         *
+         * @param userId Usuario que registra el conteo
+         */
+        public void apply(CycleCountRequest request, Long userId, OutputStream out) {
+                long startedAt = System.currentTimeMillis();
+                CsvWriter csv = new CsvWriter(out);
+                csv.row(HEADER);
+
+                int adjusted = 0;
+                List<CycleCountRequest.Line> lines = request.lines();
+                for (int from = 0; from < lines.size(); from += config.getChunkSize()) {
+                        List<CycleCountRequest.Line> chunk = lines.subList(from,
+                                        Math.min(from + config.getChunkSize(), lines.size()));
+                        try {
+                                List<String[]> rows = new ArrayList<>();
+                                Integer applied = transactionTemplate.execute(
+                                                status -> applyChunk(request, chunk, userId, rows));
+                                adjusted += applied;
+                                rows.forEach(csv::row);
+                        } catch (RuntimeException e) {
+                                log.error("Cycle count chunk failed - warehouse: {}, lines {}-{}: {}",
+                                                request.warehouseId(), from, from + chunk.size() - 1, e.getMessage());
+                                for (CycleCountRequest.Line line : chunk) {
+                                        csv.row(line.sku(), null, null, String.valueOf(line.countedQuantity()), null,
+                                                        null, "ERROR", e.getMessage());
+                                }
+                        }
+                }
+
+                csv.finish();
+                log.info("Cycle count applied - warehouse: {}, lines: {}, adjusted: {}, in {} ms",
+                                request.warehouseId(), lines.size(), adjusted,
+                                System.currentTimeMillis() - startedAt);
+        }
+
+        /**
+         * Aplicar un bloque (dentro de una transacción).
+         *
+         * @param rows Filas del reporte del bloque (se escriben al confirmar)
+         * @return Variantes ajustadas
+         */
+        private int applyChunk(CycleCountRequest request, List<CycleCountRequest.Line> chunk, Long userId,
+                        List<String[]> rows) {
+                Long warehouseId = request.warehouseId();
+                Map<String, Variant> variantsBySku = variantRepository.findBySkuIn(
+                                chunk.stream().map(line -> line.sku().trim()).toList())
+                                .stream()
+                                .collect(Collectors.toMap(Variant::getSku, Function.identity()));
+
+                List<Long> variantIds = variantsBySku.values().stream().map(Variant::getId).toList();
+                Map<Long, Stock> stocksByVariant = Map.of();
+                if (!variantIds.isEmpty()) {
+                        // Las variantes sin registro en el almacén se cuentan desde 0
+                        stockRepository.insertMissing(warehouseId, variantIds.toArray(new Long[0]));
+                        stocksByVariant = stockRepository.lockByWarehouseIdAndVariantIdIn(warehouseId, variantIds)
+                                        .stream()
+                                        .collect(Collectors.toMap(Stock::getVariantId, Function.identity()));
+                }
+
+                List<Long> changedIds = new ArrayList<>();
+                List<Integer> countedQuantities = new ArrayList<>();
+                List<MovementEntry> movements = new ArrayList<>();
+                for (CycleCountRequest.Line line : chunk) {
+                        Variant variant = variantsBySku.get(line.sku().trim());
+                        if (variant == null) {
+                                rows.add(new String[] { line.sku(), null, null, String.valueOf(line.countedQuantity()),
+                                                null, null, "SKU_NO_ENCONTRADO", null });
+                                continue;
+                        }
+
+                        Stock stock = stocksByVariant.get(variant.getId());
+                        int difference = line.countedQuantity() - stock.getQuantity();
+                        if (difference == 0) {
+                                continue;
+                        }
+                        if (line.countedQuantity() < stock.getReservedQuantity()) {
+                                // Dejaría el stock por debajo de lo reservado y esas reservas ya no
+                                // podrían despacharse: la línea se rechaza sin ajustar
+                                rows.add(new String[] { variant.getSku(), String.valueOf(variant.getId()),
+                                                String.valueOf(stock.getQuantity()),
+                                                String.valueOf(line.countedQuantity()),
+                                                String.valueOf(difference), String.valueOf(stock.getReservedQuantity()),
+                                                "ERROR", "Contado menor que lo reservado por pedidos" });
+                                continue;
+                        }
+
+                        changedIds.add(variant.getId());
+                        countedQuantities.add(line.countedQuantity());
+                        movements.add(new MovementEntry(variant.getId(), warehouseId, difference, BigDecimal.ZERO,
+                                        OperationType.INVENTORY_ADJUSTMENT, request.reason(), stock.getId(), "stocks"));
+                        rows.add(new String[] { variant.getSku(), String.valueOf(variant.getId()),
+                                        String.valueOf(stock.getQuantity()), String.valueOf(line.countedQuantity()),
+                                        String.valueOf(difference), String.valueOf(stock.getReservedQuantity()),
+                                        "AJUSTADO", null });
+                }
+
+                if (changedIds.isEmpty()) {
+                        return 0;
+                }
+
+                stockRepository.setQuantities(warehouseId, changedIds.toArray(new Long[0]),
+                                countedQuantities.toArray(new Integer[0]));
+                movementService.recordMovements(movements, userId);
+                changedIds.forEach(variantId -> eventPublisher.publishEvent(
+                                new StockChangedEvent(warehouseId, variantId)));
+                return changedIds.size();
+        }
+}
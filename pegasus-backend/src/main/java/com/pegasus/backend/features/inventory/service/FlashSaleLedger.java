@@ -0,0 +1,278 @@
+package com.pegasus.backend.features.inventory.service;
+
+import com.pegasus.backend.exception.BadRequestException;
+import com.pegasus.backend.features.inventory.config.FlashSaleConfig;
+import com.pegasus.backend.features.inventory.event.StockChangedEvent;
+import com.pegasus.backend.features.inventory.repository.StockRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ledger en memoria para reservas de variantes de alta concurrencia (modo flash sale).
+ *
+ * Las variantes marcadas en {@code inventory.flash-sale.variant-ids} reservan desde un
+ * contador atómico en memoria en lugar de bloquear su fila de stocks en cada pedido.
+ * Las reservas confirmadas se acumulan y se vuelcan a stocks en lotes
+ * ({@code inventory.flash-sale.flush-interval-ms}). El propio pedido es el registro
+ * durable: al arrancar, el stock reservado de cada variante marcada se recalcula desde
+ * los pedidos abiertos, recuperando las reservas que no llegaron a volcarse.
+ *
+ * Limitación: el disponible se cuenta en la memoria de un solo proceso, por lo que el
+ * modo flash sale exige que la aplicación corra en un único nodo (con dos nodos cada
+ * uno concedería el disponible completo). {@link FlashSaleNodeGuard} impide arrancar
+ * un segundo nodo en modo flash sale, y cada volcado comprueba antes que el nodo
+ * sigue teniendo el bloqueo.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FlashSaleLedger {
+
+        private final FlashSaleConfig config;
+        private final StockRepository stockRepository;
+        private final FlashSaleNodeGuard nodeGuard;
+
+        /**
+         * Entradas por variante marcada (solo del almacén configurado)
+         */
+        private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+        /**
+         * Reconciliar y cargar las variantes marcadas al arrancar.
+         */
+        @EventListener(ApplicationReadyEvent.class)
+        public void initialize() {
+                if (!config.isEnabled() || config.getVariantIds().isEmpty()) {
+                        return;
+                }
+
+                for (Long variantId : config.getVariantIds()) {
+                        stockRepository.reconcileReservedFromOpenOrders(config.getWarehouseId(), variantId);
+                        Entry entry = new Entry();
+                        entry.available.set(loadAvailable(variantId));
+                        entries.put(variantId, entry);
+                        log.info("Flash sale ledger loaded - warehouse: {}, variant: {}, available: {}",
+                                        config.getWarehouseId(), variantId, entry.available.get());
+                }
+        }
+
+        /**
+         * Indica si la variante reserva desde el ledger en memoria.
+         */
+        public boolean isFlagged(Long warehouseId, Long variantId) {
+                return warehouseId.equals(config.getWarehouseId()) && entries.containsKey(variantId);
+        }
+
+        /**
+         * Reserva todas las cantidades o ninguna. Las reservas quedan en vuelo hasta que
+         * la transacción actual confirma (pasan a pendientes de volcado) o revierte
+         * (se devuelven al disponible).
+         *
+         * @param quantities Mapa variantId -> cantidad (solo variantes marcadas)
+         */
+        public void reserve(Map<Long, Integer> quantities) {
+                List<Map.Entry<Long, Integer>> granted = new ArrayList<>();
+                try {
+                        for (Map.Entry<Long, Integer> requested : quantities.entrySet()) {
+                                Entry entry = entries.get(requested.getKey());
+                                int available = entry.tryGrant(requested.getValue());
+                                if (available >= 0) {
+                                        throw new BadRequestException("Stock insuficiente para reservar. Disponible: "
+                                                        + available + ", Requerido: " + requested.getValue());
+                                }
+                                granted.add(requested);
+                        }
+                } catch (RuntimeException e) {
+                        granted.forEach(g -> entries.get(g.getKey()).rollback(g.getValue()));
+                        throw e;
+                }
+
+                if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                        granted.forEach(g -> entries.get(g.getKey()).commit(g.getValue()));
+                        return;
+                }
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                                for (Map.Entry<Long, Integer> g : granted) {
+                                        if (status == STATUS_COMMITTED) {
+                                                entries.get(g.getKey()).commit(g.getValue());
+                                        } else {
+                                                entries.get(g.getKey()).rollback(g.getValue());
+                                        }
+                                }
+                        }
+                });
+        }
+
+        /**
+         * Una liberación o despacho de una variante marcada encontró en stocks menos
+         * reservado de lo que liberaba (la reserva aún no se había volcado) y el UPDATE
+         * lo recortó en 0. Al confirmar la transacción lo recortado se descuenta de lo
+         * pendiente (que puede quedar negativo), para que el volcado no lo vuelva a sumar.
+         */
+        public void recordReleaseShortfall(Long variantId, int units) {
+                Entry entry = entries.get(variantId);
+                if (entry == null || units <= 0) {
+                        return;
+                }
+
+                if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                        entry.pending.addAndGet(-units);
+                        return;
+                }
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                                entry.pending.addAndGet(-units);
+                        }
+                });
+        }
+
+        /**
+         * Cambios de stock por la vía transaccional (cancelaciones, despachos, compras,
+         * ajustes) sobre una variante marcada: recargar su disponible en el próximo volcado.
+         */
+        @TransactionalEventListener
+        public void onStockChanged(StockChangedEvent event) {
+                if (isFlagged(event.warehouseId(), event.variantId())) {
+                        entries.get(event.variantId()).needsResync.set(true);
+                }
+        }
+
+        /**
+         * Volcar las reservas confirmadas a stocks (una sentencia por variante; un saldo
+         * negativo descuenta liberaciones recortadas) y recargar el disponible de las
+         * variantes modificadas por otras vías.
+         * Volcado y recarga se ejecutan siempre en este mismo hilo. Si el nodo perdió su
+         * bloqueo de nodo único no se vuelca nada: lo pendiente espera al siguiente volcado.
+         */
+        @Scheduled(fixedDelayString = "${inventory.flash-sale.flush-interval-ms:200}")
+        public void flush() {
+                if (entries.isEmpty() || !nodeGuard.ensureHeld()) {
+                        return;
+                }
+                entries.forEach((variantId, entry) -> {
+                        int delta = entry.pending.getAndSet(0);
+                        if (delta != 0) {
+                                try {
+                                        stockRepository.addReserved(config.getWarehouseId(), variantId, delta,
+                                                        OffsetDateTime.now());
+                                } catch (RuntimeException e) {
+                                        entry.pending.addAndGet(delta);
+                                        log.error("Flash sale flush failed for variant {}: {}", variantId,
+                                                        e.getMessage());
+                                        return;
+                                }
+                        }
+                        if (entry.needsResync.getAndSet(false)) {
+                                resync(variantId, entry);
+                        }
+                });
+        }
+
+        /**
+         * Volcar lo pendiente antes de detener la aplicación.
+         */
+        @PreDestroy
+        public void shutdown() {
+                if (!entries.isEmpty()) {
+                        flush();
+                        log.info("Flash sale ledger flushed on shutdown");
+                }
+        }
+
+        /**
+         * Disponible = disponible en BD - pendiente de volcar - en vuelo.
+         * Se calcula con las concesiones bloqueadas para no perder ninguna.
+         */
+        private void resync(Long variantId, Entry entry) {
+                entry.lock.writeLock().lock();
+                try {
+                        int available = loadAvailable(variantId) - entry.inFlight.get() - entry.pending.get();
+                        entry.available.set(Math.max(0, available));
+                        log.debug("Flash sale ledger resynced - variant: {}, available: {}", variantId, available);
+                } finally {
+                        entry.lock.writeLock().unlock();
+                }
+        }
+
+        private int loadAvailable(Long variantId) {
+                return stockRepository.findAvailableQuantity(config.getWarehouseId(), variantId).orElse(0);
+        }
+
+        /**
+         * Contadores de una variante marcada.
+         */
+        private static final class Entry {
+
+                /** Unidades que aún se pueden conceder */
+                private final AtomicInteger available = new AtomicInteger();
+
+                /** Concedidas en transacciones aún no confirmadas */
+                private final AtomicInteger inFlight = new AtomicInteger();
+
+                /** Confirmadas y pendientes de volcar a stocks (negativo: liberaciones recortadas por descontar) */
+                private final AtomicInteger pending = new AtomicInteger();
+
+                private final AtomicBoolean needsResync = new AtomicBoolean();
+
+                /** Las concesiones comparten el lock de lectura; solo la recarga lo toma en exclusiva */
+                private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+                /**
+                 * @return -1 si se concedió, o el disponible actual si no alcanza
+                 */
+                int tryGrant(int quantity) {
+                        lock.readLock().lock();
+                        try {
+                                while (true) {
+                                        int current = available.get();
+                                        if (current < quantity) {
+                                                return current;
+                                        }
+                                        if (available.compareAndSet(current, current - quantity)) {
+                                                inFlight.addAndGet(quantity);
+                                                return -1;
+                                        }
+                                }
+                        } finally {
+                                lock.readLock().unlock();
+                        }
+                }
+
+                void commit(int quantity) {
+                        // Primero pendiente y luego en vuelo: una recarga concurrente puede
+                        // contar la reserva dos veces (conservador) pero nunca cero
+                        pending.addAndGet(quantity);
+                        inFlight.addAndGet(-quantity);
+                }
+
+                void rollback(int quantity) {
+                        lock.readLock().lock();
+                        try {
+                                available.addAndGet(quantity);
+                                inFlight.addAndGet(-quantity);
+                        } finally {
+                                lock.readLock().unlock();
+                        }
+                }
+        }
+}
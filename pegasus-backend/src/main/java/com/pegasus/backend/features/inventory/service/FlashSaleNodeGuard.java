@@ -0,0 +1,138 @@
+package com.pegasus.backend.features.inventory.service;
+
+import com.pegasus.backend.features.inventory.config.FlashSaleConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Garantiza que el modo flash sale solo corra en un único nodo de la aplicación.
+ *
+ * Solo con {@code inventory.flash-sale.enabled=true} el nodo toma al arrancar un bloqueo
+ * consultivo exclusivo de PostgreSQL (a nivel de sesión, sobre una conexión reservada
+ * mientras el nodo vive): un segundo nodo flash sale no arranca. Los nodos sin flash sale
+ * no toman ningún bloqueo ni reservan conexión, por lo que el despliegue debe asegurar
+ * que no corran junto a un nodo flash sale.
+ * Si la conexión se pierde (reinicio de la base de datos) el bloqueo se libera;
+ * {@link #ensureHeld()} lo vuelve a tomar antes de cada volcado del ledger.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FlashSaleNodeGuard {
+
+    /** Clave del bloqueo consultivo, común a todos los nodos */
+    private static final long LOCK_KEY = 7_320_145_001L;
+
+    private final FlashSaleConfig config;
+    private final DataSource dataSource;
+
+    private Connection connection;
+
+    @PostConstruct
+    public synchronized void acquire() throws SQLException {
+        if (!config.isEnabled()) {
+            return;
+        }
+        if (!tryLock()) {
+            throw new IllegalStateException(
+                    "El modo flash sale requiere un único nodo y hay otro nodo flash sale activo");
+        }
+        log.info("Flash sale node guard acquired");
+    }
+
+    /**
+     * Comprobar que el bloqueo sigue tomado y, si la conexión se perdió, volver a tomarlo.
+     *
+     * @return false si no se pudo recuperar (otro nodo lo tomó o la base de datos no responde)
+     */
+    public synchronized boolean ensureHeld() {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        if (connection != null && isAlive(connection)) {
+            return true;
+        }
+        closeQuietly();
+        try {
+            if (tryLock()) {
+                log.warn("Flash sale node guard re-acquired after losing its connection");
+                return true;
+            }
+            log.error("Flash sale node guard lost: another flash sale node holds the lock");
+        } catch (SQLException e) {
+            log.error("Flash sale node guard could not be re-acquired: {}", e.getMessage());
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public synchronized void release() throws SQLException {
+        if (connection == null) {
+            return;
+        }
+        // La conexión vuelve al pool: el bloqueo de sesión debe soltarse explícitamente
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock_all()")) {
+            statement.execute();
+        } finally {
+            connection.close();
+            connection = null;
+        }
+    }
+
+    /**
+     * Tomar el bloqueo exclusivo sobre una conexión nueva; si no se obtiene, la conexión se devuelve.
+     */
+    private boolean tryLock() throws SQLException {
+        Connection candidate = dataSource.getConnection();
+        boolean acquired;
+        try (PreparedStatement statement = candidate.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                acquired = rs.next() && rs.getBoolean(1);
+            }
+        } catch (SQLException e) {
+            candidate.close();
+            throw e;
+        }
+
+        if (!acquired) {
+            candidate.close();
+            return false;
+        }
+        connection = candidate;
+        return true;
+    }
+
+    /**
+     * El bloqueo de sesión sigue tomado mientras la sesión viva
+     */
+    private static boolean isAlive(Connection connection) {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+            statement.execute();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void closeQuietly() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Error closing flash sale guard connection: {}", e.getMessage());
+        }
+        connection = null;
+    }
+}
@@ -1,24 +1,21 @@
 package com.pegasus.backend.features.inventory.service;
 
+import com.pegasus.backend.features.inventory.dto.MovementEntry;
 import com.pegasus.backend.features.inventory.dto.MovementResponse;
+import com.pegasus.backend.features.inventory.dto.ReservedStockLine;
 import com.pegasus.backend.features.inventory.entity.Movement;
-import com.pegasus.backend.features.inventory.entity.Stock;
-import com.pegasus.backend.features.inventory.entity.Warehouse;
 import com.pegasus.backend.features.inventory.mapper.MovementMapper;
 import com.pegasus.backend.features.inventory.repository.MovementRepository;
-import com.pegasus.backend.features.inventory.repository.StockRepository;
-import com.pegasus.backend.features.inventory.repository.WarehouseRepository;
-import com.pegasus.backend.features.catalog.entity.Variant;
-import com.pegasus.backend.features.catalog.repository.VariantRepository;
-import com.pegasus.backend.features.user.entity.User;
-import com.pegasus.backend.features.user.repository.UserRepository;
+import com.pegasus.backend.features.inventory.repository.MovementSpecifications;
 import com.pegasus.backend.shared.enums.OperationType;
 import com.pegasus.backend.exception.ResourceNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -34,14 +31,10 @@ import java.util.List;
 public class MovementService {
 
         private final MovementRepository movementRepository;
-        private final StockRepository stockRepository;
-        private final WarehouseRepository warehouseRepository;
-        private final VariantRepository variantRepository;
-        private final UserRepository userRepository;
         private final MovementMapper movementMapper;
 
-        // Kardex MVP: only show these 4 types in Movements screen
-        private static final List<OperationType> KARDEx_ALLOWED_TYPES = List.of(
+        // Kardex MVP: only show these 4 types in Movements screen (and its export)
+        public static final List<OperationType> KARDEx_ALLOWED_TYPES = List.of(
                         OperationType.INVENTORY_ADJUSTMENT,
                         OperationType.PURCHASE,
                         OperationType.SALE,
@@ -66,14 +59,16 @@ public class MovementService {
                                         "Tipo de operación no permitido para Kardex: " + operationType);
                 }
 
-                Page<Movement> movements = movementRepository.searchMovementsAllowed(
-                                KARDEx_ALLOWED_TYPES,
-                                warehouseId,
-                                variantId,
-                                operationType,
-                                fromDate,
-                                toDate,
-                                pageable);
+                // Por defecto, los más recientes primero (orden del índice por created_at)
+                Pageable page = pageable.getSort().isSorted()
+                                ? pageable
+                                : PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                                                Sort.by(Sort.Direction.DESC, "createdAt"));
+
+                Page<Movement> movements = movementRepository.findAll(
+                                MovementSpecifications.search(KARDEx_ALLOWED_TYPES, warehouseId, variantId,
+                                                operationType, fromDate, toDate),
+                                page);
 
                 return movements.map(movementMapper::toResponse);
         }
@@ -129,7 +124,7 @@ public class MovementService {
          * Registra un movimiento de inventario (INTERNO - usado por StockService)
          */
         @Transactional
-        public Movement recordMovement(
+        public void recordMovement(
                         Long variantId,
                         Long warehouseId,
                         Integer quantity,
@@ -139,60 +134,88 @@ public class MovementService {
                         Long referenceId,
                         String referenceTable,
                         Long userId) {
+                recordMovements(List.of(new MovementEntry(variantId, warehouseId, quantity, unitCost,
+                                operationType, description, referenceId, referenceTable)), userId);
+        }
 
-                log.debug("Recording movement - variant: {}, warehouse: {}, quantity: {}, type: {}",
-                                variantId, warehouseId, quantity, operationType);
-
-                // Validar entidades
-                Variant variant = variantRepository.findById(variantId)
-                                .orElseThrow(() -> new ResourceNotFoundException(
-                                                "Variante no encontrada con ID: " + variantId));
+        /**
+         * Registra en el kardex un conjunto de movimientos con una sola sentencia
+         * (INTERNO - usado por StockService).
+         *
+         * Variantes, almacenes y usuario ya fueron validados por quien llama, y el stock ya
+         * fue actualizado en la misma transacción: el balance de cada movimiento se toma
+         * de esas filas de stock.
+         *
+         * @return Número de movimientos registrados
+         */
+        @Transactional
+        public int recordMovements(List<MovementEntry> entries, Long userId) {
+                if (entries.isEmpty()) {
+                        return 0;
+                }
 
-                Warehouse warehouse = warehouseRepository.findById(warehouseId)
-                                .orElseThrow(() -> new ResourceNotFoundException(
-                                                "Almacén no encontrado con ID: " + warehouseId));
+                int size = entries.size();
+                Long[] variantIds = new Long[size];
+                Long[] warehouseIds = new Long[size];
+                Integer[] quantities = new Integer[size];
+                BigDecimal[] unitCosts = new BigDecimal[size];
+                String[] operationTypes = new String[size];
+                String[] descriptions = new String[size];
+                Long[] referenceIds = new Long[size];
+                String[] referenceTables = new String[size];
+                for (int i = 0; i < size; i++) {
+                        MovementEntry entry = entries.get(i);
+                        variantIds[i] = entry.variantId();
+                        warehouseIds[i] = entry.warehouseId();
+                        quantities[i] = entry.quantity();
+                        unitCosts[i] = entry.unitCost();
+                        operationTypes[i] = entry.operationType().name();
+                        descriptions[i] = entry.description();
+                        referenceIds[i] = entry.referenceId();
+                        referenceTables[i] = entry.referenceTable();
+                }
 
-                // userId can be null for system/customer-driven operations (e.g., Storefront
-                // order cancellation).
-                if (userId != null && !userRepository.existsById(userId)) {
-                        throw new ResourceNotFoundException("Usuario no encontrado con ID: " + userId);
+                int recorded = movementRepository.insertBatch(variantIds, warehouseIds, quantities, unitCosts,
+                                operationTypes, descriptions, referenceIds, referenceTables, userId);
+                if (recorded != size) {
+                        throw new ResourceNotFoundException("No existe stock para " + (size - recorded)
+                                        + " de los " + size + " movimientos a registrar");
                 }
 
-                // Obtener stock actual
-                Stock stock = stockRepository.findByWarehouseIdAndVariantId(warehouseId, variantId)
-                                .orElseThrow(() -> new ResourceNotFoundException(
-                                                "No existe stock para la variante " + variantId + " en el almacén "
-                                                                + warehouseId));
-
-                // Calcular balance (cantidad actual después del movimiento)
-                Integer balance = stock.getQuantity();
-
-                // Crear movimiento
-                Movement movement = Movement.builder()
-                                .variantId(variantId)
-                                .warehouseId(warehouseId)
-                                .quantity(quantity)
-                                .balance(balance)
-                                .unitCost(unitCost)
-                                .operationType(operationType)
-                                .description(description)
-                                .referenceId(referenceId)
-                                .referenceTable(referenceTable)
-                                .userId(userId)
-                                .build();
-
-                movement = movementRepository.save(movement);
-
-                log.info("Movement recorded with id: {} - type: {}, quantity: {}, balance: {}",
-                                movement.getId(), operationType, quantity, balance);
-
-                return movement;
+                log.debug("Movements recorded - count: {}, first type: {}", recorded,
+                                entries.get(0).operationType());
+                return recorded;
+        }
+
+        /**
+         * Registra en lote los movimientos de varias líneas de pedido (una sola sentencia)
+         *
+         * @return Número de movimientos registrados
+         */
+        @Transactional
+        public int recordMovementsBatch(
+                        Long warehouseId,
+                        List<ReservedStockLine> lines,
+                        OperationType operationType,
+                        String description,
+                        String referenceTable,
+                        Long userId) {
+                List<MovementEntry> entries = lines.stream()
+                                .map(line -> new MovementEntry(line.variantId(), warehouseId, line.quantity(),
+                                                BigDecimal.ZERO, operationType, description, line.orderId(),
+                                                referenceTable))
+                                .toList();
+                int recorded = recordMovements(entries, userId);
+
+                log.info("Movements recorded in batch - warehouse: {}, type: {}, count: {}",
+                                warehouseId, operationType, recorded);
+                return recorded;
         }
 
         /**
          * Obtiene el último balance de una variante en un almacén
          */
         public Integer getLastBalance(Long warehouseId, Long variantId) {
-                return movementRepository.getLastBalance(warehouseId, variantId);
+                return movementRepository.getLastBalance(variantId, warehouseId);
         }
 }
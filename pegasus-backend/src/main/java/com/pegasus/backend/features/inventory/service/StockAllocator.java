@@ -0,0 +1,328 @@
+package com.pegasus.backend.features.inventory.service;
+
+import com.pegasus.backend.exception.BadRequestException;
+import com.pegasus.backend.features.inventory.config.FlashSaleConfig;
+import com.pegasus.backend.features.inventory.config.StockAllocationConfig;
+import com.pegasus.backend.features.inventory.dto.StockAllocation;
+import com.pegasus.backend.features.inventory.dto.WarehouseAvailability;
+import com.pegasus.backend.features.inventory.entity.Warehouse;
+import com.pegasus.backend.features.inventory.event.StockChangedEvent;
+import com.pegasus.backend.features.inventory.repository.StockRepository;
+import com.pegasus.backend.features.inventory.repository.WarehouseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Motor de asignación de stock de pedidos entre almacenes.
+ *
+ * Decide desde una copia en memoria del disponible por almacén (sin consultar la base
+ * de datos): primero busca el mejor almacén que cubra el pedido completo y, si ninguno
+ * lo cubre, reparte cada línea entre almacenes en orden de preferencia (cercanía al
+ * ubigeo de destino y prioridad configurada). La copia es solo una guía: la reserva
+ * real es un UPDATE condicional en stocks, que rechaza el pedido si el disponible
+ * cambió entretanto.
+ *
+ * La copia se actualiza al reservar (de forma optimista), con cada StockChangedEvent
+ * (recarga de la variante en el siguiente ciclo) y con una recarga completa periódica
+ * que incorpora los cambios hechos por otros nodos.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockAllocator {
+
+    private static final int DEFAULT_PRIORITY = Integer.MAX_VALUE;
+
+    private final StockAllocationConfig config;
+    private final FlashSaleConfig flashSaleConfig;
+    private final FlashSaleLedger flashSaleLedger;
+    private final StockRepository stockRepository;
+    private final WarehouseRepository warehouseRepository;
+
+    /**
+     * Almacenes activos (el índice de cada uno es su posición en los arreglos de disponible)
+     */
+    private volatile WarehouseSlot[] warehouses = new WarehouseSlot[0];
+
+    /**
+     * Disponible por variante, alineado con {@link #warehouses}. La recarga completa arma
+     * un mapa nuevo y lo reemplaza de una vez, así las lecturas sin lock nunca lo ven vacío.
+     */
+    private volatile Map<Long, int[]> availability = new ConcurrentHashMap<>();
+
+    /**
+     * Variantes cuyo stock cambió desde la última recarga
+     */
+    private final Set<Long> dirtyVariants = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Protege las decisiones de asignación y los reemplazos de la copia. Decidir un pedido
+     * toma microsegundos, así que un único lock no limita el throughput.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Cargar almacenes y disponible al arrancar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        reloadAll();
+    }
+
+    /**
+     * Disponible total de una variante sumando los almacenes activos (según la copia en memoria).
+     */
+    public int getTotalAvailable(Long variantId) {
+        int[] available = availability.get(variantId);
+        if (available == null) {
+            return 0;
+        }
+        int total = 0;
+        for (int quantity : available) {
+            total += Math.max(quantity, 0);
+        }
+        return total;
+    }
+
+    /**
+     * Asignar las cantidades de un pedido a almacenes.
+     * Lo asignado se descuenta de la copia en memoria; si la transacción revierte,
+     * las variantes se recargan desde la base de datos.
+     *
+     * @param quantities Mapa variantId -> cantidad (una entrada por variante)
+     * @param destinationUbigeo Ubigeo de la dirección de envío (puede ser null)
+     * @return Asignaciones (una por almacén y variante)
+     * @throws BadRequestException Si alguna variante no tiene disponible suficiente
+     */
+    public List<StockAllocation> allocate(Map<Long, Integer> quantities, String destinationUbigeo) {
+        List<StockAllocation> allocations = new ArrayList<>(quantities.size());
+
+        // Variantes en modo flash sale: siempre desde el almacén del ledger (que valida en memoria)
+        Map<Long, Integer> remaining = new HashMap<>(quantities);
+        remaining.entrySet().removeIf(line -> {
+            if (flashSaleLedger.isFlagged(flashSaleConfig.getWarehouseId(), line.getKey())) {
+                allocations.add(new StockAllocation(flashSaleConfig.getWarehouseId(), line.getKey(), line.getValue()));
+                return true;
+            }
+            return false;
+        });
+
+        Long[] variantIds = remaining.keySet().toArray(new Long[0]);
+        synchronized (lock) {
+            allocations.addAll(allocateLocked(variantIds, remaining, destinationUbigeo));
+        }
+
+        registerRollbackResync(variantIds);
+        return allocations;
+    }
+
+    /**
+     * Marcar la variante para recarga tras cualquier cambio de stock confirmado.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        dirtyVariants.add(event.variantId());
+    }
+
+    /**
+     * Recargar las variantes modificadas (una consulta para todas).
+     */
+    @Scheduled(fixedDelayString = "${inventory.allocation.dirty-refresh-interval-ms:200}")
+    public void refreshDirty() {
+        if (dirtyVariants.isEmpty()) {
+            return;
+        }
+        List<Long> variantIds = new ArrayList<>(dirtyVariants);
+        dirtyVariants.removeAll(variantIds);
+        List<WarehouseAvailability> rows = stockRepository.findAvailabilityInActiveWarehouses(variantIds);
+        synchronized (lock) {
+            load(availability, warehouses, rows, variantIds);
+        }
+    }
+
+    /**
+     * Recargar almacenes activos y todo el disponible.
+     */
+    @Scheduled(initialDelayString = "${inventory.allocation.full-refresh-interval-ms:30000}",
+            fixedDelayString = "${inventory.allocation.full-refresh-interval-ms:30000}")
+    public void reloadAll() {
+        List<Warehouse> active = warehouseRepository.findByIsActiveTrue();
+        WarehouseSlot[] slots = active.stream()
+                .sorted(Comparator.comparing(Warehouse::getId))
+                .map(w -> new WarehouseSlot(w.getId(), w.getUbigeoId(),
+                        config.getPriorityByWarehouseId().getOrDefault(w.getId(), DEFAULT_PRIORITY)))
+                .toArray(WarehouseSlot[]::new);
+
+        List<WarehouseAvailability> rows = stockRepository.findAvailabilityInActiveWarehouses();
+        Set<Long> variantIds = new HashSet<>();
+        rows.forEach(row -> variantIds.add(row.variantId()));
+
+        Map<Long, int[]> reloaded = new ConcurrentHashMap<>();
+        load(reloaded, slots, rows, variantIds);
+
+        synchronized (lock) {
+            warehouses = slots;
+            availability = reloaded;
+        }
+        log.debug("Stock allocator reloaded - warehouses: {}, variants: {}", slots.length, variantIds.size());
+    }
+
+    /**
+     * Decidir la asignación y descontarla de la copia en memoria (con el lock tomado).
+     */
+    private List<StockAllocation> allocateLocked(Long[] variantIds, Map<Long, Integer> quantities,
+            String destinationUbigeo) {
+        WarehouseSlot[] slots = warehouses;
+        int[] ranking = rank(slots, destinationUbigeo);
+        int[][] available = new int[variantIds.length][];
+        for (int i = 0; i < variantIds.length; i++) {
+            available[i] = availability.get(variantIds[i]);
+            if (available[i] == null) {
+                throw new BadRequestException("Stock insuficiente para la variante " + variantIds[i]
+                        + ". No existe stock en los almacenes activos");
+            }
+        }
+
+        int lines = variantIds.length;
+        int[] requested = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            requested[i] = quantities.get(variantIds[i]);
+        }
+
+        List<StockAllocation> allocations = new ArrayList<>(lines);
+
+        // 1) Un solo almacén que cubra todo el pedido (un solo despacho)
+        for (int w : ranking) {
+            boolean coversAll = true;
+            for (int i = 0; i < lines && coversAll; i++) {
+                coversAll = available[i][w] >= requested[i];
+            }
+            if (coversAll) {
+                for (int i = 0; i < lines; i++) {
+                    available[i][w] -= requested[i];
+                    allocations.add(new StockAllocation(slots[w].id(), variantIds[i], requested[i]));
+                }
+                return allocations;
+            }
+        }
+
+        // 2) Repartir cada línea entre almacenes en orden de preferencia
+        for (int i = 0; i < lines; i++) {
+            int total = 0;
+            for (int w : ranking) {
+                total += Math.max(available[i][w], 0);
+            }
+            if (total < requested[i]) {
+                throw new BadRequestException("Stock insuficiente para la variante " + variantIds[i]
+                        + ". Disponible: " + total + ", Requerido: " + requested[i]);
+            }
+        }
+        for (int i = 0; i < lines; i++) {
+            int pending = requested[i];
+            for (int w : ranking) {
+                if (pending == 0) {
+                    break;
+                }
+                int take = Math.min(pending, available[i][w]);
+                if (take > 0) {
+                    available[i][w] -= take;
+                    pending -= take;
+                    allocations.add(new StockAllocation(slots[w].id(), variantIds[i], take));
+                }
+            }
+        }
+        return allocations;
+    }
+
+    /**
+     * Índices de almacén en orden de preferencia para el destino.
+     */
+    private int[] rank(WarehouseSlot[] slots, String destinationUbigeo) {
+        Integer[] order = new Integer[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            order[i] = i;
+        }
+        Comparator<Integer> comparator = Comparator.comparingInt(i -> slots[i].priority());
+        if (config.isPreferDestinationUbigeo() && destinationUbigeo != null) {
+            comparator = Comparator.<Integer>comparingInt(
+                    i -> -proximity(slots[i].ubigeoId(), destinationUbigeo)).thenComparing(comparator);
+        }
+        Arrays.sort(order, comparator.thenComparingLong(i -> slots[i].id()));
+        return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Cercanía entre ubigeos (DDPPdd): 3 mismo distrito, 2 misma provincia, 1 mismo departamento.
+     */
+    private int proximity(String warehouseUbigeo, String destinationUbigeo) {
+        if (warehouseUbigeo == null || warehouseUbigeo.length() < 6 || destinationUbigeo.length() < 6) {
+            return 0;
+        }
+        if (warehouseUbigeo.regionMatches(0, destinationUbigeo, 0, 6)) {
+            return 3;
+        }
+        if (warehouseUbigeo.regionMatches(0, destinationUbigeo, 0, 4)) {
+            return 2;
+        }
+        return warehouseUbigeo.regionMatches(0, destinationUbigeo, 0, 2) ? 1 : 0;
+    }
+
+    /**
+     * Reemplazar en target el disponible de las variantes indicadas (las que no tienen
+     * filas quedan en 0). Sobre el mapa en uso debe ejecutarse con el lock tomado.
+     */
+    private void load(Map<Long, int[]> target, WarehouseSlot[] slots, List<WarehouseAvailability> rows,
+            Iterable<Long> variantIds) {
+        Map<Long, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < slots.length; i++) {
+            indexById.put(slots[i].id(), i);
+        }
+
+        for (Long variantId : variantIds) {
+            target.put(variantId, new int[slots.length]);
+        }
+        for (WarehouseAvailability row : rows) {
+            Integer index = indexById.get(row.warehouseId());
+            if (index != null) {
+                target.get(row.variantId())[index] = row.available();
+            }
+        }
+    }
+
+    /**
+     * Si la transacción del pedido revierte, el descuento optimista se corrige recargando.
+     */
+    private void registerRollbackResync(Long[] variantIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    dirtyVariants.addAll(Arrays.asList(variantIds));
+                }
+            }
+        });
+    }
+
+    private record WarehouseSlot(Long id, String ubigeoId, int priority) {
+    }
+}
@@ -5,6 +5,7 @@ import com.pegasus.backend.features.catalog.repository.VariantRepository;
 import com.pegasus.backend.features.inventory.dto.*;
 import com.pegasus.backend.features.inventory.entity.Stock;
 import com.pegasus.backend.features.inventory.entity.Warehouse;
+import com.pegasus.backend.features.inventory.event.StockChangedEvent;
 import com.pegasus.backend.features.inventory.mapper.StockMapper;
 import com.pegasus.backend.features.inventory.repository.StockRepository;
 import com.pegasus.backend.features.inventory.repository.WarehouseRepository;
@@ -14,15 +15,20 @@ import com.pegasus.backend.exception.ResourceNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Servicio para gestión de stock de inventario
@@ -37,44 +43,27 @@ public class StockService {
         private final VariantRepository variantRepository;
         private final MovementService movementService;
         private final StockMapper stockMapper;
+        private final ApplicationEventPublisher eventPublisher;
+        private final FlashSaleLedger flashSaleLedger;
 
         /**
          * Obtiene todo el stock de un almacén.
          * Lista TODAS las variantes activas, mostrando stock 0 si no existe registro.
+         * Variantes, stock y producto salen de una sola consulta (LEFT JOIN al stock).
+         *
+         * @param search Texto a buscar en el SKU o el nombre del producto (opcional)
+         * @param lowStockThreshold Solo variantes con disponible menor o igual (opcional)
          */
-        public Page<StockResponse> getStockByWarehouse(Long warehouseId, Pageable pageable) {
-                log.debug("Getting stock for warehouse: {}", warehouseId);
+        public Page<StockResponse> getStockByWarehouse(Long warehouseId, String search, Integer lowStockThreshold,
+                        Pageable pageable) {
+                log.debug("Getting stock for warehouse: {} - search: {}, low stock threshold: {}",
+                                warehouseId, search, lowStockThreshold);
 
-                Warehouse warehouse = warehouseRepository.findById(warehouseId)
-                        .orElseThrow(() -> new ResourceNotFoundException("Almacén no encontrado con ID: " + warehouseId));
-
-                // Get all active variants with pagination
-                Page<Variant> variants = variantRepository.findAllActiveVariants(pageable);
-                
-                // Map each variant to StockResponse, using existing stock or creating empty one
-                return variants.map(variant -> {
-                        Stock stock = stockRepository.findByWarehouseIdAndVariantId(warehouseId, variant.getId())
-                                .orElse(null);
-                        
-                        if (stock != null) {
-                                return stockMapper.toResponse(stock);
-                        } else {
-                                // Return a virtual stock response with 0 quantity
-                                return new StockResponse(
-                                        null, // No ID yet
-                                        warehouseId,
-                                        warehouse.getCode(),
-                                        warehouse.getName(),
-                                        variant.getId(),
-                                        variant.getSku(),
-                                        variant.getProduct() != null ? variant.getProduct().getName() : "N/A",
-                                        0, // quantity
-                                        0, // reservedQuantity
-                                        0, // availableQuantity
-                                        null // updatedAt
-                                );
-                        }
-                });
+                if (!warehouseRepository.existsById(warehouseId)) {
+                        throw new ResourceNotFoundException("Almacén no encontrado con ID: " + warehouseId);
+                }
+
+                return stockRepository.findGrid(warehouseId, search, lowStockThreshold, pageable);
         }
 
         /**
@@ -150,6 +139,20 @@ public class StockService {
                                 message);
         }
 
+        /**
+         * Obtiene el stock de varias variantes en un almacén con una sola consulta
+         * (INTERNO - usado por OrderService para validar disponibilidad en memoria)
+         *
+         * @return Mapa variantId -> Stock (las variantes sin registro no aparecen)
+         */
+        public Map<Long, Stock> getStocksByVariants(Long warehouseId, Set<Long> variantIds) {
+                if (variantIds.isEmpty()) {
+                        return Map.of();
+                }
+                return stockRepository.findByWarehouseIdAndVariantIdIn(warehouseId, variantIds).stream()
+                                .collect(Collectors.toMap(Stock::getVariantId, Function.identity()));
+        }
+
         /**
          * Obtiene variantes con stock bajo en un almacén
          */
@@ -191,28 +194,18 @@ public class StockService {
                                 .orElseThrow(() -> new ResourceNotFoundException(
                                                 "Variante no encontrada con ID: " + request.variantId()));
 
-                // Obtener o crear stock
-                Stock stock = stockRepository.findByWarehouseIdAndVariantId(request.warehouseId(), request.variantId())
-                                .orElseGet(() -> {
-                                        Stock newStock = Stock.builder()
-                                                        .warehouseId(warehouse.getId())
-                                                        .variantId(variant.getId())
-                                                        .quantity(0)
-                                                        .reservedQuantity(0)
-                                                        .build();
-                                        return stockRepository.save(newStock);
-                                });
-
-                // Validar que el ajuste negativo no deje stock negativo
-                Integer newQuantity = stock.getQuantity() + request.quantityChange();
-                if (newQuantity < 0) {
+                // Sentencias condicionales: no reescriben reserved_quantity, que puede cambiar a la vez
+                if (request.quantityChange() >= 0) {
+                        stockRepository.increase(warehouse.getId(), variant.getId(), request.quantityChange());
+                } else if (stockRepository.adjustQuantity(warehouse.getId(), variant.getId(),
+                                request.quantityChange(), OffsetDateTime.now()) == 0) {
+                        Integer current = stockRepository.findQuantity(warehouse.getId(), variant.getId()).orElse(0);
                         throw new BadRequestException("El ajuste resultaría en stock negativo. Stock actual: "
-                                        + stock.getQuantity() + ", Cambio solicitado: " + request.quantityChange());
+                                        + current + ", Cambio solicitado: " + request.quantityChange());
                 }
-
-                // Actualizar stock
-                stock.setQuantity(newQuantity);
-                stock = stockRepository.save(stock);
+                Stock stock = stockRepository.findByWarehouseIdAndVariantId(warehouse.getId(), variant.getId())
+                                .orElseThrow();
+                eventPublisher.publishEvent(new StockChangedEvent(request.warehouseId(), request.variantId()));
 
                 // Registrar movimiento (usar el stock como referencia para cumplir NOT NULL)
                 movementService.recordMovement(
@@ -227,7 +220,7 @@ public class StockService {
                                 userId);
 
                 log.info("Stock adjusted - new quantity: {} for variant: {} in warehouse: {}",
-                                newQuantity, request.variantId(), request.warehouseId());
+                                stock.getQuantity(), request.variantId(), request.warehouseId());
 
                 return stockMapper.toResponse(stock);
         }
@@ -267,70 +260,60 @@ public class StockService {
                                 .orElseThrow(() -> new ResourceNotFoundException(
                                                 "Variante no encontrada con ID: " + request.variantId()));
 
-                // Obtener stock de origen
-                Stock fromStock = stockRepository
-                                .findByWarehouseIdAndVariantId(request.fromWarehouseId(), request.variantId())
-                                .orElseThrow(() -> new ResourceNotFoundException(
-                                                "No existe stock en el almacén de origen para la variante "
-                                                                + request.variantId()));
-
-                // Validar disponibilidad
-                if (fromStock.getAvailableQuantity() < request.quantity()) {
-                        throw new BadRequestException("Stock insuficiente en el almacén de origen. Disponible: "
-                                        + fromStock.getAvailableQuantity() + ", Requerido: " + request.quantity());
+                // Primero la fila del almacén de menor ID, para que dos transferencias en
+                // sentidos opuestos bloqueen en el mismo orden
+                if (request.fromWarehouseId() < request.toWarehouseId()) {
+                        withdrawForTransfer(request);
+                        stockRepository.increase(request.toWarehouseId(), variant.getId(), request.quantity());
+                } else {
+                        stockRepository.increase(request.toWarehouseId(), variant.getId(), request.quantity());
+                        withdrawForTransfer(request);
                 }
 
-                // Obtener o crear stock de destino
+                Stock fromStock = stockRepository
+                                .findByWarehouseIdAndVariantId(request.fromWarehouseId(), request.variantId())
+                                .orElseThrow();
                 Stock toStock = stockRepository
                                 .findByWarehouseIdAndVariantId(request.toWarehouseId(), request.variantId())
-                                .orElseGet(() -> {
-                                        Stock newStock = Stock.builder()
-                                                        .warehouseId(toWarehouse.getId())
-                                                        .variantId(variant.getId())
-                                                        .quantity(0)
-                                                        .reservedQuantity(0)
-                                                        .build();
-                                        return stockRepository.save(newStock);
-                                });
-
-                // Actualizar stocks
-                fromStock.setQuantity(fromStock.getQuantity() - request.quantity());
-                toStock.setQuantity(toStock.getQuantity() + request.quantity());
-
-                stockRepository.save(fromStock);
-                stockRepository.save(toStock);
+                                .orElseThrow();
+                eventPublisher.publishEvent(new StockChangedEvent(request.fromWarehouseId(), request.variantId()));
+                eventPublisher.publishEvent(new StockChangedEvent(request.toWarehouseId(), request.variantId()));
 
                 // Registrar movimientos
                 String description = request.reason() != null
                                 ? request.reason()
                                 : "Transferencia desde " + fromWarehouse.getCode() + " hacia " + toWarehouse.getCode();
 
-                movementService.recordMovement(
-                                request.variantId(),
-                                request.fromWarehouseId(),
-                                -request.quantity(),
-                                BigDecimal.ZERO,
-                                OperationType.TRANSFER_OUT,
-                                description + " (salida)",
-                                fromStock.getId(),
-                                "stocks",
-                                userId);
-
-                movementService.recordMovement(
-                                request.variantId(),
-                                request.toWarehouseId(),
-                                request.quantity(),
-                                BigDecimal.ZERO,
-                                OperationType.TRANSFER_IN,
-                                description + " (entrada)",
-                                toStock.getId(),
-                                "stocks",
+                movementService.recordMovements(List.of(
+                                new MovementEntry(request.variantId(), request.fromWarehouseId(),
+                                                -request.quantity(), BigDecimal.ZERO, OperationType.TRANSFER_OUT,
+                                                description + " (salida)", fromStock.getId(), "stocks"),
+                                new MovementEntry(request.variantId(), request.toWarehouseId(),
+                                                request.quantity(), BigDecimal.ZERO, OperationType.TRANSFER_IN,
+                                                description + " (entrada)", toStock.getId(), "stocks")),
                                 userId);
 
                 log.info("Stock transferred successfully - variant: {}, quantity: {}", request.variantId(),
                                 request.quantity());
         }
 
+        /**
+         * Retira del almacén de origen la cantidad transferida, solo si está disponible
+         */
+        private void withdrawForTransfer(TransferStockRequest request) {
+                if (stockRepository.withdrawAvailable(request.fromWarehouseId(), request.variantId(),
+                                request.quantity(), OffsetDateTime.now()) == 1) {
+                        return;
+                }
+                Integer available = stockRepository
+                                .findAvailableQuantity(request.fromWarehouseId(), request.variantId())
+                                .orElseThrow(() -> new ResourceNotFoundException(
+                                                "No existe stock en el almacén de origen para la variante "
+                                                                + request.variantId()));
+                throw new BadRequestException("Stock insuficiente en el almacén de origen. Disponible: "
+                                + available + ", Requerido: " + request.quantity());
+        }
+
         /**
          * Reserva stock para un pedido (INTERNO - usado por OrderService)
          */
@@ -339,23 +322,82 @@ public class StockService {
                 log.info("Reserving stock - warehouse: {}, variant: {}, quantity: {}, order: {}",
                                 warehouseId, variantId, quantity, orderId);
 
-                Stock stock = stockRepository.findByWarehouseIdAndVariantId(warehouseId, variantId)
-                                .orElseThrow(() -> new ResourceNotFoundException(
-                                                "No existe stock para la variante " + variantId + " en el almacén "
-                                                                + warehouseId));
+                if (flashSaleLedger.isFlagged(warehouseId, variantId)) {
+                        flashSaleLedger.reserve(Map.of(variantId, quantity));
+                        return;
+                }
 
-                if (stock.getAvailableQuantity() < quantity) {
+                // UPDATE condicional: la verificación y la reserva son una sola operación atómica
+                if (stockRepository.reserve(warehouseId, variantId, quantity, OffsetDateTime.now()) == 0) {
+                        Integer available = stockRepository.findAvailableQuantity(warehouseId, variantId)
+                                        .orElseThrow(() -> new ResourceNotFoundException(
+                                                        "No existe stock para la variante " + variantId
+                                                                        + " en el almacén " + warehouseId));
                         throw new BadRequestException("Stock insuficiente para reservar. Disponible: "
-                                        + stock.getAvailableQuantity() + ", Requerido: " + quantity);
+                                        + available + ", Requerido: " + quantity);
                 }
-
-                stock.setReservedQuantity(stock.getReservedQuantity() + quantity);
-                stockRepository.save(stock);
+                eventPublisher.publishEvent(new StockChangedEvent(warehouseId, variantId));
 
                 log.info("Stock reserved successfully - variant: {}, quantity: {}, order: {}", variantId, quantity,
                                 orderId);
         }
 
+        /**
+         * Reserva stock de varias variantes para un pedido en una sola sentencia
+         * (INTERNO - usado por OrderService). La disponibilidad se vuelve a verificar
+         * en la propia sentencia: si alguna línea no alcanza, no se reserva nada.
+         *
+         * @param quantities Mapa variantId -> cantidad (una entrada por variante)
+         */
+        @Transactional
+        public void reserveStockBatch(Long warehouseId, Map<Long, Integer> quantities, Long orderId, Long userId) {
+                if (quantities.isEmpty()) {
+                        return;
+                }
+                log.info("Reserving stock batch - warehouse: {}, variants: {}, order: {}",
+                                warehouseId, quantities.size(), orderId);
+
+                // Variantes en modo flash sale: se reservan desde el ledger en memoria
+                Map<Long, Integer> flagged = new HashMap<>();
+                // Ordenadas por variante: mismo orden de bloqueo que el resto de pedidos
+                Map<Long, Integer> regular = new TreeMap<>();
+                quantities.forEach((variantId, quantity) -> {
+                        if (flashSaleLedger.isFlagged(warehouseId, variantId)) {
+                                flagged.put(variantId, quantity);
+                        } else {
+                                regular.put(variantId, quantity);
+                        }
+                });
+
+                if (!regular.isEmpty()) {
+                        Long[] variantIds = new Long[regular.size()];
+                        Integer[] requested = new Integer[regular.size()];
+                        int i = 0;
+                        for (Map.Entry<Long, Integer> entry : regular.entrySet()) {
+                                variantIds[i] = entry.getKey();
+                                requested[i] = entry.getValue();
+                                i++;
+                        }
+
+                        int reserved = stockRepository.reserveBatch(warehouseId, variantIds, requested);
+                        if (reserved != regular.size()) {
+                                // Otra transacción consumió el stock entre la validación y la reserva
+                                throw new BadRequestException("Stock insuficiente para reservar. Se reservaron "
+                                                + reserved + " de " + regular.size() + " variantes");
+                        }
+
+                        regular.keySet().forEach(variantId -> eventPublisher.publishEvent(
+                                        new StockChangedEvent(warehouseId, variantId)));
+                }
+
+                // Después de la vía transaccional: si esta falla no queda nada concedido en memoria
+                if (!flagged.isEmpty()) {
+                        flashSaleLedger.reserve(flagged);
+                }
+
+                log.info("Stock batch reserved successfully - variants: {}, order: {}", quantities.size(), orderId);
+        }
+
         /**
          * Libera stock reservado (INTERNO - usado por OrderService al cancelar)
          */
@@ -365,13 +407,13 @@ public class StockService {
                 log.info("Releasing reserved stock - warehouse: {}, variant: {}, quantity: {}, order: {}",
                                 warehouseId, variantId, quantity, orderId);
 
-                Stock stock = stockRepository.findByWarehouseIdAndVariantId(warehouseId, variantId)
-                                .orElseThrow(() -> new ResourceNotFoundException(
-                                                "No existe stock para la variante " + variantId + " en el almacén "
-                                                                + warehouseId));
-
-                stock.setReservedQuantity(Math.max(0, stock.getReservedQuantity() - quantity));
-                stockRepository.save(stock);
+                trackFlashSaleShortfall(warehouseId, variantId, quantity);
+                if (stockRepository.release(warehouseId, variantId, quantity, OffsetDateTime.now()) == 0) {
+                        throw new ResourceNotFoundException(
+                                        "No existe stock para la variante " + variantId + " en el almacén "
+                                                        + warehouseId);
+                }
+                eventPublisher.publishEvent(new StockChangedEvent(warehouseId, variantId));
 
                 // Registrar movimiento de cancelación
                 movementService.recordMovement(
@@ -389,6 +431,40 @@ public class StockService {
                                 quantity, orderId);
         }
 
+        /**
+         * Libera en lote el stock reservado de varios pedidos (INTERNO - usado por la
+         * expiración de reservas): una sentencia para el stock y otra para los movimientos.
+         */
+        @Transactional
+        public void releaseReservedStockBatch(Long warehouseId, List<ReservedStockLine> lines, String description) {
+                if (lines.isEmpty()) {
+                        return;
+                }
+
+                Map<Long, Integer> quantities = lines.stream()
+                                .collect(Collectors.toMap(ReservedStockLine::variantId, ReservedStockLine::quantity,
+                                                Integer::sum, TreeMap::new));
+                Long[] variantIds = new Long[quantities.size()];
+                Integer[] released = new Integer[quantities.size()];
+                int i = 0;
+                for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                        variantIds[i] = entry.getKey();
+                        released[i] = entry.getValue();
+                        i++;
+                }
+
+                quantities.forEach((variantId, quantity) -> trackFlashSaleShortfall(warehouseId, variantId, quantity));
+                int updated = stockRepository.releaseBatch(warehouseId, variantIds, released);
+                quantities.keySet().forEach(variantId -> eventPublisher.publishEvent(
+                                new StockChangedEvent(warehouseId, variantId)));
+
+                movementService.recordMovementsBatch(warehouseId, lines, OperationType.CANCELLATION, description,
+                                "orders", null);
+
+                log.info("Reserved stock released in batch - warehouse: {}, variants: {}/{}, lines: {}",
+                                warehouseId, updated, quantities.size(), lines.size());
+        }
+
         /**
          * Decrementa stock físico al enviar un pedido (INTERNO - usado por
          * OrderService)
@@ -398,15 +474,17 @@ public class StockService {
                 log.info("Decreasing stock - warehouse: {}, variant: {}, quantity: {}, order: {}",
                                 warehouseId, variantId, quantity, orderId);
 
-                Stock stock = stockRepository.findByWarehouseIdAndVariantId(warehouseId, variantId)
-                                .orElseThrow(() -> new ResourceNotFoundException(
-                                                "No existe stock para la variante " + variantId + " en el almacén "
-                                                                + warehouseId));
-
-                // Decrementar cantidad física y reservada
-                stock.setQuantity(stock.getQuantity() - quantity);
-                stock.setReservedQuantity(Math.max(0, stock.getReservedQuantity() - quantity));
-                stockRepository.save(stock);
+                // Decrementar cantidad física y reservada (UPDATE condicional, nunca deja stock negativo)
+                trackFlashSaleShortfall(warehouseId, variantId, quantity);
+                if (stockRepository.decrease(warehouseId, variantId, quantity, OffsetDateTime.now()) == 0) {
+                        Integer current = stockRepository.findQuantity(warehouseId, variantId)
+                                        .orElseThrow(() -> new ResourceNotFoundException(
+                                                        "No existe stock para la variante " + variantId
+                                                                        + " en el almacén " + warehouseId));
+                        throw new BadRequestException("Stock físico insuficiente para despachar. Actual: "
+                                        + current + ", Requerido: " + quantity);
+                }
+                eventPublisher.publishEvent(new StockChangedEvent(warehouseId, variantId));
 
                 // Registrar movimiento de venta
                 movementService.recordMovement(
@@ -424,6 +502,22 @@ public class StockService {
                                 orderId);
         }
 
+        /**
+         * Variantes en modo flash sale: si la reserva que se libera o despacha aún no
+         * se volcó a stocks, el UPDATE la recorta en 0; lo recortado se informa al
+         * ledger para que el volcado no la vuelva a sumar. Bloquea la fila hasta el
+         * fin de la transacción, así el UPDATE siguiente ve la misma cantidad.
+         */
+        private void trackFlashSaleShortfall(Long warehouseId, Long variantId, int quantity) {
+                if (!flashSaleLedger.isFlagged(warehouseId, variantId)) {
+                        return;
+                }
+                int reserved = stockRepository.lockReservedQuantity(warehouseId, variantId).orElse(quantity);
+                if (quantity > reserved) {
+                        flashSaleLedger.recordReleaseShortfall(variantId, quantity - reserved);
+                }
+        }
+
         /**
          * Incrementa stock al recibir una compra (INTERNO - usado por PurchaseService)
          */
@@ -449,20 +543,9 @@ public class StockService {
                                 .orElseThrow(() -> new ResourceNotFoundException(
                                                 "Variante no encontrada con ID: " + variantId));
 
-                // Obtener o crear stock
-                Stock stock = stockRepository.findByWarehouseIdAndVariantId(warehouseId, variantId)
-                                .orElseGet(() -> {
-                                        Stock newStock = Stock.builder()
-                                                        .warehouseId(warehouse.getId())
-                                                        .variantId(variant.getId())
-                                                        .quantity(0)
-                                                        .reservedQuantity(0)
-                                                        .build();
-                                        return stockRepository.save(newStock);
-                                });
-
-                stock.setQuantity(stock.getQuantity() + quantity);
-                stockRepository.save(stock);
+                // Incrementar (o crear) el stock en una sola sentencia atómica
+                stockRepository.increase(warehouse.getId(), variant.getId(), quantity);
+                eventPublisher.publishEvent(new StockChangedEvent(warehouseId, variantId));
 
                 // Registrar movimiento de compra
                 movementService.recordMovement(
@@ -480,6 +563,56 @@ public class StockService {
                                 purchaseId);
         }
 
+        /**
+         * Incrementa en lote el stock de varias líneas de una compra (INTERNO - usado por
+         * PurchaseService): una sentencia para el stock y otra para los movimientos.
+         * Las variantes vienen de los ítems de la compra, ya validados.
+         */
+        @Transactional
+        public void increaseStockBatch(Long warehouseId, List<ReceivedStockLine> lines, Long purchaseId,
+                        Long userId) {
+                if (lines.isEmpty()) {
+                        return;
+                }
+                log.info("Increasing stock batch - warehouse: {}, lines: {}, purchase: {}",
+                                warehouseId, lines.size(), purchaseId);
+
+                if (warehouseId == null) {
+                        throw new BadRequestException("warehouseId es requerido");
+                }
+
+                if (!warehouseRepository.existsById(warehouseId)) {
+                        throw new ResourceNotFoundException("Almacén no encontrado con ID: " + warehouseId);
+                }
+
+                // ON CONFLICT no admite dos filas para la misma clave: se agrupa por variante
+                Map<Long, Integer> quantities = lines.stream()
+                                .collect(Collectors.toMap(ReceivedStockLine::variantId, ReceivedStockLine::quantity,
+                                                Integer::sum));
+                Long[] variantIds = new Long[quantities.size()];
+                Integer[] received = new Integer[quantities.size()];
+                int i = 0;
+                for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                        variantIds[i] = entry.getKey();
+                        received[i] = entry.getValue();
+                        i++;
+                }
+
+                stockRepository.increaseBatch(warehouseId, variantIds, received);
+                quantities.keySet().forEach(variantId -> eventPublisher.publishEvent(
+                                new StockChangedEvent(warehouseId, variantId)));
+
+                String description = "Compra - Orden de compra #" + purchaseId;
+                movementService.recordMovements(lines.stream()
+                                .map(line -> new MovementEntry(line.variantId(), warehouseId, line.quantity(),
+                                                line.unitCost(), OperationType.PURCHASE, description, purchaseId,
+                                                "purchases"))
+                                .toList(), userId);
+
+                log.info("Stock batch increased successfully - variants: {}, purchase: {}", quantities.size(),
+                                purchaseId);
+        }
+
         /**
          * Incrementa stock por devolución (INTERNO - usado por RMAService)
          */
@@ -504,19 +637,9 @@ public class StockService {
                                 .orElseThrow(() -> new ResourceNotFoundException(
                                                 "Variante no encontrada con ID: " + variantId));
 
-                Stock stock = stockRepository.findByWarehouseIdAndVariantId(warehouseId, variantId)
-                                .orElseGet(() -> {
-                                        Stock newStock = Stock.builder()
-                                                        .warehouseId(warehouse.getId())
-                                                        .variantId(variant.getId())
-                                                        .quantity(0)
-                                                        .reservedQuantity(0)
-                                                        .build();
-                                        return stockRepository.save(newStock);
-                                });
-
-                stock.setQuantity(stock.getQuantity() + quantity);
-                stockRepository.save(stock);
+                // Incrementar (o crear) el stock en una sola sentencia atómica
+                stockRepository.increase(warehouse.getId(), variant.getId(), quantity);
+                eventPublisher.publishEvent(new StockChangedEvent(warehouseId, variantId));
 
                 // Registrar movimiento de devolución
                 movementService.recordMovement(
@@ -539,7 +662,8 @@ public class StockService {
          * activos.
          *
          * Se usa al crear una variante nueva, para que aparezca con stock 0 en todos
-         * los almacenes.
+         * los almacenes. Una sola sentencia INSERT ... SELECT; la restricción única
+         * (warehouse_id, variant_id) hace que repetirla no tenga efecto.
          */
         @Transactional
         public void initializeZeroStockForVariantAcrossActiveWarehouses(Long variantId) {
@@ -551,36 +675,29 @@ public class StockService {
                         throw new ResourceNotFoundException("Variante no encontrada con ID: " + variantId);
                 }
 
-                List<Warehouse> activeWarehouses = warehouseRepository.findByIsActiveTrue();
-                if (activeWarehouses.isEmpty()) {
-                        return;
-                }
+                int created = stockRepository.insertZeroForActiveWarehouses(variantId);
+                log.debug("Zero stock initialized - variant: {}, warehouses: {}", variantId, created);
+        }
 
-                List<Stock> existingStocks = stockRepository.findByVariantId(variantId);
-                Set<Long> existingWarehouseIds = new HashSet<>();
-                for (Stock s : existingStocks) {
-                        if (s.getWarehouseId() != null) {
-                                existingWarehouseIds.add(s.getWarehouseId());
-                        }
+        /**
+         * Inicializa registros de stock (0) para todas las variantes activas en un
+         * almacén.
+         *
+         * Se usa al crear (o reactivar) un almacén, para que el catálogo completo
+         * aparezca con stock 0 en él. Igual que la inicialización por variante, es
+         * una sola sentencia e idempotente.
+         */
+        @Transactional
+        public void initializeZeroStockForWarehouseAcrossActiveVariants(Long warehouseId) {
+                if (warehouseId == null) {
+                        throw new BadRequestException("warehouseId es requerido");
                 }
 
-                List<Stock> toCreate = new ArrayList<>();
-                for (Warehouse w : activeWarehouses) {
-                        if (existingWarehouseIds.contains(w.getId())) {
-                                continue;
-                        }
-
-                        Stock newStock = Stock.builder()
-                                        .warehouseId(w.getId())
-                                        .variantId(variantId)
-                                        .quantity(0)
-                                        .reservedQuantity(0)
-                                        .build();
-                        toCreate.add(newStock);
+                if (!warehouseRepository.existsById(warehouseId)) {
+                        throw new ResourceNotFoundException("Almacén no encontrado con ID: " + warehouseId);
                 }
 
-                if (!toCreate.isEmpty()) {
-                        stockRepository.saveAll(toCreate);
-                }
+                int created = stockRepository.insertZeroForActiveVariants(warehouseId);
+                log.info("Zero stock initialized - warehouse: {}, variants: {}", warehouseId, created);
         }
 }
@@ -27,6 +27,7 @@ public class WarehouseService {
 
     private final WarehouseRepository warehouseRepository;
     private final WarehouseMapper warehouseMapper;
+    private final StockService stockService;
 
     /**
      * Busca almacenes por nombre o código
@@ -89,6 +90,9 @@ public class WarehouseService {
         Warehouse warehouse = warehouseMapper.toEntity(request);
         warehouse.setIsActive(true); // Set default value
         warehouse = warehouseRepository.save(warehouse);
+
+        // Todo el catálogo aparece con stock 0 en el nuevo almacén
+        stockService.initializeZeroStockForWarehouseAcrossActiveVariants(warehouse.getId());
         
         log.info("Warehouse created with id: {}", warehouse.getId());
         return warehouseMapper.toResponse(warehouse);
@@ -123,6 +127,11 @@ public class WarehouseService {
         
         warehouse.setIsActive(!warehouse.getIsActive());
         warehouse = warehouseRepository.save(warehouse);
+
+        // Las variantes creadas mientras estuvo inactivo no tienen registro en él
+        if (warehouse.getIsActive()) {
+            stockService.initializeZeroStockForWarehouseAcrossActiveVariants(warehouse.getId());
+        }
         
         log.info("Warehouse status toggled to: {} for id: {}", warehouse.getIsActive(), warehouse.getId());
         return warehouseMapper.toResponse(warehouse);
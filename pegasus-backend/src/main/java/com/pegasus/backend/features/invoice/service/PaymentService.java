@@ -72,7 +72,8 @@ public class PaymentService {
 
     @Transactional
     public PaymentResponse create(CreatePaymentRequest request, Long createdByUserId) {
-        Order order = orderRepository.findById(request.orderId())
+        // Bloquear el pedido: la expiración de reservas no puede cancelarlo mientras se paga
+        Order order = orderRepository.findByIdForUpdate(request.orderId())
                 .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado con ID: " + request.orderId()));
 
         if (!paymentMethodRepository.existsById(request.paymentMethodId())) {
@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ShipmentRepository extends JpaRepository<Shipment, Long> {
@@ -25,6 +26,16 @@ public interface ShipmentRepository extends JpaRepository<Shipment, Long> {
     @Query("SELECT s FROM Shipment s WHERE s.isActive = true AND s.orderId = :orderId")
     Page<Shipment> findByOrderId(@Param("orderId") Long orderId, Pageable pageable);
 
+    @Query("""
+            SELECT s.shippingMethod.id FROM Shipment s
+            WHERE s.isActive = true AND s.orderId = :orderId AND s.shipmentType = :shipmentType
+            ORDER BY s.id
+            LIMIT 1
+            """)
+    Optional<Long> findShippingMethodIdByOrderIdAndType(
+            @Param("orderId") Long orderId,
+            @Param("shipmentType") ShipmentType shipmentType);
+
     @Query("SELECT s FROM Shipment s WHERE s.isActive = true AND s.status = :status")
     Page<Shipment> findByStatus(@Param("status") ShipmentStatus status, Pageable pageable);
 
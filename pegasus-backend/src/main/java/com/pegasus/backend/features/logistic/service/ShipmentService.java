@@ -11,6 +11,8 @@ import com.pegasus.backend.features.logistic.mapper.ShipmentMapper;
 import com.pegasus.backend.features.logistic.repository.ShipmentRepository;
 import com.pegasus.backend.features.logistic.repository.ShippingMethodRepository;
 import com.pegasus.backend.features.order.entity.Order;
+import com.pegasus.backend.features.order.entity.OrderItem;
+import com.pegasus.backend.features.order.repository.OrderAllocationRepository;
 import com.pegasus.backend.features.order.repository.OrderRepository;
 import com.pegasus.backend.features.order.service.OrderService;
 import com.pegasus.backend.features.inventory.service.StockService;
@@ -27,7 +29,10 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -38,6 +43,7 @@ public class ShipmentService {
         private final ShipmentMapper shipmentMapper;
         private final ShippingMethodRepository shippingMethodRepository;
         private final OrderRepository orderRepository;
+        private final OrderAllocationRepository orderAllocationRepository;
         private final OrderService orderService;
         private final StockService stockService;
         private final InvoiceRepository invoiceRepository;
@@ -48,6 +54,7 @@ public class ShipmentService {
                         ShipmentMapper shipmentMapper,
                         ShippingMethodRepository shippingMethodRepository,
                         OrderRepository orderRepository,
+                        OrderAllocationRepository orderAllocationRepository,
                         @Lazy OrderService orderService,
                         StockService stockService,
                         InvoiceRepository invoiceRepository) {
@@ -55,6 +62,7 @@ public class ShipmentService {
                 this.shipmentMapper = shipmentMapper;
                 this.shippingMethodRepository = shippingMethodRepository;
                 this.orderRepository = orderRepository;
+                this.orderAllocationRepository = orderAllocationRepository;
                 this.orderService = orderService;
                 this.stockService = stockService;
                 this.invoiceRepository = invoiceRepository;
@@ -135,7 +143,7 @@ public class ShipmentService {
                 log.info("Creating shipment for order: {}", request.getOrderId());
 
                 // Validar que la orden existe
-                Order order = orderRepository.findById(request.getOrderId())
+                Order order = orderRepository.findByIdForUpdate(request.getOrderId())
                                 .orElseThrow(
                                                 () -> new ResourceNotFoundException(
                                                                 "Orden no encontrada con ID: " + request.getOrderId()));
@@ -214,20 +222,19 @@ public class ShipmentService {
                 shipment.setShippedAt(java.time.OffsetDateTime.now());
 
                 // Obtener la orden para decrementar stock de cada item
-                Order order = orderRepository.findById(shipment.getOrderId())
+                Order order = orderRepository.findByIdForUpdate(shipment.getOrderId())
                                 .orElseThrow(() -> new ResourceNotFoundException(
                                                 "Orden no encontrada con ID: " + shipment.getOrderId()));
 
-                Long defaultWarehouseId = 1L; // TODO: Configurar almacén principal desde settings
-
-                // AUTOMÁTICO: Decrementar stock físico para cada item de la orden
-                order.getItems().forEach(item -> {
-                        log.info("Decreasing stock for variant {} by {} units", item.getVariantId(),
-                                        item.getQuantity());
+                // AUTOMÁTICO: Decrementar stock físico en cada almacén asignado al pedido
+                orderAllocationRepository.findByOrderId(order.getId()).forEach(allocation -> {
+                        log.info("Decreasing stock for variant {} by {} units in warehouse {}",
+                                        allocation.getVariantId(), allocation.getQuantity(),
+                                        allocation.getWarehouseId());
                         stockService.decreaseStock(
-                                        defaultWarehouseId,
-                                        item.getVariantId(),
-                                        item.getQuantity(),
+                                        allocation.getWarehouseId(),
+                                        allocation.getVariantId(),
+                                        allocation.getQuantity(),
                                         order.getId(),
                                         userId // Usuario que marcó el envío como enviado
                         );
@@ -300,19 +307,22 @@ public class ShipmentService {
                 // Si el envío fue enviado (IN_TRANSIT), restaurar el stock
                 if (shipment.getStatus() == ShipmentStatus.IN_TRANSIT) {
                         log.info("Restoring stock for cancelled shipment {}", id);
-                        Order order = orderRepository.findById(shipment.getOrderId())
+                        Order order = orderRepository.findByIdForUpdate(shipment.getOrderId())
                                         .orElseThrow(() -> new ResourceNotFoundException(
                                                         "Orden no encontrada con ID: " + shipment.getOrderId()));
 
-                        Long defaultWarehouseId = 1L;
-                        order.getItems().forEach(item -> {
-                                log.info("Restoring stock for variant {} by {} units", item.getVariantId(),
-                                                item.getQuantity());
+                        Map<Long, BigDecimal> unitPrices = order.getItems().stream()
+                                        .collect(Collectors.toMap(OrderItem::getVariantId, OrderItem::getUnitPrice,
+                                                        (first, second) -> first));
+                        orderAllocationRepository.findByOrderId(order.getId()).forEach(allocation -> {
+                                log.info("Restoring stock for variant {} by {} units in warehouse {}",
+                                                allocation.getVariantId(), allocation.getQuantity(),
+                                                allocation.getWarehouseId());
                                 stockService.increaseStock(
-                                                defaultWarehouseId,
-                                                item.getVariantId(),
-                                                item.getQuantity(),
-                                                item.getUnitPrice(), // unitCost
+                                                allocation.getWarehouseId(),
+                                                allocation.getVariantId(),
+                                                allocation.getQuantity(),
+                                                unitPrices.get(allocation.getVariantId()), // unitCost
                                                 null, // purchaseId (no es una compra)
                                                 null); // userId (sistema automático)
                         });
@@ -0,0 +1,31 @@
+package com.pegasus.backend.features.order.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de claves de idempotencia para la creación de pedidos.
+ * Cargada desde application.properties con prefijo "order.idempotency"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "order.idempotency")
+@Data
+public class OrderIdempotencyConfig {
+
+    /**
+     * Horas durante las que una clave responde con el pedido ya creado.
+     */
+    private long ttlHours = 24;
+
+    /**
+     * Tiempo máximo (ms) que un duplicado espera a que termine la solicitud en curso.
+     */
+    private long waitTimeoutMs = 10000;
+
+    /**
+     * Segundos tras los que una solicitud en curso se considera abandonada
+     * (nodo caído) y su clave puede reclamarse de nuevo.
+     */
+    private long inProgressTimeoutSeconds = 60;
+}
@@ -0,0 +1,31 @@
+package com.pegasus.backend.features.order.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración del mantenimiento de particiones mensuales del historial de pedidos.
+ * Cargada desde application.properties con prefijo "order.partitioning"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "order.partitioning")
+@Data
+public class OrderPartitionConfig {
+
+    /**
+     * Meses futuros con partición creada de antemano.
+     */
+    private int monthsAhead = 3;
+
+    /**
+     * Si está activo, los meses más antiguos que {@link #archiveAfterMonths} se mueven
+     * al esquema cold.
+     */
+    private boolean archiveEnabled = false;
+
+    /**
+     * Meses completos que permanecen en la tabla activa.
+     */
+    private int archiveAfterMonths = 24;
+}
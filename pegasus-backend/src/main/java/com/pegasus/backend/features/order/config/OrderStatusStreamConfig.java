@@ -0,0 +1,47 @@
+package com.pegasus.backend.features.order.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración del stream SSE de cambios de estado de pedidos.
+ * Cargada desde application.properties con prefijo "order.status-stream"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "order.status-stream")
+@Data
+public class OrderStatusStreamConfig {
+
+    /**
+     * Eventos pendientes de enviar por suscriptor. Si un cliente lento lo llena,
+     * su conexión se cierra y el cliente debe reconectar y recargar.
+     */
+    private int bufferSize = 100;
+
+    /**
+     * Intervalo (ms) entre heartbeats (mantiene viva la conexión en proxies).
+     */
+    private long heartbeatIntervalMs = 20000;
+
+    /**
+     * Duración máxima (ms) de una conexión SSE antes de que el cliente reconecte.
+     */
+    private long emitterTimeoutMs = 1800000;
+
+    /**
+     * Hilos que envían eventos a los suscriptores.
+     */
+    private int deliveryThreads = 4;
+
+    /**
+     * Distribuir los eventos entre nodos con NOTIFY/LISTEN de PostgreSQL.
+     * Si está desactivado, cada nodo solo notifica los cambios que él mismo confirma.
+     */
+    private boolean notifyEnabled = true;
+
+    /**
+     * Espera (ms) antes de reabrir la conexión LISTEN tras un error.
+     */
+    private long reconnectDelayMs = 5000;
+}
@@ -0,0 +1,49 @@
+package com.pegasus.backend.features.order.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuración de la expiración de reservas de pedidos no pagados.
+ * Cargada desde application.properties con prefijo "order.reservation-expiry"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "order.reservation-expiry")
+@Data
+public class ReservationExpiryConfig {
+
+    /**
+     * Si está activo, los pedidos PENDING / AWAIT_PAYMENT vencidos se cancelan
+     * automáticamente y su stock reservado se libera.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Minutos de reserva para pedidos sin pago registrado o con un método no configurado.
+     */
+    private int defaultTtlMinutes = 1440;
+
+    /**
+     * Minutos de reserva por nombre de método de pago (ej. Yape=30).
+     */
+    private Map<String, Integer> ttlMinutesByPaymentMethod = new HashMap<>();
+
+    /**
+     * Pedidos cancelados por transacción.
+     */
+    private int batchSize = 100;
+
+    /**
+     * Lotes máximos por ejecución (el resto queda para la siguiente).
+     */
+    private int maxBatchesPerRun = 20;
+
+    /**
+     * Intervalo (ms) entre ejecuciones del proceso.
+     */
+    private long intervalMs = 60000;
+}
@@ -4,6 +4,7 @@ import com.pegasus.backend.features.logistic.dto.ShipmentResponse;
 import com.pegasus.backend.features.order.dto.*;
 import com.pegasus.backend.features.order.service.OrderService;
 import com.pegasus.backend.features.order.service.OrderStatusService;
+import com.pegasus.backend.features.order.service.OrderStatusStreamService;
 import com.pegasus.backend.shared.dto.PageResponse;
 import com.pegasus.backend.shared.enums.OrderStatus;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,9 +15,11 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Controlador REST para gestión de Pedidos (Orders)
@@ -30,6 +33,7 @@ public class OrderController {
 
         private final OrderService orderService;
         private final OrderStatusService orderStatusService;
+        private final OrderStatusStreamService orderStatusStreamService;
 
         @GetMapping
         @Operation(summary = "Listar pedidos", description = "Obtener todos los pedidos con paginación y filtros opcionales")
@@ -42,6 +46,13 @@ public class OrderController {
                 return ResponseEntity.ok(response);
         }
 
+        @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+        @Operation(summary = "Stream de estado de pedidos", description = "Server-Sent Events (evento 'order-status') con los cambios de estado de todos los pedidos, para dashboards del backoffice")
+        @ApiResponse(responseCode = "200", description = "Stream abierto")
+        public SseEmitter streamOrderStatus() {
+                return orderStatusStreamService.subscribeStaff();
+        }
+
         @GetMapping("/{id}")
         @Operation(summary = "Obtener pedido por ID", description = "Obtener detalle completo de un pedido incluyendo items e historial")
         @ApiResponse(responseCode = "200", description = "Pedido encontrado")
@@ -105,6 +116,19 @@ public class OrderController {
                 return ResponseEntity.status(HttpStatus.CREATED).body(response);
         }
 
+        @PatchMapping("/status")
+        @Operation(summary = "Actualizar estado de varios pedidos", description = "Cambiar el estado de hasta 500 pedidos en una operación (ej. PAID -> PROCESSING al inicio del turno). Devuelve el resultado por pedido; los rechazados no detienen al resto")
+        @ApiResponse(responseCode = "200", description = "Operación procesada (ver resultado por pedido)")
+        @ApiResponse(responseCode = "400", description = "Solicitud inválida")
+        public ResponseEntity<BulkOrderStatusResponse> bulkUpdateOrderStatus(
+                        @Valid @RequestBody BulkUpdateOrderStatusRequest request,
+                        Authentication authentication) {
+                if (authentication == null || !(authentication.getPrincipal() instanceof Long userId)) {
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+                }
+                return ResponseEntity.ok(orderService.bulkUpdateOrderStatus(request, userId));
+        }
+
         @PatchMapping("/{id}/status")
         @Operation(summary = "Actualizar estado del pedido", description = "Cambiar el estado de un pedido y registrar en el historial")
         @ApiResponse(responseCode = "200", description = "Estado actualizado exitosamente")
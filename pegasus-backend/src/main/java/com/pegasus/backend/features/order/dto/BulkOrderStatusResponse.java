@@ -0,0 +1,28 @@
+package com.pegasus.backend.features.order.dto;
+
+import com.pegasus.backend.shared.enums.OrderStatus;
+
+import java.util.List;
+
+/**
+ * Resultado de un cambio de estado masivo, con el detalle por pedido
+ */
+public record BulkOrderStatusResponse(
+                OrderStatus newStatus,
+                int updated,
+                int failed,
+                List<Result> results) {
+
+        /**
+         * Resultado de un pedido
+         *
+         * @param previousStatus Estado antes del cambio (null si el pedido no existe)
+         * @param message Motivo del rechazo (null si se actualizó)
+         */
+        public record Result(
+                        Long orderId,
+                        boolean success,
+                        OrderStatus previousStatus,
+                        String message) {
+        }
+}
@@ -0,0 +1,22 @@
+package com.pegasus.backend.features.order.dto;
+
+import com.pegasus.backend.shared.enums.OrderStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * DTO para cambiar el estado de varios pedidos a la vez
+ */
+public record BulkUpdateOrderStatusRequest(
+        @NotEmpty(message = "Debe indicar al menos un pedido")
+        @Size(max = 500, message = "Máximo 500 pedidos por operación")
+        List<@NotNull Long> orderIds,
+
+        @NotNull(message = "El nuevo estado es requerido")
+        OrderStatus newStatus,
+
+        String comments
+) {}
@@ -0,0 +1,13 @@
+package com.pegasus.backend.features.order.dto;
+
+import com.pegasus.backend.shared.enums.OrderStatus;
+
+/**
+ * Proyección mínima de un pedido para verificar su propiedad
+ * (sin items, historial ni direcciones)
+ */
+public record OrderOwnership(
+                Long id,
+                Long customerId,
+                OrderStatus status) {
+}
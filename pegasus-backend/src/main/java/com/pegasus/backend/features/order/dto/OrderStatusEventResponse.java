@@ -0,0 +1,18 @@
+package com.pegasus.backend.features.order.dto;
+
+import com.pegasus.backend.shared.enums.OrderStatus;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Evento de cambio de estado enviado por el stream SSE de pedidos
+ *
+ * @param previousStatus Estado anterior (null si el pedido acaba de crearse)
+ */
+public record OrderStatusEventResponse(
+                Long orderId,
+                Long customerId,
+                OrderStatus previousStatus,
+                OrderStatus newStatus,
+                OffsetDateTime occurredAt) {
+}
@@ -64,6 +64,12 @@ public class Order extends BaseEntity {
     @Column(name = "preferred_invoice_type", length = 20)
     private InvoiceType preferredInvoiceType;
 
+    /**
+     * Texto de búsqueda del backoffice, mantenido por triggers en BD (solo lectura)
+     */
+    @Column(name = "search_text", insertable = false, updatable = false, columnDefinition = "TEXT")
+    private String searchText;
+
     // Relationships
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", insertable = false, updatable = false)
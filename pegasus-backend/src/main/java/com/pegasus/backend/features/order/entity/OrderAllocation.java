@@ -0,0 +1,44 @@
+package com.pegasus.backend.features.order.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Entidad OrderAllocation (Asignación de stock del pedido)
+ * Cantidad de una variante reservada para el pedido en un almacén.
+ * Una línea del pedido puede repartirse entre varios almacenes.
+ */
+@Entity
+@Table(name = "order_allocations")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderAllocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "warehouse_id", nullable = false)
+    private Long warehouseId;
+
+    @Column(name = "variant_id", nullable = false)
+    private Long variantId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+}
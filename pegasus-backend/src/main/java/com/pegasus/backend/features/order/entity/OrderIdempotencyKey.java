@@ -0,0 +1,55 @@
+package com.pegasus.backend.features.order.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+/**
+ * Entidad OrderIdempotencyKey (Clave de idempotencia de creación de pedidos)
+ * Guarda el resultado de la primera solicitud con una clave para responder los reintentos
+ */
+@Entity
+@Table(name = "order_idempotency_keys")
+@IdClass(OrderIdempotencyKey.Pk.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderIdempotencyKey {
+
+    @Id
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Id
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+
+    /**
+     * Clave primaria compuesta (cliente, clave)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Pk implements Serializable {
+        private Long customerId;
+        private String idempotencyKey;
+    }
+}
@@ -0,0 +1,20 @@
+package com.pegasus.backend.features.order.event;
+
+import com.pegasus.backend.shared.enums.OrderStatus;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Evento publicado cuando un pedido cambia de estado.
+ * Los listeners que dependen de datos confirmados deben usar
+ * {@code @TransactionalEventListener} (fase AFTER_COMMIT).
+ *
+ * @param previousStatus Estado anterior (null si el pedido acaba de crearse)
+ */
+public record OrderStatusChangedEvent(
+        Long orderId,
+        Long customerId,
+        OrderStatus previousStatus,
+        OrderStatus newStatus,
+        OffsetDateTime occurredAt
+) {}
@@ -1,8 +1,10 @@
 package com.pegasus.backend.features.order.mapper;
 
+import com.pegasus.backend.features.invoice.dto.InvoiceSummaryResponse;
 import com.pegasus.backend.features.order.dto.OrderResponse;
 import com.pegasus.backend.features.order.dto.OrderSummaryResponse;
 import com.pegasus.backend.features.order.entity.Order;
+import com.pegasus.backend.features.order.entity.OrderStatusHistory;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -20,6 +22,17 @@ public interface OrderMapper {
     @Mapping(target = "shippingMethodId", ignore = true)
     OrderResponse toResponse(Order entity);
 
+    /**
+     * Detalle completo a partir de datos ya cargados (sin cargas perezosas)
+     */
+    @Mapping(target = "customerName", expression = "java(getCustomerFullName(entity))")
+    @Mapping(target = "customerEmail", source = "entity.customer.email")
+    @Mapping(target = "statusHistories", source = "histories")
+    @Mapping(target = "shippingMethodId", source = "shippingMethodId")
+    @Mapping(target = "invoice", source = "invoice")
+    OrderResponse toDetailResponse(Order entity, List<OrderStatusHistory> histories, Long shippingMethodId,
+            InvoiceSummaryResponse invoice);
+
     @Mapping(target = "customerName", expression = "java(getCustomerFullName(entity))")
     @Mapping(target = "customerEmail", source = "customer.email")
     @Mapping(target = "customerDocType", source = "customer.docType")
@@ -0,0 +1,45 @@
+package com.pegasus.backend.features.order.repository;
+
+import com.pegasus.backend.features.order.entity.OrderAllocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository para la entidad OrderAllocation
+ */
+@Repository
+public interface OrderAllocationRepository extends JpaRepository<OrderAllocation, Long> {
+
+    /**
+     * Asignaciones de un pedido
+     */
+    List<OrderAllocation> findByOrderId(Long orderId);
+
+    /**
+     * Asignaciones de varios pedidos (una sola consulta)
+     */
+    List<OrderAllocation> findByOrderIdIn(Collection<Long> orderIds);
+
+    /**
+     * Registrar las asignaciones de un pedido en una sola sentencia
+     * (arreglos paralelos: una posición por almacén y variante)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO order_allocations (order_id, warehouse_id, variant_id, quantity, created_at)
+            SELECT :orderId, a.warehouse_id, a.variant_id, a.quantity, NOW()
+            FROM unnest(CAST(:warehouseIds AS bigint[]), CAST(:variantIds AS bigint[]),
+                        CAST(:quantities AS integer[])) AS a(warehouse_id, variant_id, quantity)
+            """, nativeQuery = true)
+    int insertBatch(
+            @Param("orderId") Long orderId,
+            @Param("warehouseIds") Long[] warehouseIds,
+            @Param("variantIds") Long[] variantIds,
+            @Param("quantities") Integer[] quantities);
+}
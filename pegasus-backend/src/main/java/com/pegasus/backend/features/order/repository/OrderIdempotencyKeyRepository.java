@@ -0,0 +1,95 @@
+package com.pegasus.backend.features.order.repository;
+
+import com.pegasus.backend.features.order.entity.OrderIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+/**
+ * Repositorio para OrderIdempotencyKey
+ */
+@Repository
+public interface OrderIdempotencyKeyRepository extends JpaRepository<OrderIdempotencyKey, OrderIdempotencyKey.Pk> {
+
+    Optional<OrderIdempotencyKey> findByCustomerIdAndIdempotencyKey(Long customerId, String idempotencyKey);
+
+    /**
+     * Reclamar una clave: la inserta, o la reutiliza si expiró o si su solicitud en curso
+     * se considera abandonada. Se confirma en su propia transacción para que los
+     * duplicados concurrentes (de cualquier nodo) la vean de inmediato.
+     *
+     * @return 1 si la clave quedó reclamada por esta solicitud, 0 si otra la tiene
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_idempotency_keys
+                (customer_id, idempotency_key, request_hash, order_id, created_at, expires_at)
+            VALUES (:customerId, :idempotencyKey, :requestHash, NULL, :claimedAt, :expiresAt)
+            ON CONFLICT (customer_id, idempotency_key) DO UPDATE
+            SET request_hash = EXCLUDED.request_hash,
+                order_id = NULL,
+                created_at = EXCLUDED.created_at,
+                expires_at = EXCLUDED.expires_at
+            WHERE order_idempotency_keys.expires_at < :claimedAt
+            OR (order_idempotency_keys.order_id IS NULL AND order_idempotency_keys.created_at < :staleBefore)
+            """, nativeQuery = true)
+    int claim(
+            @Param("customerId") Long customerId,
+            @Param("idempotencyKey") String idempotencyKey,
+            @Param("requestHash") String requestHash,
+            @Param("claimedAt") OffsetDateTime claimedAt,
+            @Param("expiresAt") OffsetDateTime expiresAt,
+            @Param("staleBefore") OffsetDateTime staleBefore
+    );
+
+    /**
+     * Registrar el pedido creado. Debe ejecutarse en la misma transacción que crea el
+     * pedido; devuelve 0 si la clave fue reclamada por otra solicitud entretanto.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE OrderIdempotencyKey k
+            SET k.orderId = :orderId
+            WHERE k.customerId = :customerId
+            AND k.idempotencyKey = :idempotencyKey
+            AND k.createdAt = :claimedAt
+            AND k.orderId IS NULL
+            """)
+    int complete(
+            @Param("customerId") Long customerId,
+            @Param("idempotencyKey") String idempotencyKey,
+            @Param("claimedAt") OffsetDateTime claimedAt,
+            @Param("orderId") Long orderId
+    );
+
+    /**
+     * Liberar una clave reclamada cuya solicitud falló, para permitir el reintento.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            DELETE FROM OrderIdempotencyKey k
+            WHERE k.customerId = :customerId
+            AND k.idempotencyKey = :idempotencyKey
+            AND k.createdAt = :claimedAt
+            AND k.orderId IS NULL
+            """)
+    int release(
+            @Param("customerId") Long customerId,
+            @Param("idempotencyKey") String idempotencyKey,
+            @Param("claimedAt") OffsetDateTime claimedAt
+    );
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OrderIdempotencyKey k WHERE k.expiresAt < :now")
+    int deleteExpired(@Param("now") OffsetDateTime now);
+}
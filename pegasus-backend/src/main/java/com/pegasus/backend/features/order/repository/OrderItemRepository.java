@@ -1,9 +1,13 @@
 package com.pegasus.backend.features.order.repository;
 
 import com.pegasus.backend.features.order.entity.OrderItem;
+import com.pegasus.backend.shared.enums.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,6 +21,11 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
      */
     List<OrderItem> findByOrderId(Long orderId);
 
+    /**
+     * Buscar los items de varios pedidos (una sola consulta)
+     */
+    List<OrderItem> findByOrderIdIn(Collection<Long> orderIds);
+
     /**
      * Buscar items por variante (útil para verificar qué órdenes tienen una variante)
      */
@@ -26,4 +35,18 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
      * Buscar items por producto
      */
     List<OrderItem> findByProductId(Long productId);
+
+    /**
+     * Historial de compras de un cliente para el perfil de recomendaciones.
+     * Cada fila: [productId, quantity, createdAt del pedido, orderId]
+     */
+    @Query("""
+            SELECT oi.productId, oi.quantity, o.createdAt, o.id FROM OrderItem oi
+            JOIN oi.order o
+            WHERE o.customerId = :customerId
+            AND o.status IN :statuses
+            """)
+    List<Object[]> findPurchaseHistoryByCustomerId(
+            @Param("customerId") Long customerId,
+            @Param("statuses") Collection<OrderStatus> statuses);
 }
@@ -1,22 +1,30 @@
 package com.pegasus.backend.features.order.repository;
 
+import com.pegasus.backend.features.order.dto.OrderOwnership;
 import com.pegasus.backend.features.order.entity.Order;
 import com.pegasus.backend.shared.enums.OrderStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository para la entidad Order
  */
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order>,
+                OrderSummaryRepository {
 
         /**
          * Buscar pedido por número de orden
@@ -33,17 +41,6 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
          */
         Page<Order> findByStatus(OrderStatus status, Pageable pageable);
 
-        /**
-         * Buscar pedidos por estado que tengan comprobante emitido (invoice).
-         * Se usa principalmente para filtrar pedidos listos para crear envíos.
-         */
-        @Query("""
-                        SELECT o FROM Order o
-                        WHERE o.status = :status
-                                AND EXISTS (SELECT 1 FROM Invoice i WHERE i.orderId = o.id)
-                        """)
-        Page<Order> findByStatusWithInvoice(@Param("status") OrderStatus status, Pageable pageable);
-
         /**
          * Buscar pedidos por rango de fecha
          */
@@ -53,31 +50,105 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                         Pageable pageable);
 
         /**
-         * Búsqueda compleja con filtros opcionales
-         * Busca por número de orden, nombre del cliente o email
+         * Contar pedidos por cliente
+         */
+        long countByCustomerId(Long customerId);
+
+        /**
+         * Verificar si existe un order_number
+         */
+        boolean existsByOrderNumber(String orderNumber);
+
+        /**
+         * Bloquear un lote de pedidos con reserva vencida (PENDING / AWAIT_PAYMENT).
+         * El vencimiento depende del método de pago del pedido (TTL por método, o el TTL
+         * por defecto si no tiene pago o su método no está configurado). Con SKIP LOCKED,
+         * varios nodos pueden procesar lotes distintos a la vez sin esperarse.
+         *
+         * @param oldestCutoff Fecha de creación máxima según el TTL más corto (acota el rango del índice)
+         */
+        @Query(value = """
+                        SELECT o.id FROM orders o
+                        LEFT JOIN LATERAL (
+                                SELECT pm.name FROM payments p
+                                JOIN payment_methods pm ON pm.id = p.payment_method_id
+                                WHERE p.order_id = o.id
+                                ORDER BY p.id
+                                LIMIT 1
+                        ) m ON TRUE
+                        LEFT JOIN unnest(CAST(:methodNames AS varchar[]), CAST(:ttlMinutes AS integer[]))
+                                AS t(name, ttl) ON t.name = m.name
+                        WHERE o.status IN ('PENDING', 'AWAIT_PAYMENT')
+                        AND o.created_at < :oldestCutoff
+                        AND o.created_at < CAST(:now AS timestamptz)
+                                - make_interval(mins => COALESCE(t.ttl, :defaultTtlMinutes))
+                        ORDER BY o.created_at
+                        LIMIT :batchSize
+                        FOR UPDATE OF o SKIP LOCKED
+                        """, nativeQuery = true)
+        List<Long> lockExpiredReservations(
+                        @Param("methodNames") String[] methodNames,
+                        @Param("ttlMinutes") Integer[] ttlMinutes,
+                        @Param("defaultTtlMinutes") int defaultTtlMinutes,
+                        @Param("oldestCutoff") OffsetDateTime oldestCutoff,
+                        @Param("now") OffsetDateTime now,
+                        @Param("batchSize") int batchSize);
+
+        /**
+         * Cargar y bloquear un pedido (SELECT ... FOR UPDATE) antes de cambiar su estado.
+         * Serializa los cambios de un mismo pedido con la expiración de reservas, que bloquea
+         * con FOR UPDATE SKIP LOCKED y por tanto omite los pedidos bloqueados aquí.
          */
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("SELECT o FROM Order o WHERE o.id = :id")
+        Optional<Order> findByIdForUpdate(@Param("id") Long id);
+
+        /**
+         * Bloquear varios pedidos (en orden de id, para evitar interbloqueos) y obtener
+         * su estado actual en una sola consulta
+         */
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
         @Query("""
-                        SELECT o FROM Order o
-                        LEFT JOIN o.customer c
-                        WHERE (:search IS NULL OR :search = '' OR
-                               LOWER(o.orderNumber) LIKE LOWER(CONCAT('%', :search, '%')) OR
-                               LOWER(c.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR
-                               LOWER(c.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR
-                               LOWER(c.email) LIKE LOWER(CONCAT('%', :search, '%')))
-                        AND (:status IS NULL OR o.status = :status)
+                        SELECT new com.pegasus.backend.features.order.dto.OrderOwnership(o.id, o.customerId, o.status)
+                        FROM Order o
+                        WHERE o.id IN :orderIds
+                        ORDER BY o.id
+                        """)
+        List<OrderOwnership> lockOwnershipsByIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+        /**
+         * Cambiar el estado de varios pedidos en una sola sentencia
+         */
+        @Modifying(flushAutomatically = true)
+        @Query("""
+                        UPDATE Order o
+                        SET o.status = :status,
+                            o.updatedAt = :now
+                        WHERE o.id IN :orderIds
                         """)
-        Page<Order> searchOrders(
-                        @Param("search") String search,
+        int updateStatusBulk(
+                        @Param("orderIds") Collection<Long> orderIds,
                         @Param("status") OrderStatus status,
-                        Pageable pageable);
+                        @Param("now") OffsetDateTime now);
 
         /**
-         * Contar pedidos por cliente
+         * Cargar un pedido con su cliente y sus items (detalle, una sola consulta)
          */
-        long countByCustomerId(Long customerId);
+        @Query("""
+                        SELECT o FROM Order o
+                        LEFT JOIN FETCH o.customer
+                        LEFT JOIN FETCH o.items
+                        WHERE o.id = :id
+                        """)
+        Optional<Order> findDetailById(@Param("id") Long id);
 
         /**
-         * Verificar si existe un order_number
+         * Datos mínimos para verificar la propiedad de un pedido
          */
-        boolean existsByOrderNumber(String orderNumber);
+        @Query("""
+                        SELECT new com.pegasus.backend.features.order.dto.OrderOwnership(o.id, o.customerId, o.status)
+                        FROM Order o
+                        WHERE o.id = :id
+                        """)
+        Optional<OrderOwnership> findOwnershipById(@Param("id") Long id);
 }
@@ -0,0 +1,59 @@
+package com.pegasus.backend.features.order.repository;
+
+import com.pegasus.backend.features.invoice.entity.Invoice;
+import com.pegasus.backend.features.order.entity.Order;
+import com.pegasus.backend.shared.enums.OrderStatus;
+import com.pegasus.backend.shared.query.LikePatterns;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Specifications para búsquedas dinámicas de pedidos.
+ * Solo se agregan los predicados de los filtros presentes.
+ */
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    /**
+     * Búsqueda del backoffice por texto (search_text, índice trigram) y estado
+     * (índice (status, created_at)).
+     */
+    public static Specification<Order> search(String search, OrderStatus status) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (search != null && !search.isBlank()) {
+                predicates.add(cb.like(root.get("searchText"), LikePatterns.contains(search), LikePatterns.ESCAPE));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Pedidos de un cliente (índice por customer_id).
+     */
+    public static Specification<Order> byCustomer(Long customerId) {
+        return (root, query, cb) -> cb.equal(root.get("customerId"), customerId);
+    }
+
+    /**
+     * Pedidos con al menos un comprobante emitido.
+     */
+    public static Specification<Order> withInvoice() {
+        return (root, query, cb) -> {
+            Subquery<Long> invoice = query.subquery(Long.class);
+            Root<Invoice> i = invoice.from(Invoice.class);
+            invoice.select(i.get("id")).where(cb.equal(i.get("orderId"), root.get("id")));
+            return cb.exists(invoice);
+        };
+    }
+}
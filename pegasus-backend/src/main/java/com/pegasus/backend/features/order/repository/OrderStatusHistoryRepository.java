@@ -2,8 +2,13 @@ package com.pegasus.backend.features.order.repository;
 
 import com.pegasus.backend.features.order.entity.OrderStatusHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 
 /**
@@ -21,4 +26,56 @@ public interface OrderStatusHistoryRepository extends JpaRepository<OrderStatusH
      * Buscar historial de estados de un pedido ordenado por fecha ascendente
      */
     List<OrderStatusHistory> findByOrderIdOrderByCreatedAtAsc(Long orderId);
+
+    /**
+     * Historial de un pedido con el usuario que registró cada cambio (una sola consulta).
+     * El historial está particionado por mes: acotar por la fecha del pedido descarta
+     * las particiones anteriores.
+     *
+     * @param since Fecha mínima de los registros (creación del pedido, con margen)
+     */
+    @Query("""
+            SELECT h FROM OrderStatusHistory h
+            LEFT JOIN FETCH h.createdByUser
+            WHERE h.orderId = :orderId
+            AND h.createdAt >= :since
+            ORDER BY h.createdAt DESC
+            """)
+    List<OrderStatusHistory> findWithUserByOrderId(
+            @Param("orderId") Long orderId,
+            @Param("since") OffsetDateTime since);
+
+    /**
+     * Crear las particiones mensuales faltantes entre dos fechas
+     *
+     * @return Particiones creadas
+     */
+    @Transactional
+    @Query(value = "SELECT public.create_order_status_history_partitions(:from, :to)", nativeQuery = true)
+    int createMonthlyPartitions(@Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
+
+    /**
+     * Mover al esquema cold las particiones de meses terminados antes de la fecha
+     *
+     * @return Particiones archivadas
+     */
+    @Transactional
+    @Query(value = "SELECT public.archive_order_status_history_partitions(:before)", nativeQuery = true)
+    int archivePartitionsBefore(@Param("before") OffsetDateTime before);
+
+    /**
+     * Registrar el mismo cambio de estado para varios pedidos en una sola sentencia
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO order_status_histories (order_id, status, comments, created_by, created_at)
+            SELECT order_id, :status, :comments, :createdBy, NOW()
+            FROM unnest(CAST(:orderIds AS bigint[])) AS order_id
+            """, nativeQuery = true)
+    int insertBatch(
+            @Param("orderIds") Long[] orderIds,
+            @Param("status") String status,
+            @Param("comments") String comments,
+            @Param("createdBy") Long createdBy
+    );
 }
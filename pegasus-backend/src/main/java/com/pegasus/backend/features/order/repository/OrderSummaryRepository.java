@@ -0,0 +1,21 @@
+package com.pegasus.backend.features.order.repository;
+
+import com.pegasus.backend.features.order.dto.OrderSummaryResponse;
+import com.pegasus.backend.features.order.entity.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Consultas de listados de pedidos como proyección (sin instanciar entidades)
+ */
+public interface OrderSummaryRepository {
+
+    /**
+     * Página de resúmenes de pedidos en una sola consulta: columnas del resumen,
+     * datos del cliente y comprobante (LEFT JOIN), más la consulta de conteo.
+     *
+     * @param spec Filtros sobre el pedido (ver {@link OrderSpecifications})
+     */
+    Page<OrderSummaryResponse> findSummaries(Specification<Order> spec, Pageable pageable);
+}
@@ -0,0 +1,132 @@
+package com.pegasus.backend.features.order.repository;
+
+import com.pegasus.backend.features.customer.entity.Customer;
+import com.pegasus.backend.features.invoice.dto.InvoiceSummaryResponse;
+import com.pegasus.backend.features.invoice.entity.Invoice;
+import com.pegasus.backend.features.invoice.entity.InvoiceStatus;
+import com.pegasus.backend.features.invoice.entity.InvoiceType;
+import com.pegasus.backend.features.order.dto.OrderSummaryResponse;
+import com.pegasus.backend.features.order.entity.Order;
+import com.pegasus.backend.shared.enums.DocumentType;
+import com.pegasus.backend.shared.enums.OrderStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Implementación con Criteria API de {@link OrderSummaryRepository}
+ */
+@RequiredArgsConstructor
+public class OrderSummaryRepositoryImpl implements OrderSummaryRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Page<OrderSummaryResponse> findSummaries(Specification<Order> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Order> order = query.from(Order.class);
+        Join<Order, Customer> customer = order.join("customer", JoinType.LEFT);
+
+        // Un comprobante por pedido (el primero emitido), como en el detalle
+        Join<Order, Invoice> invoice = order.join(Invoice.class, JoinType.LEFT);
+        Subquery<Long> firstInvoice = query.subquery(Long.class);
+        Root<Invoice> candidate = firstInvoice.from(Invoice.class);
+        firstInvoice.select(cb.min(candidate.get("id")))
+                .where(cb.equal(candidate.get("orderId"), order.get("id")));
+        invoice.on(cb.equal(invoice.get("orderId"), order.get("id")),
+                cb.equal(invoice.get("id"), firstInvoice));
+
+        query.multiselect(
+                order.get("id"), order.get("orderNumber"), order.get("customerId"),
+                customer.get("firstName"), customer.get("lastName"), customer.get("email"),
+                customer.get("docType"), customer.get("docNumber"),
+                order.get("status"), order.get("total"), order.get("preferredInvoiceType"),
+                order.get("createdAt"), order.get("updatedAt"),
+                invoice.get("id"), invoice.get("seriesId"), invoice.get("invoiceType"),
+                invoice.get("series"), invoice.get("number"), invoice.get("receiverName"),
+                invoice.get("receiverTaxId"), invoice.get("subtotal"), invoice.get("taxAmount"),
+                invoice.get("totalAmount"), invoice.get("status"), invoice.get("issuedAt"));
+        Predicate predicate = spec.toPredicate(order, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), order, cb));
+
+        var typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<OrderSummaryResponse> content = typedQuery.getResultList().stream()
+                .map(this::toSummary)
+                .toList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    private long count(Specification<Order> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Order> order = query.from(Order.class);
+        query.select(cb.count(order));
+        Predicate predicate = spec.toPredicate(order, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private OrderSummaryResponse toSummary(Tuple row) {
+        String firstName = row.get(3, String.class);
+        String customerName = firstName != null ? firstName + " " + row.get(4, String.class) : null;
+
+        Long invoiceId = row.get(13, Long.class);
+        InvoiceSummaryResponse invoice = invoiceId == null ? null : new InvoiceSummaryResponse(
+                invoiceId,
+                row.get(0, Long.class),
+                row.get(14, Long.class),
+                row.get(15, InvoiceType.class),
+                row.get(16, String.class),
+                row.get(17, String.class),
+                row.get(18, String.class),
+                row.get(19, String.class),
+                row.get(20, BigDecimal.class),
+                row.get(21, BigDecimal.class),
+                row.get(22, BigDecimal.class),
+                row.get(23, InvoiceStatus.class),
+                row.get(24, OffsetDateTime.class));
+
+        return new OrderSummaryResponse(
+                row.get(0, Long.class),
+                row.get(1, String.class),
+                row.get(2, Long.class),
+                customerName,
+                row.get(5, String.class),
+                row.get(6, DocumentType.class),
+                row.get(7, String.class),
+                row.get(8, OrderStatus.class),
+                row.get(9, BigDecimal.class),
+                row.get(10, InvoiceType.class),
+                row.get(11, OffsetDateTime.class),
+                row.get(12, OffsetDateTime.class),
+                invoice);
+    }
+}
@@ -0,0 +1,188 @@
+package com.pegasus.backend.features.order.service;
+
+import com.pegasus.backend.exception.BadRequestException;
+import com.pegasus.backend.exception.ConflictException;
+import com.pegasus.backend.features.order.config.OrderIdempotencyConfig;
+import com.pegasus.backend.features.order.dto.CreateOrderRequest;
+import com.pegasus.backend.features.order.dto.OrderResponse;
+import com.pegasus.backend.features.order.entity.OrderIdempotencyKey;
+import com.pegasus.backend.features.order.repository.OrderIdempotencyKeyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Servicio de creación idempotente de pedidos (cabecera Idempotency-Key).
+ *
+ * La primera solicitud con una clave la reclama en order_idempotency_keys y crea el
+ * pedido; el id del pedido se guarda en la misma transacción. Los reintentos con la
+ * misma clave se responden con ese pedido sin volver a ejecutar createOrder. Los
+ * duplicados concurrentes esperan a la solicitud en curso: en el mismo nodo sobre
+ * su resultado en memoria y, entre nodos, consultando la clave periódicamente.
+ * Si la creación falla, la clave se libera y el cliente puede reintentar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderIdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final OrderIdempotencyKeyRepository idempotencyKeyRepository;
+    private final OrderService orderService;
+    private final OrderIdempotencyConfig config;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Solicitudes en curso en este nodo (clave: customerId:idempotencyKey)
+     */
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Crear un pedido una sola vez por cliente y clave de idempotencia.
+     *
+     * @param idempotencyKey Valor de la cabecera Idempotency-Key
+     * @param request Solicitud ya asociada al cliente autenticado
+     * @return Pedido creado, o el creado por la primera solicitud si es un reintento
+     */
+    public IdempotentOrderResult createOrder(String idempotencyKey, CreateOrderRequest request) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(
+                    "La cabecera Idempotency-Key debe tener entre 1 y " + MAX_KEY_LENGTH + " caracteres");
+        }
+
+        Long customerId = request.customerId();
+        String requestHash = hash(request);
+        String localKey = customerId + ":" + idempotencyKey;
+        long deadline = System.currentTimeMillis() + config.getWaitTimeoutMs();
+
+        while (true) {
+            OffsetDateTime claimedAt = OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            int claimed = idempotencyKeyRepository.claim(customerId, idempotencyKey, requestHash, claimedAt,
+                    claimedAt.plusHours(config.getTtlHours()),
+                    claimedAt.minusSeconds(config.getInProgressTimeoutSeconds()));
+            if (claimed == 1) {
+                return new IdempotentOrderResult(execute(localKey, idempotencyKey, request, claimedAt), false);
+            }
+
+            Optional<OrderIdempotencyKey> existing = idempotencyKeyRepository
+                    .findByCustomerIdAndIdempotencyKey(customerId, idempotencyKey);
+            if (existing.isPresent()) {
+                OrderIdempotencyKey record = existing.get();
+                if (!record.getRequestHash().equals(requestHash)) {
+                    throw new BadRequestException(
+                            "La clave de idempotencia ya se usó con una solicitud distinta");
+                }
+                if (record.getOrderId() != null) {
+                    log.info("Order creation replayed - customer: {}, key: {}, order: {}",
+                            customerId, idempotencyKey, record.getOrderId());
+                    return new IdempotentOrderResult(orderService.getOrderById(record.getOrderId()), true);
+                }
+            }
+
+            // Otra solicitud con la misma clave está en curso (o acaba de liberarla)
+            awaitInFlight(localKey, deadline);
+        }
+    }
+
+    /**
+     * Eliminar las claves expiradas.
+     */
+    @Scheduled(fixedDelayString = "${order.idempotency.cleanup-interval-ms:3600000}")
+    public void deleteExpiredKeys() {
+        int deleted = idempotencyKeyRepository.deleteExpired(OffsetDateTime.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired order idempotency keys", deleted);
+        }
+    }
+
+    /**
+     * Crear el pedido y registrar su id en la clave dentro de la misma transacción.
+     */
+    private OrderResponse execute(String localKey, String idempotencyKey, CreateOrderRequest request,
+            OffsetDateTime claimedAt) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        inFlight.put(localKey, done);
+        try {
+            return transactionTemplate.execute(status -> {
+                // Storefront: la acción la realiza un Customer, no un User del backoffice
+                OrderResponse response = orderService.createOrder(request, null);
+                if (idempotencyKeyRepository.complete(request.customerId(), idempotencyKey, claimedAt,
+                        response.id()) == 0) {
+                    throw new ConflictException(
+                            "La solicitud con esta clave de idempotencia fue reemplazada por otra");
+                }
+                return response;
+            });
+        } catch (RuntimeException e) {
+            idempotencyKeyRepository.release(request.customerId(), idempotencyKey, claimedAt);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, done);
+            done.complete(null);
+        }
+    }
+
+    /**
+     * Esperar a la solicitud en curso: sobre su resultado si se ejecuta en este nodo,
+     * o un intervalo de sondeo si se ejecuta en otro.
+     */
+    private void awaitInFlight(String localKey, long deadline) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            throw new ConflictException(
+                    "Ya hay una solicitud en curso con esta clave de idempotencia, reintente en unos segundos");
+        }
+
+        CompletableFuture<Void> local = inFlight.get(localKey);
+        try {
+            if (local != null) {
+                local.get(remaining, TimeUnit.MILLISECONDS);
+            } else {
+                Thread.sleep(Math.min(POLL_INTERVAL_MS, remaining));
+            }
+        } catch (TimeoutException | ExecutionException e) {
+            // Se vuelve a consultar la clave; el plazo se controla en la siguiente vuelta
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Espera de la solicitud en curso interrumpida");
+        }
+    }
+
+    /**
+     * SHA-256 de la solicitud, para rechazar la misma clave con otro contenido.
+     */
+    private String hash(CreateOrderRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(request.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Resultado de una creación idempotente.
+     *
+     * @param replayed true si el pedido ya existía (respuesta de un reintento)
+     */
+    public record IdempotentOrderResult(OrderResponse order, boolean replayed) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.pegasus.backend.features.order.service;
+
+import com.pegasus.backend.features.outbox.entity.OutboxEvent;
+import com.pegasus.backend.features.outbox.service.OutboxHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Procesa los eventos del outbox generados al crear un pedido:
+ * creación del envío inicial y registro del pago.
+ *
+ * Envío y pago se registran con tipos de agregado distintos, de modo que cada uno se
+ * entrega en orden dentro de su propio flujo: un envío que falla (o agota sus intentos)
+ * no retiene el registro del pago.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderOutboxHandler implements OutboxHandler {
+
+    public static final String SHIPMENT_AGGREGATE_TYPE = "ORDER_SHIPMENT";
+    public static final String PAYMENT_AGGREGATE_TYPE = "ORDER_PAYMENT";
+    public static final String SHIPMENT_REQUESTED = "ORDER_SHIPMENT_REQUESTED";
+    public static final String PAYMENT_SUBMITTED = "ORDER_PAYMENT_SUBMITTED";
+
+    private final OrderService orderService;
+
+    @Override
+    public Set<String> eventTypes() {
+        return Set.of(SHIPMENT_REQUESTED, PAYMENT_SUBMITTED);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void handle(OutboxEvent event) {
+        Map<String, Object> payload = event.getPayload();
+        switch (event.getEventType()) {
+            case SHIPMENT_REQUESTED -> orderService.createInitialShipment(
+                    event.getAggregateId(), toLong(payload.get("shippingMethodId")));
+            case PAYMENT_SUBMITTED -> orderService.registerInitialPayment(
+                    event.getAggregateId(),
+                    (String) payload.get("paymentMethod"),
+                    (String) payload.get("transactionId"),
+                    toLong(payload.get("userId")));
+            default -> throw new IllegalArgumentException("Tipo de evento no soportado: " + event.getEventType());
+        }
+    }
+
+    /**
+     * Los números del payload JSON pueden leerse como Integer o Long
+     */
+    private Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+}
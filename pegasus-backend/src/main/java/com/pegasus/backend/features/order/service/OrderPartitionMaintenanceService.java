@@ -0,0 +1,62 @@
+package com.pegasus.backend.features.order.service;
+
+import com.pegasus.backend.features.order.config.OrderPartitionConfig;
+import com.pegasus.backend.features.order.repository.OrderStatusHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Mantenimiento de las particiones mensuales de order_status_histories.
+ *
+ * Crea por adelantado las particiones de los próximos meses (las inserciones nunca
+ * caen en la partición DEFAULT) y, si el archivado está activo, mueve los meses
+ * antiguos al esquema cold, donde solo los consultan los reportes históricos.
+ * Ambas funciones de base de datos son idempotentes: varios nodos pueden ejecutarlas.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderPartitionMaintenanceService {
+
+    private final OrderPartitionConfig config;
+    private final OrderStatusHistoryRepository orderStatusHistoryRepository;
+
+    /**
+     * Asegurar las particiones al arrancar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        maintainPartitions();
+    }
+
+    /**
+     * Crear las particiones faltantes y archivar las antiguas.
+     */
+    @Scheduled(fixedDelayString = "${order.partitioning.maintenance-interval-ms:86400000}")
+    public void maintainPartitions() {
+        OffsetDateTime now = OffsetDateTime.now();
+        try {
+            int created = orderStatusHistoryRepository.createMonthlyPartitions(now,
+                    now.plusMonths(config.getMonthsAhead()));
+            if (created > 0) {
+                log.info("Created {} order status history partitions", created);
+            }
+
+            if (config.isArchiveEnabled()) {
+                int archived = orderStatusHistoryRepository.archivePartitionsBefore(
+                        now.minusMonths(config.getArchiveAfterMonths()));
+                if (archived > 0) {
+                    log.info("Archived {} order status history partitions into cold schema", archived);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Order status history partition maintenance failed: {}", e.getMessage());
+        }
+    }
+}
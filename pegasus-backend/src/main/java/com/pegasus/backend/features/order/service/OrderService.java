@@ -6,6 +6,8 @@ import com.pegasus.backend.features.catalog.entity.Variant;
 import com.pegasus.backend.features.catalog.repository.VariantRepository;
 import com.pegasus.backend.features.customer.entity.Customer;
 import com.pegasus.backend.features.customer.repository.CustomerRepository;
+import com.pegasus.backend.features.inventory.dto.StockAllocation;
+import com.pegasus.backend.features.inventory.service.StockAllocator;
 import com.pegasus.backend.features.inventory.service.StockService;
 import com.pegasus.backend.features.logistic.dto.CreateShipmentRequest;
 import com.pegasus.backend.features.logistic.dto.ShipmentResponse;
@@ -23,16 +25,23 @@ import com.pegasus.backend.features.invoice.dto.InvoiceSummaryResponse;
 import com.pegasus.backend.shared.enums.ShipmentType;
 import com.pegasus.backend.features.order.dto.*;
 import com.pegasus.backend.features.order.entity.Order;
+import com.pegasus.backend.features.order.entity.OrderAllocation;
 import com.pegasus.backend.features.order.entity.OrderItem;
 import com.pegasus.backend.features.order.entity.OrderStatusHistory;
+import com.pegasus.backend.features.order.event.OrderStatusChangedEvent;
 import com.pegasus.backend.features.order.mapper.OrderMapper;
+import com.pegasus.backend.features.order.repository.OrderAllocationRepository;
 import com.pegasus.backend.features.order.repository.OrderRepository;
 import com.pegasus.backend.features.order.repository.OrderStatusHistoryRepository;
+import com.pegasus.backend.features.order.repository.OrderSpecifications;
+import com.pegasus.backend.features.outbox.service.OutboxService;
 import com.pegasus.backend.features.user.repository.UserRepository;
 import com.pegasus.backend.shared.dto.PageResponse;
 import com.pegasus.backend.shared.enums.OrderStatus;
+import com.pegasus.backend.shared.sequence.service.DocumentNumberGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -53,11 +62,28 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class OrderService {
 
+    /**
+     * Transiciones de estado permitidas (máquina de estados del pedido)
+     */
+    private static final Map<OrderStatus, Set<OrderStatus>> ALLOWED_TRANSITIONS = new EnumMap<>(Map.of(
+            OrderStatus.PENDING, EnumSet.of(OrderStatus.AWAIT_PAYMENT, OrderStatus.CANCELLED),
+            OrderStatus.AWAIT_PAYMENT, EnumSet.of(OrderStatus.PAID, OrderStatus.CANCELLED),
+            OrderStatus.PAID, EnumSet.of(OrderStatus.PROCESSING, OrderStatus.REFUNDED),
+            // Permitir volver a PAID si se elimina el envío
+            OrderStatus.PROCESSING, EnumSet.of(OrderStatus.SHIPPED, OrderStatus.CANCELLED, OrderStatus.PAID),
+            // Permitir volver a PROCESSING si hay problemas
+            OrderStatus.SHIPPED, EnumSet.of(OrderStatus.DELIVERED, OrderStatus.PROCESSING),
+            OrderStatus.DELIVERED, EnumSet.of(OrderStatus.REFUNDED),
+            OrderStatus.CANCELLED, EnumSet.noneOf(OrderStatus.class),
+            OrderStatus.REFUNDED, EnumSet.noneOf(OrderStatus.class)));
+
     private final OrderRepository orderRepository;
     private final OrderStatusHistoryRepository orderStatusHistoryRepository;
     private final CustomerRepository customerRepository;
     private final VariantRepository variantRepository;
     private final StockService stockService;
+    private final StockAllocator stockAllocator;
+    private final OrderAllocationRepository orderAllocationRepository;
     private final OrderMapper orderMapper;
     private final ShipmentService shipmentService;
     private final ShippingMethodRepository shippingMethodRepository;
@@ -67,6 +93,9 @@ public class OrderService {
     private final InvoiceRepository invoiceRepository;
     private final InvoiceMapper invoiceMapper;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DocumentNumberGenerator documentNumberGenerator;
+    private final OutboxService outboxService;
 
     private Long sanitizeStaffUserId(Long userId) {
         if (userId == null) {
@@ -85,12 +114,11 @@ public class OrderService {
         log.debug("Getting orders with search: {}, status: {}, page: {}",
                 search, status, pageable.getPageNumber());
 
-        Page<Order> page = orderRepository.searchOrders(search, status, pageable);
-        List<OrderSummaryResponse> content = orderMapper.toSummaryResponseList(page.getContent());
-        List<OrderSummaryResponse> enrichedContent = enrichWithInvoices(content);
+        Page<OrderSummaryResponse> page = orderRepository.findSummaries(
+                OrderSpecifications.search(search, status), pageable);
 
         return new PageResponse<>(
-                enrichedContent,
+                page.getContent(),
                 page.getNumber(),
                 page.getSize(),
                 page.getTotalElements(),
@@ -107,13 +135,13 @@ public class OrderService {
     public PageResponse<OrderSummaryResponse> getPaidOrdersWithInvoice(Pageable pageable) {
         log.debug("Getting PAID orders with invoice, page: {}", pageable.getPageNumber());
 
-        Page<Order> page = orderRepository.findByStatusWithInvoice(OrderStatus.PAID, pageable);
-        List<OrderSummaryResponse> content = orderMapper.toSummaryResponseList(page.getContent());
-        List<OrderSummaryResponse> enrichedContent = enrichWithInvoices(content);
+        Page<OrderSummaryResponse> page = orderRepository.findSummaries(
+                OrderSpecifications.search(null, OrderStatus.PAID).and(OrderSpecifications.withInvoice()),
+                pageable);
 
         return new PageResponse<>(
-                enrichedContent,
-                content.size() > 0 ? 0 : 0, // Mock pagination properties if needed or implement properly
+                page.getContent(),
+                page.getNumber(),
                 page.getSize(),
                 page.getTotalElements(),
                 page.getTotalPages(),
@@ -123,61 +151,48 @@ public class OrderService {
 
     /**
      * Obtener pedido por ID
+     * Detalle armado con un número fijo de consultas: pedido + cliente + items,
+     * historial, comprobante y método del envío OUTBOUND.
      */
     public OrderResponse getOrderById(Long id) {
         log.debug("Getting order by id: {}", id);
-        Order order = findOrderById(id);
-        OrderResponse response = orderMapper.toResponse(order);
-        return enrichWithShippingMethod(response);
-    }
+        Order order = orderRepository.findDetailById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Pedido no encontrado con ID: " + id));
 
-    private OrderResponse enrichWithShippingMethod(OrderResponse response) {
-        // Find associated invoice
-        InvoiceSummaryResponse invoice = invoiceRepository.findByOrderId(response.id())
-                .stream()
-                .findFirst()
+        // El margen cubre desfases de reloj entre la aplicación y la base de datos
+        List<OrderStatusHistory> histories = orderStatusHistoryRepository.findWithUserByOrderId(id,
+                order.getCreatedAt().minusDays(1));
+
+        InvoiceSummaryResponse invoice = invoiceRepository.findByOrderId(id)
                 .map(invoiceMapper::toSummaryResponse)
                 .orElse(null);
 
-        // Buscar si existe un envío asociado (tomamos el primero que sea OUTBOUND)
-        return shipmentRepository.findByOrderId(response.id(), Pageable.unpaged())
-                .stream()
-                .filter(s -> s.getShipmentType() == ShipmentType.OUTBOUND)
-                .findFirst()
-                .map(s -> new OrderResponse(
-                        response.id(),
-                        response.orderNumber(),
-                        response.customerId(),
-                        response.customerName(),
-                        response.customerEmail(),
-                        response.status(),
-                        response.total(),
-                        response.shippingAddress(),
-                        response.billingAddress(),
-                        response.items(),
-                        response.statusHistories(),
-                        s.getShippingMethod().getId(),
-                        response.preferredInvoiceType(),
-                        response.createdAt(),
-                        response.updatedAt(),
-                        invoice))
-                .orElse(new OrderResponse(
-                        response.id(),
-                        response.orderNumber(),
-                        response.customerId(),
-                        response.customerName(),
-                        response.customerEmail(),
-                        response.status(),
-                        response.total(),
-                        response.shippingAddress(),
-                        response.billingAddress(),
-                        response.items(),
-                        response.statusHistories(),
-                        null,
-                        response.preferredInvoiceType(),
-                        response.createdAt(),
-                        response.updatedAt(),
-                        invoice));
+        // Método de envío del primer envío OUTBOUND, si existe
+        Long shippingMethodId = shipmentRepository
+                .findShippingMethodIdByOrderIdAndType(id, ShipmentType.OUTBOUND)
+                .orElse(null);
+
+        return orderMapper.toDetailResponse(order, histories, shippingMethodId, invoice);
+    }
+
+    /**
+     * Obtener los datos mínimos de propiedad de un pedido (id, cliente, estado)
+     */
+    public OrderOwnership getOrderOwnership(Long id) {
+        return orderRepository.findOwnershipById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Pedido no encontrado con ID: " + id));
+    }
+
+    /**
+     * Buscar y bloquear el pedido hasta el fin de la transacción, para que su estado
+     * no cambie (expiración, pago, cancelación) entre la validación y la escritura
+     */
+    private Order lockOrderById(Long id) {
+        return orderRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Pedido no encontrado con ID: " + id));
     }
 
     /**
@@ -202,12 +217,11 @@ public class OrderService {
             throw new ResourceNotFoundException("Cliente no encontrado con ID: " + customerId);
         }
 
-        Page<Order> page = orderRepository.findByCustomerId(customerId, pageable);
-        List<OrderSummaryResponse> content = orderMapper.toSummaryResponseList(page.getContent());
-        List<OrderSummaryResponse> enrichedContent = enrichWithInvoices(content);
+        Page<OrderSummaryResponse> page = orderRepository.findSummaries(
+                OrderSpecifications.byCustomer(customerId), pageable);
 
         return new PageResponse<>(
-                enrichedContent,
+                page.getContent(),
                 page.getNumber(),
                 page.getSize(),
                 page.getTotalElements(),
@@ -250,29 +264,41 @@ public class OrderService {
         // Validar y preparar items
         List<OrderItem> orderItems = new ArrayList<>();
         BigDecimal totalAmount = BigDecimal.ZERO;
-        Long defaultWarehouseId = 1L; // TODO: Configurar almacén principal
 
+        // Cantidad total por variante (una variante puede repetirse en varias líneas)
+        Map<Long, Integer> requestedQuantities = new LinkedHashMap<>();
         for (OrderItemRequest itemRequest : request.items()) {
-            Variant variant = variantRepository.findById(itemRequest.variantId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Variante no encontrada con ID: " + itemRequest.variantId()));
+            requestedQuantities.merge(itemRequest.variantId(), itemRequest.quantity(), Integer::sum);
+        }
+
+        // Cargar variantes (con producto) en una consulta
+        Map<Long, Variant> variants = variantRepository.findAllWithProductByIdIn(requestedQuantities.keySet())
+                .stream()
+                .collect(Collectors.toMap(Variant::getId, v -> v));
+
+        // Verificar disponibilidad de stock en memoria (suma de los almacenes activos)
+        for (Map.Entry<Long, Integer> requested : requestedQuantities.entrySet()) {
+            Variant variant = variants.get(requested.getKey());
+            if (variant == null) {
+                throw new ResourceNotFoundException("Variante no encontrada con ID: " + requested.getKey());
+            }
 
             if (!variant.getIsActive()) {
                 throw new BadRequestException(
                         "La variante con SKU " + variant.getSku() + " no está activa");
             }
 
-            // Verificar disponibilidad de stock
-            var availability = stockService.checkStockAvailability(
-                    defaultWarehouseId,
-                    variant.getId(),
-                    itemRequest.quantity());
-
-            if (!availability.isAvailable()) {
+            int available = stockAllocator.getTotalAvailable(variant.getId());
+            if (available < requested.getValue()) {
                 throw new BadRequestException(
                         "Stock insuficiente para " + variant.getSku() + ". "
-                                + availability.message());
+                                + "Stock insuficiente. Disponible: " + available
+                                + ", Requerido: " + requested.getValue());
             }
+        }
+
+        for (OrderItemRequest itemRequest : request.items()) {
+            Variant variant = variants.get(itemRequest.variantId());
 
             // Calcular totales
             BigDecimal itemTotal = variant.getPrice().multiply(new BigDecimal(itemRequest.quantity()));
@@ -321,15 +347,9 @@ public class OrderService {
         // Guardar orden
         Order savedOrder = orderRepository.save(order);
 
-        // Reservar stock para cada item
-        for (OrderItem item : savedOrder.getItems()) {
-            stockService.reserveStock(
-                    defaultWarehouseId,
-                    item.getVariantId(),
-                    item.getQuantity(),
-                    savedOrder.getId(),
-                    sanitizedUserId);
-        }
+        // Asignar almacenes y reservar (una sentencia por almacén)
+        reserveAllocatedStock(savedOrder.getId(), requestedQuantities,
+                request.shippingAddress().ubigeoId(), sanitizedUserId);
 
         // Crear historial inicial
         OrderStatusHistory initialHistory = OrderStatusHistory.builder()
@@ -340,78 +360,115 @@ public class OrderService {
                 .build();
 
         orderStatusHistoryRepository.save(initialHistory);
+        publishStatusChange(savedOrder, null);
 
-        // Crear envío inicial automáticamente si se seleccionó método
+        // Envío inicial y pago se procesan de forma asíncrona desde el outbox, cada uno en su flujo
         if (shippingMethod != null) {
-            try {
-                CreateShipmentRequest shipmentReq = new CreateShipmentRequest();
-                shipmentReq.setShipmentType(ShipmentType.OUTBOUND);
-                shipmentReq.setOrderId(savedOrder.getId());
-                shipmentReq.setShippingMethodId(shippingMethod.getId());
-                shipmentReq.setTrackingNumber("PENDING");
-                shipmentReq.setShippingCost(shippingMethod.getBaseCost());
-                shipmentReq.setWeightKg(BigDecimal.ONE); // Default weight
-                shipmentReq.setEstimatedDeliveryDate(
-                        OffsetDateTime.now().plusDays(shippingMethod.getEstimatedDaysMax()));
-                shipmentReq.setShippingAddress(savedOrder.getShippingAddress());
-                shipmentReq.setRecipientName(
-                        extractRecipientNameFromAddress(savedOrder.getShippingAddress()));
-                shipmentReq.setRecipientPhone(
-                        extractRecipientPhoneFromAddress(savedOrder.getShippingAddress()));
-                shipmentReq.setNotes("Envío creado automáticamente desde storefront");
-
-                shipmentService.createShipment(shipmentReq);
-                log.info("Auto-created shipment for order {}", savedOrder.getOrderNumber());
-            } catch (Exception e) {
-                log.error("Failed to auto-create shipment for order {}", savedOrder.getOrderNumber(),
-                        e);
-            }
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("shippingMethodId", shippingMethod.getId());
+            outboxService.enqueue(OrderOutboxHandler.SHIPMENT_AGGREGATE_TYPE, savedOrder.getId(),
+                    OrderOutboxHandler.SHIPMENT_REQUESTED, payload);
         }
-
-        // Create initial payment if provided
         if (request.paymentMethod() != null && !request.paymentMethod().isEmpty()) {
-            String methodName = switch (request.paymentMethod()) {
-                case "card" -> "Credit Card";
-                case "yape" -> "Yape";
-                case "plin" -> "Plin";
-                default -> request.paymentMethod();
-            };
-
-            PaymentMethod pm = paymentMethodRepository.findByName(methodName)
-                    .orElseGet(() -> {
-                        PaymentMethod newPm = new PaymentMethod();
-                        newPm.setName(methodName);
-                        return paymentMethodRepository.save(newPm);
-                    });
-
-            Payment payment = Payment.builder()
-                    .orderId(savedOrder.getId())
-                    .paymentMethodId(pm.getId())
-                    .amount(savedOrder.getTotal())
-                    .transactionId(request.paymentTransactionId())
-                    .paymentDate(OffsetDateTime.now())
-                    .notes("Pago registrado al crear pedido")
-                    .build();
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("paymentMethod", request.paymentMethod());
+            payload.put("transactionId", request.paymentTransactionId());
+            payload.put("userId", sanitizedUserId);
+            outboxService.enqueue(OrderOutboxHandler.PAYMENT_AGGREGATE_TYPE, savedOrder.getId(),
+                    OrderOutboxHandler.PAYMENT_SUBMITTED, payload);
+        }
 
-            paymentRepository.save(payment);
+        log.info("Order created successfully: {} - Stock reserved", orderNumber);
+        return orderMapper.toResponse(savedOrder);
+    }
 
-            // Update status to PAID if transaction ID is present
-            if (request.paymentTransactionId() != null && !request.paymentTransactionId().isEmpty()) {
-                savedOrder.setStatus(OrderStatus.PAID);
-                orderRepository.save(savedOrder);
+    /**
+     * Crear el envío OUTBOUND inicial de un pedido (evento de outbox).
+     * Idempotente: no hace nada si el pedido ya tiene un envío OUTBOUND activo.
+     */
+    @Transactional
+    public void createInitialShipment(Long orderId, Long shippingMethodId) {
+        if (shipmentRepository.findShippingMethodIdByOrderIdAndType(orderId, ShipmentType.OUTBOUND).isPresent()) {
+            log.debug("Initial shipment already exists for order {}", orderId);
+            return;
+        }
 
-                OrderStatusHistory paymentHistory = OrderStatusHistory.builder()
-                        .orderId(savedOrder.getId())
-                        .status(OrderStatus.PAID)
-                        .comments("Pago confirmado: " + request.paymentTransactionId())
-                        .createdBy(sanitizedUserId)
-                        .build();
-                orderStatusHistoryRepository.save(paymentHistory);
-            }
+        Order order = lockOrderById(orderId);
+        ShippingMethod shippingMethod = shippingMethodRepository.findById(shippingMethodId)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Método de envío no encontrado con ID: " + shippingMethodId));
+
+        CreateShipmentRequest shipmentReq = new CreateShipmentRequest();
+        shipmentReq.setShipmentType(ShipmentType.OUTBOUND);
+        shipmentReq.setOrderId(order.getId());
+        shipmentReq.setShippingMethodId(shippingMethod.getId());
+        shipmentReq.setTrackingNumber("PENDING");
+        shipmentReq.setShippingCost(shippingMethod.getBaseCost());
+        shipmentReq.setWeightKg(BigDecimal.ONE); // Default weight
+        shipmentReq.setEstimatedDeliveryDate(
+                OffsetDateTime.now().plusDays(shippingMethod.getEstimatedDaysMax()));
+        shipmentReq.setShippingAddress(order.getShippingAddress());
+        shipmentReq.setRecipientName(extractRecipientNameFromAddress(order.getShippingAddress()));
+        shipmentReq.setRecipientPhone(extractRecipientPhoneFromAddress(order.getShippingAddress()));
+        shipmentReq.setNotes("Envío creado automáticamente desde storefront");
+
+        shipmentService.createShipment(shipmentReq);
+        log.info("Auto-created shipment for order {}", order.getOrderNumber());
+    }
+
+    /**
+     * Registrar el pago enviado al crear el pedido (evento de outbox) y, si trae
+     * id de transacción, confirmar el pedido como PAID.
+     * Idempotente: no hace nada si el pedido ya tiene un pago registrado.
+     */
+    @Transactional
+    public void registerInitialPayment(Long orderId, String paymentMethod, String transactionId, Long userId) {
+        Order order = lockOrderById(orderId);
+        if (paymentRepository.existsByOrderId(orderId)) {
+            log.debug("Initial payment already registered for order {}", orderId);
+            return;
         }
 
-        log.info("Order created successfully: {} - Stock reserved", orderNumber);
-        return orderMapper.toResponse(savedOrder);
+        String methodName = switch (paymentMethod) {
+            case "card" -> "Credit Card";
+            case "yape" -> "Yape";
+            case "plin" -> "Plin";
+            default -> paymentMethod;
+        };
+
+        PaymentMethod pm = paymentMethodRepository.findByName(methodName)
+                .orElseGet(() -> {
+                    PaymentMethod newPm = new PaymentMethod();
+                    newPm.setName(methodName);
+                    return paymentMethodRepository.save(newPm);
+                });
+
+        Payment payment = Payment.builder()
+                .orderId(order.getId())
+                .paymentMethodId(pm.getId())
+                .amount(order.getTotal())
+                .transactionId(transactionId)
+                .paymentDate(OffsetDateTime.now())
+                .notes("Pago registrado al crear pedido")
+                .build();
+
+        paymentRepository.save(payment);
+
+        // Confirmar el pago solo si el pedido sigue pendiente (pudo cancelarse o expirar)
+        if (transactionId != null && !transactionId.isEmpty() && order.getStatus() == OrderStatus.PENDING) {
+            order.setStatus(OrderStatus.PAID);
+            orderRepository.save(order);
+
+            OrderStatusHistory paymentHistory = OrderStatusHistory.builder()
+                    .orderId(order.getId())
+                    .status(OrderStatus.PAID)
+                    .comments("Pago confirmado: " + transactionId)
+                    .createdBy(userId)
+                    .build();
+            orderStatusHistoryRepository.save(paymentHistory);
+            publishStatusChange(order, OrderStatus.PENDING);
+        }
+        log.info("Initial payment registered for order {}", order.getOrderNumber());
     }
 
     /**
@@ -426,10 +483,11 @@ public class OrderService {
 
         Long sanitizedUserId = sanitizeStaffUserId(updatedByUserId);
 
-        Order order = findOrderById(orderId);
+        Order order = lockOrderById(orderId);
 
         // Validar transición de estado
-        validateStatusTransition(order.getStatus(), request.newStatus());
+        OrderStatus previousStatus = order.getStatus();
+        validateStatusTransition(previousStatus, request.newStatus());
 
         // Actualizar estado
         order.setStatus(request.newStatus());
@@ -444,11 +502,64 @@ public class OrderService {
                 .build();
 
         orderStatusHistoryRepository.save(history);
+        publishStatusChange(updatedOrder, previousStatus);
 
         log.info("Order {} status updated to {}", orderId, request.newStatus());
         return orderMapper.toResponse(updatedOrder);
     }
 
+    /**
+     * Cambiar el estado de varios pedidos a la vez (operaciones de backoffice).
+     * Los pedidos se bloquean y validan con una consulta, los válidos se actualizan con
+     * una sentencia y su historial con otra. Los pedidos inexistentes o con una
+     * transición no permitida se informan sin detener al resto.
+     */
+    @Transactional
+    public BulkOrderStatusResponse bulkUpdateOrderStatus(BulkUpdateOrderStatusRequest request, Long userId) {
+        OrderStatus newStatus = request.newStatus();
+        if (newStatus == OrderStatus.CANCELLED) {
+            // La cancelación libera stock reservado pedido por pedido
+            throw new BadRequestException("Los pedidos deben cancelarse individualmente");
+        }
+
+        Long sanitizedUserId = sanitizeStaffUserId(userId);
+        Set<Long> orderIds = new LinkedHashSet<>(request.orderIds());
+        Map<Long, OrderOwnership> orders = orderRepository.lockOwnershipsByIdIn(orderIds).stream()
+                .collect(Collectors.toMap(OrderOwnership::id, o -> o));
+
+        List<BulkOrderStatusResponse.Result> results = new ArrayList<>(orderIds.size());
+        List<OrderOwnership> accepted = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            OrderOwnership order = orders.get(orderId);
+            if (order == null) {
+                results.add(new BulkOrderStatusResponse.Result(orderId, false, null, "Pedido no encontrado"));
+            } else if (!isTransitionAllowed(order.status(), newStatus)) {
+                results.add(new BulkOrderStatusResponse.Result(orderId, false, order.status(),
+                        "Transición de estado no permitida: " + order.status() + " -> " + newStatus));
+            } else {
+                accepted.add(order);
+                results.add(new BulkOrderStatusResponse.Result(orderId, true, order.status(), null));
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            OffsetDateTime now = OffsetDateTime.now();
+            Long[] acceptedIds = accepted.stream().map(OrderOwnership::id).toArray(Long[]::new);
+            orderRepository.updateStatusBulk(Arrays.asList(acceptedIds), newStatus, now);
+            orderStatusHistoryRepository.insertBatch(acceptedIds, newStatus.name(), request.comments(),
+                    sanitizedUserId);
+            for (OrderOwnership order : accepted) {
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                        order.id(), order.customerId(), order.status(), newStatus, now));
+            }
+        }
+
+        log.info("Bulk status update to {} - updated: {}, rejected: {}", newStatus, accepted.size(),
+                orderIds.size() - accepted.size());
+        return new BulkOrderStatusResponse(newStatus, accepted.size(), orderIds.size() - accepted.size(),
+                results);
+    }
+
     /**
      * Método helper para actualizar estado directamente (usado por otros servicios)
      * Actualiza el estado sin userId (sistema automático)
@@ -457,10 +568,11 @@ public class OrderService {
     public void updateOrderStatus(Long orderId, OrderStatus newStatus, String comments) {
         log.debug("Auto-updating order {} status to {} - {}", orderId, newStatus, comments);
 
-        Order order = findOrderById(orderId);
+        Order order = lockOrderById(orderId);
 
         // Validar transición de estado
-        validateStatusTransition(order.getStatus(), newStatus);
+        OrderStatus previousStatus = order.getStatus();
+        validateStatusTransition(previousStatus, newStatus);
 
         // Actualizar estado
         order.setStatus(newStatus);
@@ -475,6 +587,7 @@ public class OrderService {
                 .build();
 
         orderStatusHistoryRepository.save(history);
+        publishStatusChange(order, previousStatus);
 
         log.info("Order {} status auto-updated to {}", orderId, newStatus);
     }
@@ -488,7 +601,7 @@ public class OrderService {
 
         Long sanitizedUserId = sanitizeStaffUserId(cancelledByUserId);
 
-        Order order = findOrderById(orderId);
+        Order order = lockOrderById(orderId);
 
         // Validar que el pedido puede ser cancelado
         if (!canBeCancelled(order.getStatus())) {
@@ -496,18 +609,18 @@ public class OrderService {
                     "No se puede cancelar un pedido en estado: " + order.getStatus());
         }
 
-        // Liberar stock reservado
-        Long defaultWarehouseId = 1L; // TODO: Configurar almacén principal
-        for (OrderItem item : order.getItems()) {
+        // Liberar exactamente lo reservado en cada almacén
+        for (OrderAllocation allocation : orderAllocationRepository.findByOrderId(orderId)) {
             stockService.releaseReservedStock(
-                    defaultWarehouseId,
-                    item.getVariantId(),
-                    item.getQuantity(),
+                    allocation.getWarehouseId(),
+                    allocation.getVariantId(),
+                    allocation.getQuantity(),
                     orderId,
                     sanitizedUserId);
         }
 
         // Actualizar estado
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(OrderStatus.CANCELLED);
         Order cancelledOrder = orderRepository.save(order);
 
@@ -520,6 +633,7 @@ public class OrderService {
                 .build();
 
         orderStatusHistoryRepository.save(history);
+        publishStatusChange(cancelledOrder, previousStatus);
 
         log.info("Order {} cancelled successfully - Stock released", orderId);
         return orderMapper.toResponse(cancelledOrder);
@@ -528,37 +642,51 @@ public class OrderService {
     // ========================= Helper Methods =========================
 
     /**
-     * Buscar pedido por ID o lanzar excepción
+     * Asignar las cantidades del pedido a almacenes, reservarlas y registrar las asignaciones
      */
-    private Order findOrderById(Long id) {
-        return orderRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        "Pedido no encontrado con ID: " + id));
+    private void reserveAllocatedStock(Long orderId, Map<Long, Integer> quantities, String destinationUbigeo,
+            Long userId) {
+        List<StockAllocation> allocations = stockAllocator.allocate(quantities, destinationUbigeo);
+
+        Map<Long, Map<Long, Integer>> byWarehouse = new LinkedHashMap<>();
+        for (StockAllocation allocation : allocations) {
+            byWarehouse.computeIfAbsent(allocation.warehouseId(), k -> new HashMap<>())
+                    .put(allocation.variantId(), allocation.quantity());
+        }
+        byWarehouse.forEach((warehouseId, warehouseQuantities) ->
+                stockService.reserveStockBatch(warehouseId, warehouseQuantities, orderId, userId));
+
+        orderAllocationRepository.insertBatch(
+                orderId,
+                allocations.stream().map(StockAllocation::warehouseId).toArray(Long[]::new),
+                allocations.stream().map(StockAllocation::variantId).toArray(Long[]::new),
+                allocations.stream().map(StockAllocation::quantity).toArray(Integer[]::new));
+
+        if (byWarehouse.size() > 1) {
+            log.info("Order {} allocated across {} warehouses", orderId, byWarehouse.size());
+        }
+    }
+
+    /**
+     * Publicar cambio de estado (los listeners reaccionan tras el commit)
+     */
+    private void publishStatusChange(Order order, OrderStatus previousStatus) {
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                order.getId(),
+                order.getCustomerId(),
+                previousStatus,
+                order.getStatus(),
+                OffsetDateTime.now()));
     }
 
     /**
      * Generar número de orden único
-     * Formato: ORD-YYYYMMDD-XXXXX
+     * Formato: ORD-YYYYMMDD-XXXXX (secuencia diaria, ver DocumentNumberGenerator)
      */
     private String generateOrderNumber() {
         String datePrefix = OffsetDateTime.now()
                 .format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String baseNumber = "ORD-" + datePrefix + "-";
-
-        // Generar número secuencial (5 dígitos)
-        int attempt = 0;
-        String orderNumber;
-        do {
-            int sequence = (int) (Math.random() * 99999) + 1;
-            orderNumber = baseNumber + String.format("%05d", sequence);
-            attempt++;
-        } while (orderRepository.existsByOrderNumber(orderNumber) && attempt < 10);
-
-        if (orderRepository.existsByOrderNumber(orderNumber)) {
-            throw new RuntimeException("No se pudo generar un número de orden único");
-        }
-
-        return orderNumber;
+        return documentNumberGenerator.next("ORD", datePrefix);
     }
 
     /**
@@ -578,34 +706,17 @@ public class OrderService {
      * Validar transición de estado
      */
     private void validateStatusTransition(OrderStatus currentStatus, OrderStatus newStatus) {
-        // Definir transiciones permitidas
-        Map<OrderStatus, Set<OrderStatus>> allowedTransitions = new HashMap<>();
-        allowedTransitions.put(OrderStatus.PENDING,
-                Set.of(OrderStatus.AWAIT_PAYMENT, OrderStatus.CANCELLED));
-        allowedTransitions.put(OrderStatus.AWAIT_PAYMENT,
-                Set.of(OrderStatus.PAID, OrderStatus.CANCELLED));
-        allowedTransitions.put(OrderStatus.PAID,
-                Set.of(OrderStatus.PROCESSING, OrderStatus.REFUNDED));
-        allowedTransitions.put(OrderStatus.PROCESSING,
-                Set.of(OrderStatus.SHIPPED, OrderStatus.CANCELLED, OrderStatus.PAID)); // Permitir
-                                                                                       // volver a PAID
-                                                                                       // si se elimina
-                                                                                       // el envío
-        allowedTransitions.put(OrderStatus.SHIPPED,
-                Set.of(OrderStatus.DELIVERED, OrderStatus.PROCESSING)); // Permitir volver a PROCESSING
-                                                                        // si hay problemas
-        allowedTransitions.put(OrderStatus.DELIVERED,
-                Set.of(OrderStatus.REFUNDED));
-        allowedTransitions.put(OrderStatus.CANCELLED, Set.of());
-        allowedTransitions.put(OrderStatus.REFUNDED, Set.of());
-
-        Set<OrderStatus> allowed = allowedTransitions.get(currentStatus);
-        if (allowed == null || !allowed.contains(newStatus)) {
+        if (!isTransitionAllowed(currentStatus, newStatus)) {
             throw new BadRequestException(
                     "Transición de estado no permitida: " + currentStatus + " -> " + newStatus);
         }
     }
 
+    private boolean isTransitionAllowed(OrderStatus currentStatus, OrderStatus newStatus) {
+        Set<OrderStatus> allowed = ALLOWED_TRANSITIONS.get(currentStatus);
+        return allowed != null && allowed.contains(newStatus);
+    }
+
     /**
      * Crear envío para un pedido
      * Este método permite al backoffice crear envíos manualmente cuando los
@@ -616,7 +727,7 @@ public class OrderService {
         log.info("Creating shipment for order: {}", orderId);
 
         // Validar que el pedido existe
-        Order order = findOrderById(orderId);
+        Order order = lockOrderById(orderId);
 
         // Validar que el pedido puede ser enviado
         if (!canShipOrder(order.getStatus())) {
@@ -705,32 +816,4 @@ public class OrderService {
                 status == OrderStatus.AWAIT_PAYMENT ||
                 status == OrderStatus.PROCESSING;
     }
-
-    private List<OrderSummaryResponse> enrichWithInvoices(List<OrderSummaryResponse> orders) {
-        if (orders.isEmpty()) {
-            return orders;
-        }
-        List<Long> orderIds = orders.stream().map(OrderSummaryResponse::id).toList();
-        Map<Long, InvoiceSummaryResponse> invoiceMap = invoiceRepository.findByOrderIdIn(orderIds)
-                .stream()
-                .collect(Collectors.toMap(
-                        inv -> inv.getOrderId(),
-                        invoiceMapper::toSummaryResponse,
-                        (existing, replacement) -> existing));
-
-        return orders.stream().map(order -> new OrderSummaryResponse(
-                order.id(),
-                order.orderNumber(),
-                order.customerId(),
-                order.customerName(),
-                order.customerEmail(),
-                order.customerDocType(),
-                order.customerDocNumber(),
-                order.status(),
-                order.total(),
-                order.preferredInvoiceType(),
-                order.createdAt(),
-                order.updatedAt(),
-                invoiceMap.get(order.id()))).toList();
-    }
 }
@@ -0,0 +1,156 @@
+package com.pegasus.backend.features.order.service;
+
+import com.pegasus.backend.features.order.config.OrderStatusStreamConfig;
+import com.pegasus.backend.features.order.dto.OrderStatusEventResponse;
+import com.pegasus.backend.features.order.event.OrderStatusChangedEvent;
+import com.pegasus.backend.shared.enums.OrderStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+
+/**
+ * Distribuye los cambios de estado de pedidos a los streams SSE de todos los nodos.
+ *
+ * Con NOTIFY activo, el evento se envía con pg_notify dentro de la transacción que
+ * cambia el pedido: PostgreSQL solo lo entrega si la transacción confirma. Cada nodo
+ * mantiene una conexión LISTEN (tomada del pool) y reenvía lo recibido a sus suscriptores,
+ * incluido el propio nodo que originó el cambio. Sin NOTIFY, el evento se entrega solo
+ * a los suscriptores locales tras el commit.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatusEventBus {
+
+    static final String CHANNEL = "order_status_changed";
+    private static final int LISTEN_POLL_TIMEOUT_MS = 1000;
+
+    private final OrderStatusStreamConfig config;
+    private final OrderStatusStreamService streamService;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    /**
+     * Publicar en el canal NOTIFY dentro de la transacción (se descarta si revierte).
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void notifyStatusChange(OrderStatusChangedEvent event) {
+        if (!config.isNotifyEnabled()) {
+            return;
+        }
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", String.class, CHANNEL, encode(event));
+    }
+
+    /**
+     * Sin NOTIFY: entregar a los suscriptores locales una vez confirmado el cambio.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void deliverLocally(OrderStatusChangedEvent event) {
+        if (config.isNotifyEnabled()) {
+            return;
+        }
+        streamService.deliver(new OrderStatusEventResponse(event.orderId(), event.customerId(),
+                event.previousStatus(), event.newStatus(), event.occurredAt()));
+    }
+
+    /**
+     * Abrir la conexión LISTEN al arrancar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.isNotifyEnabled()) {
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listen, "order-status-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    /**
+     * Bucle LISTEN: reabre la conexión tras cualquier error mientras la aplicación esté activa.
+     */
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                log.info("Listening for order status changes on channel {}", CHANNEL);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(LISTEN_POLL_TIMEOUT_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        try {
+                            streamService.deliver(decode(notification.getParameter()));
+                        } catch (RuntimeException e) {
+                            log.warn("Invalid order status notification '{}': {}",
+                                    notification.getParameter(), e.getMessage());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Order status LISTEN connection lost, reconnecting in {} ms: {}",
+                        config.getReconnectDelayMs(), e.getMessage());
+                try {
+                    Thread.sleep(config.getReconnectDelayMs());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Formato del payload: orderId|customerId|previousStatus|newStatus|occurredAt
+     */
+    private String encode(OrderStatusChangedEvent event) {
+        return event.orderId() + "|" + event.customerId() + "|"
+                + (event.previousStatus() != null ? event.previousStatus().name() : "") + "|"
+                + event.newStatus().name() + "|" + event.occurredAt();
+    }
+
+    private OrderStatusEventResponse decode(String payload) {
+        String[] parts = payload.split("\\|", -1);
+        return new OrderStatusEventResponse(
+                Long.valueOf(parts[0]),
+                Long.valueOf(parts[1]),
+                parts[2].isEmpty() ? null : OrderStatus.valueOf(parts[2]),
+                OrderStatus.valueOf(parts[3]),
+                OffsetDateTime.parse(parts[4]));
+    }
+}
@@ -1,13 +1,16 @@
 package com.pegasus.backend.features.order.service;
 
 import com.pegasus.backend.features.order.entity.Order;
+import com.pegasus.backend.features.order.event.OrderStatusChangedEvent;
 import com.pegasus.backend.features.order.repository.OrderRepository;
 import com.pegasus.backend.shared.enums.OrderStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
 import java.util.EnumSet;
 import java.util.Map;
 import java.util.Set;
@@ -23,6 +26,7 @@ import java.util.Set;
 public class OrderStatusService {
 
     private final OrderRepository orderRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Definir transiciones válidas de estado
     private static final Map<OrderStatus, Set<OrderStatus>> VALID_TRANSITIONS = Map.of(
@@ -58,7 +62,10 @@ public class OrderStatusService {
         // TODO: Aquí se puede agregar lógica adicional según el nuevo estado
         // Por ejemplo: enviar notificaciones, actualizar inventario, etc.
 
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                savedOrder.getId(), savedOrder.getCustomerId(), currentStatus, newStatus, OffsetDateTime.now()));
+        return savedOrder;
     }
 
     /**
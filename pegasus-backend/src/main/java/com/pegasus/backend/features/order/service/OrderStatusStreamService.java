@@ -0,0 +1,197 @@
+package com.pegasus.backend.features.order.service;
+
+import com.pegasus.backend.features.order.config.OrderStatusStreamConfig;
+import com.pegasus.backend.features.order.dto.OrderStatusEventResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Suscriptores SSE de cambios de estado de pedidos en este nodo.
+ *
+ * Cada suscriptor tiene un buffer acotado; los eventos se encolan sin bloquear a quien
+ * los publica y un pool fijo de hilos los envía. Un suscriptor que llena su buffer
+ * (cliente lento) se desconecta: al reconectar debe recargar sus pedidos. Las conexiones
+ * inactivas solo cuestan un heartbeat periódico.
+ */
+@Service
+@Slf4j
+public class OrderStatusStreamService {
+
+    private static final String EVENT_NAME = "order-status";
+
+    private final OrderStatusStreamConfig config;
+    private final ExecutorService deliveryExecutor;
+
+    /**
+     * Suscriptores del backoffice (todos los pedidos)
+     */
+    private final Set<Subscriber> staffSubscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Suscriptores del storefront por cliente (solo sus pedidos)
+     */
+    private final Map<Long, Set<Subscriber>> customerSubscribers = new ConcurrentHashMap<>();
+
+    public OrderStatusStreamService(OrderStatusStreamConfig config) {
+        this.config = config;
+        this.deliveryExecutor = Executors.newFixedThreadPool(config.getDeliveryThreads());
+    }
+
+    /**
+     * Suscribirse a los cambios de estado de todos los pedidos (backoffice).
+     */
+    public SseEmitter subscribeStaff() {
+        return register(new Subscriber(null, newEmitter()));
+    }
+
+    /**
+     * Suscribirse a los cambios de estado de los pedidos de un cliente (storefront).
+     */
+    public SseEmitter subscribeCustomer(Long customerId) {
+        return register(new Subscriber(customerId, newEmitter()));
+    }
+
+    /**
+     * Entregar un evento ya confirmado a los suscriptores de este nodo.
+     */
+    public void deliver(OrderStatusEventResponse event) {
+        staffSubscribers.forEach(subscriber -> subscriber.offer(event));
+        Set<Subscriber> subscribers = customerSubscribers.get(event.customerId());
+        if (subscribers != null) {
+            subscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    /**
+     * Enviar un comentario a cada conexión para que proxies y clientes no la den por muerta.
+     * El envío lo hacen los hilos de entrega; el hilo del scheduler solo lo encola.
+     */
+    @Scheduled(fixedDelayString = "${order.status-stream.heartbeat-interval-ms:20000}")
+    public void heartbeat() {
+        staffSubscribers.forEach(Subscriber::heartbeat);
+        customerSubscribers.values().forEach(subscribers -> subscribers.forEach(Subscriber::heartbeat));
+    }
+
+    /**
+     * Número de conexiones abiertas en este nodo.
+     */
+    public int getSubscriberCount() {
+        return staffSubscribers.size()
+                + customerSubscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deliveryExecutor.shutdownNow();
+        staffSubscribers.forEach(subscriber -> subscriber.emitter.complete());
+        customerSubscribers.values().forEach(subscribers -> subscribers.forEach(s -> s.emitter.complete()));
+    }
+
+    private SseEmitter newEmitter() {
+        return new SseEmitter(config.getEmitterTimeoutMs());
+    }
+
+    private SseEmitter register(Subscriber subscriber) {
+        SseEmitter emitter = subscriber.emitter;
+        emitter.onCompletion(() -> unregister(subscriber));
+        emitter.onTimeout(() -> unregister(subscriber));
+        emitter.onError(e -> unregister(subscriber));
+
+        if (subscriber.customerId == null) {
+            staffSubscribers.add(subscriber);
+        } else {
+            customerSubscribers.computeIfAbsent(subscriber.customerId, k -> ConcurrentHashMap.newKeySet())
+                    .add(subscriber);
+        }
+        return emitter;
+    }
+
+    private void unregister(Subscriber subscriber) {
+        if (subscriber.customerId == null) {
+            staffSubscribers.remove(subscriber);
+            return;
+        }
+        customerSubscribers.computeIfPresent(subscriber.customerId, (k, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    /**
+     * Conexión SSE con su buffer de eventos pendientes.
+     * Como máximo un hilo de envío la atiende a la vez.
+     */
+    private final class Subscriber {
+
+        private final Long customerId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<OrderStatusEventResponse> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean heartbeatPending = new AtomicBoolean();
+
+        private Subscriber(Long customerId, SseEmitter emitter) {
+            this.customerId = customerId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(config.getBufferSize());
+        }
+
+        void offer(OrderStatusEventResponse event) {
+            if (!buffer.offer(event)) {
+                log.debug("Order status subscriber buffer full, closing connection (customer: {})", customerId);
+                unregister(this);
+                emitter.complete();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        void heartbeat() {
+            heartbeatPending.set(true);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                deliveryExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                if (heartbeatPending.getAndSet(false)) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+                OrderStatusEventResponse event;
+                while ((event = buffer.poll()) != null) {
+                    emitter.send(SseEmitter.event()
+                            .name(EVENT_NAME)
+                            .data(event, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                unregister(this);
+                buffer.clear();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // Eventos encolados mientras se liberaba el turno
+            if (!buffer.isEmpty() || heartbeatPending.get()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
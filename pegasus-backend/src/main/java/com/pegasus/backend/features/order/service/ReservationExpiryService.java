@@ -0,0 +1,119 @@
+package com.pegasus.backend.features.order.service;
+
+import com.pegasus.backend.features.inventory.dto.ReservedStockLine;
+import com.pegasus.backend.features.inventory.service.StockService;
+import com.pegasus.backend.features.order.config.ReservationExpiryConfig;
+import com.pegasus.backend.features.order.entity.Order;
+import com.pegasus.backend.features.order.entity.OrderAllocation;
+import com.pegasus.backend.features.order.event.OrderStatusChangedEvent;
+import com.pegasus.backend.features.order.repository.OrderAllocationRepository;
+import com.pegasus.backend.features.order.repository.OrderRepository;
+import com.pegasus.backend.features.order.repository.OrderStatusHistoryRepository;
+import com.pegasus.backend.shared.enums.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Proceso programado que cancela los pedidos PENDING / AWAIT_PAYMENT cuya reserva
+ * venció sin pago y libera su stock reservado.
+ *
+ * Cada lote se procesa en una transacción: los pedidos se bloquean con
+ * FOR UPDATE SKIP LOCKED (varios nodos toman lotes distintos sin esperarse) y la
+ * liberación de stock, los movimientos, el cambio de estado y el historial se
+ * aplican con una sentencia cada uno, sin importar el tamaño del lote.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationExpiryService {
+
+    private static final String EXPIRY_COMMENT = "Pedido cancelado automáticamente - Reserva vencida sin pago";
+
+    private final ReservationExpiryConfig config;
+    private final OrderRepository orderRepository;
+    private final OrderAllocationRepository orderAllocationRepository;
+    private final OrderStatusHistoryRepository orderStatusHistoryRepository;
+    private final StockService stockService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Cancelar lotes de reservas vencidas hasta agotarlas o alcanzar el máximo por ejecución.
+     */
+    @Scheduled(fixedDelayString = "${order.reservation-expiry.interval-ms:60000}")
+    public void expireReservations() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        int total = 0;
+        for (int batch = 0; batch < config.getMaxBatchesPerRun(); batch++) {
+            Integer expired = transactionTemplate.execute(status -> expireBatch());
+            total += expired;
+            if (expired < config.getBatchSize()) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Expired {} unpaid order reservations", total);
+        }
+    }
+
+    /**
+     * Bloquear y cancelar un lote (debe ejecutarse dentro de una transacción).
+     *
+     * @return Número de pedidos cancelados
+     */
+    private int expireBatch() {
+        OffsetDateTime now = OffsetDateTime.now();
+        Map<String, Integer> ttlByMethod = config.getTtlMinutesByPaymentMethod();
+        String[] methodNames = ttlByMethod.keySet().toArray(new String[0]);
+        Integer[] ttlMinutes = new Integer[methodNames.length];
+        int shortestTtl = config.getDefaultTtlMinutes();
+        for (int i = 0; i < methodNames.length; i++) {
+            ttlMinutes[i] = ttlByMethod.get(methodNames[i]);
+            shortestTtl = Math.min(shortestTtl, ttlMinutes[i]);
+        }
+
+        List<Long> orderIds = orderRepository.lockExpiredReservations(methodNames, ttlMinutes,
+                config.getDefaultTtlMinutes(), now.minusMinutes(shortestTtl), now, config.getBatchSize());
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+
+        // Estado previo y cliente para los eventos (los pedidos ya están bloqueados)
+        List<Order> orders = orderRepository.findAllById(orderIds);
+
+        // Liberar lo reservado en cada almacén (una llamada por almacén)
+        Map<Long, List<ReservedStockLine>> linesByWarehouse = orderAllocationRepository.findByOrderIdIn(orderIds)
+                .stream()
+                .collect(Collectors.groupingBy(OrderAllocation::getWarehouseId, Collectors.mapping(
+                        a -> new ReservedStockLine(a.getOrderId(), a.getVariantId(), a.getQuantity()),
+                        Collectors.toList())));
+        linesByWarehouse.forEach((warehouseId, lines) -> stockService.releaseReservedStockBatch(warehouseId,
+                lines, "Liberación de stock reservado por vencimiento de pedido"));
+
+        orderRepository.updateStatusBulk(orderIds, OrderStatus.CANCELLED, now);
+        orderStatusHistoryRepository.insertBatch(orderIds.toArray(new Long[0]), OrderStatus.CANCELLED.name(),
+                EXPIRY_COMMENT, null);
+
+        for (Order order : orders) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                    order.getId(), order.getCustomerId(), order.getStatus(), OrderStatus.CANCELLED, now));
+        }
+
+        log.debug("Expired reservation batch - orders: {}, warehouses: {}", orderIds.size(),
+                linesByWarehouse.size());
+        return orderIds.size();
+    }
+}
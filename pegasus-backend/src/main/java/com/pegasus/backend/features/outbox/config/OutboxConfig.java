@@ -0,0 +1,45 @@
+package com.pegasus.backend.features.outbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración del despachador del outbox.
+ * Cargada desde application.properties con prefijo "outbox"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "outbox")
+@Data
+public class OutboxConfig {
+
+    /**
+     * Intervalo (ms) entre rondas de despacho.
+     */
+    private long pollIntervalMs = 500;
+
+    /**
+     * Eventos máximos por ronda.
+     */
+    private int batchSize = 50;
+
+    /**
+     * Intentos antes de marcar un evento como FAILED.
+     */
+    private int maxAttempts = 10;
+
+    /**
+     * Espera (ms) antes del primer reintento; se duplica en cada intento.
+     */
+    private long retryDelayMs = 5000;
+
+    /**
+     * Espera máxima (ms) entre reintentos.
+     */
+    private long maxRetryDelayMs = 600000;
+
+    /**
+     * Horas que se conservan los eventos procesados.
+     */
+    private long retentionHours = 72;
+}
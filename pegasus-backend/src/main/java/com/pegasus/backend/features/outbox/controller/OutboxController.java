@@ -0,0 +1,45 @@
+package com.pegasus.backend.features.outbox.controller;
+
+import com.pegasus.backend.features.outbox.dto.OutboxEventResponse;
+import com.pegasus.backend.features.outbox.service.OutboxService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controlador REST para revisar los eventos del outbox que agotaron sus intentos
+ */
+@RestController
+@RequestMapping("/api/admin/outbox")
+@RequiredArgsConstructor
+@Tag(name = "Outbox", description = "Eventos asíncronos fallidos")
+@PreAuthorize("hasRole('ADMIN')")
+public class OutboxController {
+
+    private final OutboxService outboxService;
+
+    @GetMapping("/failed")
+    @Operation(summary = "Listar eventos FAILED")
+    public ResponseEntity<Page<OutboxEventResponse>> getFailedEvents(@PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(outboxService.getFailedEvents(pageable));
+    }
+
+    @PostMapping("/{id}/requeue")
+    @Operation(summary = "Reencolar evento FAILED", description = "Vuelve a PENDING con los intentos a cero")
+    public ResponseEntity<OutboxEventResponse> requeue(@PathVariable Long id) {
+        return ResponseEntity.ok(outboxService.requeue(id));
+    }
+
+    @PostMapping("/{id}/resolve")
+    @Operation(summary = "Resolver evento FAILED",
+            description = "Lo marca como procesado sin ejecutarlo y libera los siguientes eventos de su agregado")
+    public ResponseEntity<OutboxEventResponse> resolve(@PathVariable Long id) {
+        return ResponseEntity.ok(outboxService.resolve(id));
+    }
+}
@@ -0,0 +1,18 @@
+package com.pegasus.backend.features.outbox.dto;
+
+import com.pegasus.backend.features.outbox.entity.OutboxStatus;
+
+import java.time.OffsetDateTime;
+
+public record OutboxEventResponse(
+        Long id,
+        String aggregateType,
+        Long aggregateId,
+        String eventType,
+        OutboxStatus status,
+        Integer attempts,
+        OffsetDateTime nextAttemptAt,
+        String lastError,
+        OffsetDateTime createdAt,
+        OffsetDateTime processedAt) {
+}
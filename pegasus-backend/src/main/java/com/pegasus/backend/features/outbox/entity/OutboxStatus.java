@@ -0,0 +1,10 @@
+package com.pegasus.backend.features.outbox.entity;
+
+/**
+ * Estado de un evento del outbox
+ */
+public enum OutboxStatus {
+    PENDING,
+    PROCESSED,
+    FAILED
+}
@@ -0,0 +1,27 @@
+package com.pegasus.backend.features.outbox.mapper;
+
+import com.pegasus.backend.features.outbox.dto.OutboxEventResponse;
+import com.pegasus.backend.features.outbox.entity.OutboxEvent;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OutboxEventMapper {
+
+    public OutboxEventResponse toResponse(OutboxEvent event) {
+        if (event == null) {
+            return null;
+        }
+
+        return new OutboxEventResponse(
+                event.getId(),
+                event.getAggregateType(),
+                event.getAggregateId(),
+                event.getEventType(),
+                event.getStatus(),
+                event.getAttempts(),
+                event.getNextAttemptAt(),
+                event.getLastError(),
+                event.getCreatedAt(),
+                event.getProcessedAt());
+    }
+}
@@ -0,0 +1,63 @@
+package com.pegasus.backend.features.outbox.repository;
+
+import com.pegasus.backend.features.outbox.entity.OutboxEvent;
+import com.pegasus.backend.features.outbox.entity.OutboxStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+/**
+ * Repositorio para OutboxEvent
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Bloquear el siguiente evento pendiente y vencido. Los eventos de un mismo agregado
+     * se entregan en orden: solo se toma un evento si no hay otro anterior pendiente o
+     * fallido. Tras un FAILED, los eventos siguientes del agregado esperan a que ese
+     * evento se reencole o se dé por resuelto (ver OutboxService).
+     * Con SKIP LOCKED varios nodos despachan eventos distintos a la vez.
+     */
+    @Query(value = """
+            SELECT * FROM outbox_events e
+            WHERE e.status = 'PENDING'
+            AND e.next_attempt_at <= :now
+            AND NOT EXISTS (
+                SELECT 1 FROM outbox_events prev
+                WHERE prev.aggregate_type = e.aggregate_type
+                AND prev.aggregate_id = e.aggregate_id
+                AND prev.status IN ('PENDING', 'FAILED')
+                AND prev.id < e.id
+            )
+            ORDER BY e.next_attempt_at, e.id
+            LIMIT 1
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    Optional<OutboxEvent> lockNextDue(@Param("now") OffsetDateTime now);
+
+    /**
+     * Buscar eventos por estado (p. ej. los FAILED pendientes de revisión)
+     */
+    Page<OutboxEvent> findByStatus(OutboxStatus status, Pageable pageable);
+
+    /**
+     * Eliminar los eventos procesados antes de la fecha indicada
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            DELETE FROM OutboxEvent e
+            WHERE e.status = com.pegasus.backend.features.outbox.entity.OutboxStatus.PROCESSED
+            AND e.processedAt < :before
+            """)
+    int deleteProcessedBefore(@Param("before") OffsetDateTime before);
+}
@@ -0,0 +1,128 @@
+package com.pegasus.backend.features.outbox.service;
+
+import com.pegasus.backend.features.outbox.config.OutboxConfig;
+import com.pegasus.backend.features.outbox.entity.OutboxEvent;
+import com.pegasus.backend.features.outbox.entity.OutboxStatus;
+import com.pegasus.backend.features.outbox.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Despachador asíncrono del outbox.
+ *
+ * Cada evento se procesa en su propia transacción: se bloquea con FOR UPDATE SKIP LOCKED
+ * (varios nodos despachan eventos distintos a la vez), se entrega a su handler, que
+ * confirma su trabajo en una transacción propia, y se marca como PROCESSED. Si el handler
+ * falla, el evento se reprograma con espera exponencial y pasa a FAILED al agotar los
+ * intentos. Los eventos de un mismo agregado se entregan en el orden en que se registraron;
+ * un evento FAILED detiene a los siguientes de su agregado hasta que se reencola o se da
+ * por resuelto desde {@link OutboxService}.
+ */
+@Service
+@Slf4j
+public class OutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final OutboxConfig config;
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, OutboxHandler> handlers = new HashMap<>();
+
+    public OutboxDispatcher(
+            OutboxConfig config,
+            OutboxEventRepository outboxEventRepository,
+            TransactionTemplate transactionTemplate,
+            List<OutboxHandler> handlers) {
+        this.config = config;
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        for (OutboxHandler handler : handlers) {
+            for (String eventType : handler.eventTypes()) {
+                if (this.handlers.put(eventType, handler) != null) {
+                    throw new IllegalStateException("Más de un handler para el evento " + eventType);
+                }
+            }
+        }
+    }
+
+    /**
+     * Procesar los eventos vencidos hasta agotarlos o alcanzar el tamaño de lote.
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:500}")
+    public void dispatch() {
+        for (int i = 0; i < config.getBatchSize(); i++) {
+            Boolean dispatched = transactionTemplate.execute(status -> dispatchNext());
+            if (!Boolean.TRUE.equals(dispatched)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Eliminar los eventos procesados fuera del periodo de retención.
+     */
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval-ms:3600000}")
+    public void deleteProcessedEvents() {
+        int deleted = outboxEventRepository.deleteProcessedBefore(
+                OffsetDateTime.now().minusHours(config.getRetentionHours()));
+        if (deleted > 0) {
+            log.info("Deleted {} processed outbox events", deleted);
+        }
+    }
+
+    /**
+     * Bloquear y procesar el siguiente evento (debe ejecutarse dentro de una transacción).
+     *
+     * @return false si no hay eventos vencidos
+     */
+    private boolean dispatchNext() {
+        Optional<OutboxEvent> next = outboxEventRepository.lockNextDue(OffsetDateTime.now());
+        if (next.isEmpty()) {
+            return false;
+        }
+
+        OutboxEvent event = next.get();
+        event.setAttempts(event.getAttempts() + 1);
+        try {
+            OutboxHandler handler = handlers.get(event.getEventType());
+            if (handler == null) {
+                throw new IllegalStateException("No hay handler para el evento " + event.getEventType());
+            }
+            handler.handle(event);
+            event.setStatus(OutboxStatus.PROCESSED);
+            event.setProcessedAt(OffsetDateTime.now());
+            event.setLastError(null);
+        } catch (RuntimeException e) {
+            scheduleRetry(event, e);
+        }
+        outboxEventRepository.save(event);
+        return true;
+    }
+
+    private void scheduleRetry(OutboxEvent event, RuntimeException e) {
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        event.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+
+        if (event.getAttempts() >= config.getMaxAttempts()) {
+            event.setStatus(OutboxStatus.FAILED);
+            log.error("Outbox event {} ({} {} {}) failed after {} attempts", event.getId(), event.getEventType(),
+                    event.getAggregateType(), event.getAggregateId(), event.getAttempts(), e);
+            return;
+        }
+
+        long delay = config.getRetryDelayMs() << Math.min(event.getAttempts() - 1, 20);
+        delay = Math.min(delay, config.getMaxRetryDelayMs());
+        event.setNextAttemptAt(OffsetDateTime.now().plusNanos(delay * 1_000_000));
+        log.warn("Outbox event {} ({}) failed, attempt {} - retrying in {} ms: {}", event.getId(),
+                event.getEventType(), event.getAttempts(), delay, e.getMessage());
+    }
+}
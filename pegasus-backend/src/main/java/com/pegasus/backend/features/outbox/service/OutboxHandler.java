@@ -0,0 +1,24 @@
+package com.pegasus.backend.features.outbox.service;
+
+import com.pegasus.backend.features.outbox.entity.OutboxEvent;
+
+import java.util.Set;
+
+/**
+ * Procesador de un tipo de evento del outbox.
+ * Cada implementación debe ejecutar {@link #handle} en su propia transacción
+ * (REQUIRES_NEW) y ser idempotente: un evento puede entregarse más de una vez si
+ * el nodo cae entre el procesamiento y la confirmación del evento.
+ */
+public interface OutboxHandler {
+
+    /**
+     * Tipos de evento que procesa este handler
+     */
+    Set<String> eventTypes();
+
+    /**
+     * Procesar el evento. Una excepción provoca un reintento con espera creciente.
+     */
+    void handle(OutboxEvent event);
+}
@@ -0,0 +1,97 @@
+package com.pegasus.backend.features.outbox.service;
+
+import com.pegasus.backend.exception.BadRequestException;
+import com.pegasus.backend.exception.ResourceNotFoundException;
+import com.pegasus.backend.features.outbox.dto.OutboxEventResponse;
+import com.pegasus.backend.features.outbox.entity.OutboxEvent;
+import com.pegasus.backend.features.outbox.entity.OutboxStatus;
+import com.pegasus.backend.features.outbox.mapper.OutboxEventMapper;
+import com.pegasus.backend.features.outbox.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+/**
+ * Servicio para registrar eventos en el outbox y gestionar los que agotaron sus intentos
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxEventMapper outboxEventMapper;
+
+    /**
+     * Registrar un evento dentro de la transacción actual (obligatoria): se confirma
+     * o se descarta junto con el cambio que lo origina.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent enqueue(String aggregateType, Long aggregateId, String eventType,
+            Map<String, Object> payload) {
+        OutboxEvent event = outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateType(aggregateType)
+                .aggregateId(aggregateId)
+                .eventType(eventType)
+                .payload(payload)
+                .nextAttemptAt(OffsetDateTime.now())
+                .build());
+        log.debug("Outbox event {} enqueued - {} {} {}", event.getId(), eventType, aggregateType, aggregateId);
+        return event;
+    }
+
+    /**
+     * Listar los eventos FAILED (detienen a los siguientes eventos de su agregado)
+     */
+    @Transactional(readOnly = true)
+    public Page<OutboxEventResponse> getFailedEvents(Pageable pageable) {
+        return outboxEventRepository.findByStatus(OutboxStatus.FAILED, pageable)
+                .map(outboxEventMapper::toResponse);
+    }
+
+    /**
+     * Volver a encolar un evento FAILED con los intentos a cero (p. ej. tras corregir
+     * la causa del fallo). Se entrega en la siguiente ronda del despachador.
+     */
+    @Transactional
+    public OutboxEventResponse requeue(Long id) {
+        OutboxEvent event = findFailedEvent(id);
+        event.setStatus(OutboxStatus.PENDING);
+        event.setAttempts(0);
+        event.setNextAttemptAt(OffsetDateTime.now());
+        log.info("Outbox event {} ({} {} {}) requeued", id, event.getEventType(), event.getAggregateType(),
+                event.getAggregateId());
+        return outboxEventMapper.toResponse(outboxEventRepository.save(event));
+    }
+
+    /**
+     * Dar por resuelto un evento FAILED sin procesarlo (p. ej. si el trabajo se hizo a
+     * mano), liberando a los siguientes eventos de su agregado.
+     */
+    @Transactional
+    public OutboxEventResponse resolve(Long id) {
+        OutboxEvent event = findFailedEvent(id);
+        event.setStatus(OutboxStatus.PROCESSED);
+        event.setProcessedAt(OffsetDateTime.now());
+        log.info("Outbox event {} ({} {} {}) resolved manually", id, event.getEventType(),
+                event.getAggregateType(), event.getAggregateId());
+        return outboxEventMapper.toResponse(outboxEventRepository.save(event));
+    }
+
+    private OutboxEvent findFailedEvent(Long id) {
+        OutboxEvent event = outboxEventRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Evento de outbox no encontrado con ID: " + id));
+        if (event.getStatus() != OutboxStatus.FAILED) {
+            throw new BadRequestException("Solo se pueden reencolar o resolver eventos FAILED. Estado actual: "
+                    + event.getStatus());
+        }
+        return event;
+    }
+}
@@ -2,6 +2,7 @@ package com.pegasus.backend.features.purchase.service;
 
 import com.pegasus.backend.exception.BadRequestException;
 import com.pegasus.backend.exception.ResourceNotFoundException;
+import com.pegasus.backend.features.inventory.dto.ReceivedStockLine;
 import com.pegasus.backend.features.inventory.service.StockService;
 import com.pegasus.backend.features.purchase.dto.*;
 import com.pegasus.backend.features.purchase.entity.Purchase;
@@ -21,6 +22,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -158,22 +160,19 @@ public class PurchaseService {
                 throw new BadRequestException("No se puede recepcionar una compra sin ítems");
             }
 
-            // Al recepcionar: incrementar stock por cada ítem y registrar movimientos
-            // (kardex)
+            // Al recepcionar: incrementar stock de los ítems pendientes y registrar
+            // movimientos (kardex), en lote
+            List<ReceivedStockLine> lines = new ArrayList<>();
             for (PurchaseItem item : purchase.getItems()) {
                 int alreadyReceived = item.getReceivedQuantity() == null ? 0 : item.getReceivedQuantity();
                 int remaining = item.getQuantity() - alreadyReceived;
                 if (remaining > 0) {
-                    stockService.increaseStock(
-                            purchase.getWarehouseId(),
-                            item.getVariantId(),
-                            remaining,
-                            item.getUnitCost(),
-                            purchase.getId(),
-                            purchase.getUserId());
+                    lines.add(new ReceivedStockLine(item.getVariantId(), remaining, item.getUnitCost()));
                     item.setReceivedQuantity(item.getQuantity());
                 }
             }
+            stockService.increaseStockBatch(purchase.getWarehouseId(), lines, purchase.getId(),
+                    purchase.getUserId());
         }
 
         purchase.setStatus(targetStatus);
@@ -194,7 +193,8 @@ public class PurchaseService {
             throw new BadRequestException("No se recibieron ítems válidos");
         }
 
-        // Process each receive item
+        // Process each receive item (stock and movements are written in batch afterwards)
+        List<ReceivedStockLine> lines = new ArrayList<>();
         for (var ri : request.items()) {
             PurchaseItem item = purchase.getItems().stream()
                     .filter(pi -> pi.getId().equals(ri.itemId()))
@@ -206,20 +206,17 @@ public class PurchaseService {
                 throw new BadRequestException("Cantidad a recepcionar inválida para item: " + ri.itemId());
             }
 
-            // Increase stock and record movement
-            stockService.increaseStock(
-                    purchase.getWarehouseId(),
-                    item.getVariantId(),
-                    ri.quantity(),
-                    item.getUnitCost(),
-                    purchase.getId(),
-                    purchase.getUserId());
+            lines.add(new ReceivedStockLine(item.getVariantId(), ri.quantity(), item.getUnitCost()));
 
             // Update received quantity
             int newReceived = (item.getReceivedQuantity() == null ? 0 : item.getReceivedQuantity()) + ri.quantity();
             item.setReceivedQuantity(newReceived);
         }
 
+        // Increase stock and record movements
+        stockService.increaseStockBatch(purchase.getWarehouseId(), lines, purchase.getId(),
+                purchase.getUserId());
+
         // If all items fully received, mark purchase as RECEIVED
         boolean allReceived = purchase.getItems().stream()
                 .allMatch(pi -> (pi.getReceivedQuantity() != null ? pi.getReceivedQuantity() : 0) >= pi.getQuantity());
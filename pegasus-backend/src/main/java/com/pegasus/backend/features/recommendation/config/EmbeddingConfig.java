@@ -48,6 +48,34 @@ public class EmbeddingConfig {
      */
     private int maxTextLength = 512;
 
+    /**
+     * Store cached embeddings as int8 with a per-vector scale (4x less memory).
+     * Similarity is then computed on the quantized vectors (approximate scores).
+     */
+    private boolean quantized = false;
+
+    /**
+     * Half-life (in days) of a purchase in the customer profile vector.
+     * A purchase this old weighs half as much as one made today.
+     */
+    private int profileHalfLifeDays = 90;
+
+    /**
+     * Weight applied to returned products in the customer profile
+     * (relative to a purchase of the same age). Returns push the profile away.
+     */
+    private double returnWeight = 1.0;
+
+    /**
+     * Maximum number of cached customer profiles (least recently used are evicted first).
+     */
+    private int profileCacheMaxEntries = 10000;
+
+    /**
+     * Time-to-live of a cached customer profile, in minutes.
+     */
+    private long profileCacheTtlMinutes = 60;
+
     /**
      * Check if the service is properly configured.
      */
@@ -0,0 +1,30 @@
+package com.pegasus.backend.features.recommendation.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the recommendation result cache.
+ * Loaded from application.properties with prefix "recommendation.cache"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "recommendation.cache")
+@Data
+public class RecommendationCacheConfig {
+
+    /**
+     * Whether computed recommendation responses are cached.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of cached responses (least recently used are evicted first).
+     */
+    private int maxEntries = 1000;
+
+    /**
+     * Time-to-live of a cached response, in seconds.
+     */
+    private long ttlSeconds = 600;
+}
@@ -28,6 +28,7 @@ public class RecommendationController {
      *
      * @param productId The product ID to find recommendations for
      * @param limit Maximum number of recommendations (default: 6, max: 12)
+     * @param includeSubcategories Also consider products of descendant categories
      * @return List of similar products
      */
     @GetMapping("/similar/{productId}")
@@ -40,9 +41,12 @@ public class RecommendationController {
             @Parameter(description = "Product ID to find recommendations for")
             @PathVariable Long productId,
             @Parameter(description = "Maximum number of recommendations (default: 6, max: 12)")
-            @RequestParam(defaultValue = "6") int limit
+            @RequestParam(defaultValue = "6") int limit,
+            @Parameter(description = "Include products from subcategories (default: false)")
+            @RequestParam(defaultValue = "false") boolean includeSubcategories
     ) {
-        RecommendationResponse response = recommendationService.getSimilarProducts(productId, limit);
+        RecommendationResponse response = recommendationService.getSimilarProducts(
+                productId, limit, includeSubcategories);
         return ResponseEntity.ok(response);
     }
 }
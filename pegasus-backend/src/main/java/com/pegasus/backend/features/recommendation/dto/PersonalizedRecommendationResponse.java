@@ -0,0 +1,30 @@
+package com.pegasus.backend.features.recommendation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for personalized "for you" recommendations API response.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PersonalizedRecommendationResponse {
+
+    /** ID of the customer the recommendations were built for */
+    private Long customerId;
+
+    /** List of recommended products */
+    private List<RecommendationItem> recommendations;
+
+    /** Total number of recommendations returned */
+    private int totalRecommendations;
+
+    /** Method used to generate recommendations */
+    private RecommendationResponse.RecommendationMethod method;
+}
@@ -36,6 +36,8 @@ public class RecommendationItem {
     public enum RecommendationReason {
         /** AI-based content similarity using embeddings */
         CONTENT_SIMILARITY,
+        /** AI-based similarity to the customer's purchase history */
+        PURCHASE_HISTORY,
         /** Same category as the viewed product */
         SAME_CATEGORY,
         /** Same brand as the viewed product */
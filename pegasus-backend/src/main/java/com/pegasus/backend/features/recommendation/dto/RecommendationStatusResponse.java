@@ -31,6 +31,24 @@ public class RecommendationStatusResponse {
     /** Embedding vector dimension */
     private int embeddingDimension;
 
+    /** Whether embeddings are stored quantized (int8) */
+    private boolean quantized;
+
+    /** Number of cached recommendation responses */
+    private int cacheSize;
+
+    /** Requests served from the recommendation cache */
+    private long cacheHits;
+
+    /** Requests that had to compute recommendations */
+    private long cacheMisses;
+
+    /** Cached responses evicted by size or TTL */
+    private long cacheEvictions;
+
+    /** Cached responses invalidated by product, price, stock or index changes */
+    private long cacheInvalidations;
+
     /** Last time embeddings were regenerated */
     private LocalDateTime lastReindexAt;
 
@@ -0,0 +1,243 @@
+package com.pegasus.backend.features.recommendation.service;
+
+import com.pegasus.backend.features.order.entity.OrderItem;
+import com.pegasus.backend.features.order.event.OrderStatusChangedEvent;
+import com.pegasus.backend.features.order.repository.OrderItemRepository;
+import com.pegasus.backend.features.recommendation.config.EmbeddingConfig;
+import com.pegasus.backend.features.rma.repository.RmaItemRepository;
+import com.pegasus.backend.shared.enums.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service for building and caching customer profile vectors.
+ * A profile is the recency-weighted sum of the embeddings of the products a customer
+ * bought (positive weight) or returned (negative weight).
+ * Profiles are built once from order history and then updated incrementally when
+ * an order is paid, so the recommendation request path never scans order history.
+ * Each paid order is folded in at most once, whether it came from the history
+ * query or from the status change event.
+ * The cache is bounded (LRU by size plus a TTL); evicted profiles are rebuilt on demand.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerProfileService {
+
+    /** Order statuses that count as a purchase for the profile */
+    private static final Set<OrderStatus> PURCHASED_STATUSES = EnumSet.of(
+            OrderStatus.PAID, OrderStatus.PROCESSING, OrderStatus.SHIPPED, OrderStatus.DELIVERED);
+
+    private final EmbeddingService embeddingService;
+    private final EmbeddingConfig config;
+    private final OrderItemRepository orderItemRepository;
+    private final RmaItemRepository rmaItemRepository;
+
+    /** Time source for the cache TTL and recency decay */
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * In-memory cache of customer profiles, in access order (guarded by itself).
+     * Key: customerId, Value: profile (immutable, replaced on update) and its expiry
+     */
+    private final LinkedHashMap<Long, CachedProfile> profileCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedProfile> eldest) {
+            return size() > config.getProfileCacheMaxEntries();
+        }
+    };
+
+    /**
+     * Get the profile of a customer, building it from order history on first access.
+     *
+     * @param customerId Customer ID
+     * @return Customer profile (vector may be null if no purchased product has an embedding)
+     */
+    public CustomerProfile getProfile(Long customerId) {
+        synchronized (profileCache) {
+            CachedProfile cached = profileCache.get(customerId);
+            if (cached != null && cached.expiresAt() >= clock.millis()) {
+                return cached.profile();
+            }
+        }
+
+        // Built outside the map lock: the history query must not block other customers
+        CustomerProfile built = buildProfile(customerId);
+        synchronized (profileCache) {
+            CachedProfile cached = profileCache.get(customerId);
+            if (cached != null && cached.expiresAt() >= clock.millis()) {
+                return cached.profile();
+            }
+            profileCache.put(customerId, new CachedProfile(built,
+                    clock.millis() + config.getProfileCacheTtlMinutes() * 60_000));
+            return built;
+        }
+    }
+
+    /**
+     * Update cached profiles when an order is paid, and evict them when a
+     * purchased order is cancelled or refunded (rebuilt lazily on next access).
+     */
+    @TransactionalEventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.customerId() == null || !isCached(event.customerId())) {
+            return;
+        }
+
+        try {
+            if (event.newStatus() == OrderStatus.PAID && !PURCHASED_STATUSES.contains(event.previousStatus())) {
+                List<OrderItem> items = orderItemRepository.findByOrderId(event.orderId());
+                synchronized (profileCache) {
+                    // Keeps the original expiry: the TTL also bounds drift from other sources
+                    profileCache.computeIfPresent(event.customerId(), (id, cached) -> new CachedProfile(
+                            applyPurchase(cached.profile(), event.orderId(), items, event.occurredAt()),
+                            cached.expiresAt()));
+                }
+                log.debug("Customer profile {} updated with order {}", event.customerId(), event.orderId());
+            } else if (PURCHASED_STATUSES.contains(event.previousStatus())
+                    && !PURCHASED_STATUSES.contains(event.newStatus())) {
+                evict(event.customerId());
+                log.debug("Customer profile {} evicted after order {} became {}",
+                        event.customerId(), event.orderId(), event.newStatus());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to update customer profile {}: {}", event.customerId(), e.getMessage());
+            evict(event.customerId());
+        }
+    }
+
+    /**
+     * Clear all cached profiles (e.g. after the embedding index is rebuilt).
+     */
+    public void clearProfiles() {
+        synchronized (profileCache) {
+            profileCache.clear();
+        }
+        log.info("Customer profile cache cleared");
+    }
+
+    /**
+     * Get the number of cached profiles.
+     */
+    public int getProfileCount() {
+        synchronized (profileCache) {
+            return profileCache.size();
+        }
+    }
+
+    /**
+     * Replace the time source (tests).
+     */
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    private boolean isCached(Long customerId) {
+        synchronized (profileCache) {
+            return profileCache.containsKey(customerId);
+        }
+    }
+
+    private void evict(Long customerId) {
+        synchronized (profileCache) {
+            profileCache.remove(customerId);
+        }
+    }
+
+    /**
+     * Build a profile from the full purchase and return history of a customer.
+     */
+    private CustomerProfile buildProfile(Long customerId) {
+        OffsetDateTime now = OffsetDateTime.now(clock);
+        float[] vector = null;
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> orderIds = new HashSet<>();
+
+        for (Object[] row : orderItemRepository.findPurchaseHistoryByCustomerId(customerId, PURCHASED_STATUSES)) {
+            Long productId = (Long) row[0];
+            productIds.add(productId);
+            orderIds.add((Long) row[3]);
+            double weight = ((Integer) row[1]) * decay((OffsetDateTime) row[2], now);
+            vector = embeddingService.addNormalizedEmbedding(productId, vector, weight);
+        }
+
+        for (Object[] row : rmaItemRepository.findReturnHistoryByCustomerId(customerId)) {
+            Long productId = (Long) row[0];
+            productIds.add(productId);
+            double weight = -config.getReturnWeight() * ((Integer) row[1]) * decay((OffsetDateTime) row[2], now);
+            vector = embeddingService.addNormalizedEmbedding(productId, vector, weight);
+        }
+
+        log.debug("Built profile for customer {} from {} products", customerId, productIds.size());
+        return new CustomerProfile(vector, Set.copyOf(productIds), Set.copyOf(orderIds), now);
+    }
+
+    /**
+     * Decay the profile to the event time and add the items of a newly paid order.
+     * The profile is returned unchanged if it already contains the order (built from
+     * history after the order was committed as paid).
+     */
+    private CustomerProfile applyPurchase(CustomerProfile profile, Long orderId, List<OrderItem> items,
+            OffsetDateTime at) {
+        if (profile.orderIds().contains(orderId)) {
+            return profile;
+        }
+
+        float[] vector = null;
+        if (profile.vector() != null) {
+            vector = profile.vector().clone();
+            float factor = (float) decay(profile.updatedAt(), at);
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= factor;
+            }
+        }
+
+        Set<Long> productIds = new HashSet<>(profile.purchasedProductIds());
+        for (OrderItem item : items) {
+            productIds.add(item.getProductId());
+            vector = embeddingService.addNormalizedEmbedding(item.getProductId(), vector, item.getQuantity());
+        }
+
+        Set<Long> orderIds = new HashSet<>(profile.orderIds());
+        orderIds.add(orderId);
+        return new CustomerProfile(vector, Set.copyOf(productIds), Set.copyOf(orderIds), at);
+    }
+
+    /**
+     * Exponential recency weight: 1.0 for an event at {@code now}, 0.5 after one half-life.
+     */
+    private double decay(OffsetDateTime eventAt, OffsetDateTime now) {
+        if (eventAt == null || config.getProfileHalfLifeDays() <= 0) {
+            return 1.0;
+        }
+        double ageDays = Math.max(0, Duration.between(eventAt, now).toSeconds()) / 86_400.0;
+        return Math.pow(0.5, ageDays / config.getProfileHalfLifeDays());
+    }
+
+    /**
+     * Cached customer profile.
+     *
+     * @param vector Profile vector, decayed to {@code updatedAt} (null if no embeddings matched)
+     * @param purchasedProductIds Products bought or returned, excluded from recommendations
+     * @param orderIds Paid orders already folded into the vector
+     * @param updatedAt Reference time of the vector weights
+     */
+    public record CustomerProfile(float[] vector, Set<Long> purchasedProductIds, Set<Long> orderIds,
+            OffsetDateTime updatedAt) {
+    }
+
+    private record CachedProfile(CustomerProfile profile, long expiresAt) {
+    }
+}
@@ -1,18 +1,32 @@
 package com.pegasus.backend.features.recommendation.service;
 
+import com.pegasus.backend.features.catalog.event.ProductCategoryChangedEvent;
 import com.pegasus.backend.features.recommendation.client.HuggingFaceClient;
 import com.pegasus.backend.features.recommendation.config.EmbeddingConfig;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for generating and caching text embeddings.
  * Embeddings are stored in-memory (ConcurrentHashMap) for simplicity.
  * No database dependency - embeddings regenerated on restart or via admin endpoint.
+ * With {@code ai.embedding.quantized=true} vectors are stored as int8 (see {@link QuantizedEmbedding}).
+ * Quantized search returns the int8 top-k without an exact float re-rank: the
+ * full-precision vectors are not kept anywhere (keeping them would cancel the 4x
+ * saving), and the int8 ranking alone keeps recall@10 around 0.98 against the exact
+ * search (EmbeddingServiceTest).
  */
 @Service
 @RequiredArgsConstructor
@@ -28,6 +42,30 @@ public class EmbeddingService {
      */
     private final Map<Long, float[]> embeddingCache = new ConcurrentHashMap<>();
 
+    /**
+     * In-memory cache for quantized product embeddings (used instead of
+     * {@link #embeddingCache} when quantized mode is enabled).
+     */
+    private final Map<Long, QuantizedEmbedding> quantizedCache = new ConcurrentHashMap<>();
+
+    /**
+     * Category partitions of the index, so similarity can run over the whole
+     * membership of a category without a database query.
+     * Key: categoryId, Value: ids of indexed products in that category
+     */
+    private final Map<Long, Set<Long>> categoryPartitions = new ConcurrentHashMap<>();
+
+    /**
+     * Category of each indexed product (reverse of {@link #categoryPartitions}).
+     */
+    private final Map<Long, Long> productCategories = new ConcurrentHashMap<>();
+
+    /**
+     * Version of the index, incremented on every change (used to invalidate
+     * results computed from an older index).
+     */
+    private final AtomicLong indexVersion = new AtomicLong();
+
     /**
      * Generate embedding vector for text.
      * Returns null if embedding generation fails (graceful degradation).
@@ -59,25 +97,80 @@ public class EmbeddingService {
     }
 
     /**
-     * Get cached embedding for a product.
+     * Check whether a product has a cached embedding.
+     *
+     * @param productId Product ID
+     * @return true if the product is indexed
+     */
+    public boolean hasEmbedding(Long productId) {
+        return config.isQuantized() ? quantizedCache.containsKey(productId) : embeddingCache.containsKey(productId);
+    }
+
+    /**
+     * Add the unit-length embedding of a product, times {@code weight}, to a vector.
+     * Reads the stored vector in place (no dequantized copy in quantized mode).
      *
      * @param productId Product ID
-     * @return Cached embedding or null if not cached
+     * @param target Vector to add to (allocated if null)
+     * @param weight Weight of the product (negative pushes the vector away)
+     * @return The updated vector, or {@code target} unchanged if the product has no embedding
      */
-    public float[] getCachedEmbedding(Long productId) {
-        return embeddingCache.get(productId);
+    public float[] addNormalizedEmbedding(Long productId, float[] target, double weight) {
+        if (weight == 0) {
+            return target;
+        }
+
+        if (config.isQuantized()) {
+            QuantizedEmbedding quantized = quantizedCache.get(productId);
+            if (quantized == null || quantized.norm() == 0) {
+                return target;
+            }
+            // The scale cancels out on normalization
+            float[] result = target != null ? target : new float[quantized.values().length];
+            double factor = weight / quantized.norm();
+            for (int i = 0; i < result.length; i++) {
+                result[i] += (float) (quantized.values()[i] * factor);
+            }
+            return result;
+        }
+
+        float[] embedding = embeddingCache.get(productId);
+        if (embedding == null) {
+            return target;
+        }
+        double norm = 0.0;
+        for (float v : embedding) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            return target;
+        }
+        float[] result = target != null ? target : new float[embedding.length];
+        double factor = weight / Math.sqrt(norm);
+        for (int i = 0; i < result.length; i++) {
+            result[i] += (float) (embedding[i] * factor);
+        }
+        return result;
     }
 
     /**
-     * Cache embedding for a product.
+     * Cache embedding for a product and add it to its category partition.
      *
      * @param productId Product ID
+     * @param categoryId Category of the product (may be null)
      * @param embedding Embedding vector
      */
-    public void cacheEmbedding(Long productId, float[] embedding) {
-        if (embedding != null) {
+    public void cacheEmbedding(Long productId, Long categoryId, float[] embedding) {
+        if (embedding == null) {
+            return;
+        }
+        if (config.isQuantized()) {
+            quantizedCache.put(productId, QuantizedEmbedding.of(embedding));
+        } else {
             embeddingCache.put(productId, embedding);
         }
+        assignCategory(productId, categoryId);
+        indexVersion.incrementAndGet();
     }
 
     /**
@@ -87,6 +180,22 @@ public class EmbeddingService {
      */
     public void removeCachedEmbedding(Long productId) {
         embeddingCache.remove(productId);
+        quantizedCache.remove(productId);
+        assignCategory(productId, null);
+        indexVersion.incrementAndGet();
+    }
+
+    /**
+     * Move an indexed product to its new category partition.
+     */
+    @TransactionalEventListener
+    public void onProductCategoryChanged(ProductCategoryChangedEvent event) {
+        if (productCategories.containsKey(event.productId())) {
+            assignCategory(event.productId(), event.newCategoryId());
+            indexVersion.incrementAndGet();
+            log.debug("Product {} moved from category partition {} to {}",
+                    event.productId(), event.previousCategoryId(), event.newCategoryId());
+        }
     }
 
     /**
@@ -94,6 +203,10 @@ public class EmbeddingService {
      */
     public void clearCache() {
         embeddingCache.clear();
+        quantizedCache.clear();
+        categoryPartitions.clear();
+        productCategories.clear();
+        indexVersion.incrementAndGet();
         log.info("Embedding cache cleared");
     }
 
@@ -103,7 +216,7 @@ public class EmbeddingService {
      * @return Number of products with cached embeddings
      */
     public int getCacheSize() {
-        return embeddingCache.size();
+        return config.isQuantized() ? quantizedCache.size() : embeddingCache.size();
     }
 
     /**
@@ -125,11 +238,231 @@ public class EmbeddingService {
     }
 
     /**
-     * Get all cached embeddings (for similarity calculation).
+     * Get the current index version.
+     *
+     * @return Counter incremented whenever an embedding or partition changes
+     */
+    public long getIndexVersion() {
+        return indexVersion.get();
+    }
+
+    /**
+     * Whether embeddings are stored quantized (int8).
+     */
+    public boolean isQuantized() {
+        return config.isQuantized();
+    }
+
+    /**
+     * Find the cached products most similar to a query vector.
+     * Keeps a bounded min-heap of size {@code limit}, so the scan never sorts the whole index.
+     *
+     * @param query Query vector (product embedding or customer profile)
+     * @param limit Maximum number of matches to return
+     * @param excludedProductIds Products that must not appear in the result
+     * @return Matches ordered by similarity (highest first)
+     */
+    public List<SimilarProduct> findMostSimilar(float[] query, int limit, Set<Long> excludedProductIds) {
+        return search(query, limit, excludedProductIds, null);
+    }
+
+    /**
+     * Find the products most similar to an indexed product within a set of categories,
+     * using its stored vector as the query (no copy in quantized mode).
+     * Scans the full membership of the category partitions (no database query).
+     *
+     * @param productId Indexed product used as the query
+     * @param limit Maximum number of matches to return
+     * @param excludedProductIds Products that must not appear in the result
+     * @param categoryIds Categories whose products are candidates
+     * @return Matches ordered by similarity (highest first), empty if the product is not indexed
+     */
+    public List<SimilarProduct> findMostSimilarToProductInCategories(Long productId, int limit,
+            Set<Long> excludedProductIds, Collection<Long> categoryIds) {
+        if (config.isQuantized()) {
+            QuantizedEmbedding query = quantizedCache.get(productId);
+            if (query == null || limit <= 0) {
+                return List.of();
+            }
+            return searchQuantized(query, limit, excludedProductIds, candidatesOf(categoryIds));
+        }
+        return search(embeddingCache.get(productId), limit, excludedProductIds, candidatesOf(categoryIds));
+    }
+
+    private List<Long> candidatesOf(Collection<Long> categoryIds) {
+        List<Long> candidates = new ArrayList<>();
+        for (Long categoryId : categoryIds) {
+            candidates.addAll(categoryPartitions.getOrDefault(categoryId, Set.of()));
+        }
+        return candidates;
+    }
+
+    /**
+     * Top-k search over the candidate products (the whole index when null).
+     */
+    private List<SimilarProduct> search(float[] query, int limit, Set<Long> excludedProductIds,
+            Collection<Long> candidateIds) {
+        if (query == null || limit <= 0) {
+            return List.of();
+        }
+        if (config.isQuantized()) {
+            return searchQuantized(QuantizedEmbedding.of(query), limit, excludedProductIds, candidateIds);
+        }
+
+        Collection<Long> ids = candidateIds != null ? candidateIds : embeddingCache.keySet();
+        TopK topK = new TopK(limit);
+        for (Long productId : ids) {
+            float[] embedding = embeddingCache.get(productId);
+            if (embedding != null && !excludedProductIds.contains(productId)) {
+                topK.offer(productId, cosineSimilarity(query, embedding));
+            }
+        }
+        return topK.sorted();
+    }
+
+    /**
+     * Quantized search: int8 cosine between the quantized query and each candidate.
+     * Scores are approximate (the stored vectors are not kept in full precision).
+     */
+    private List<SimilarProduct> searchQuantized(QuantizedEmbedding query, int limit,
+            Set<Long> excludedProductIds, Collection<Long> candidateIds) {
+        Collection<Long> ids = candidateIds != null ? candidateIds : quantizedCache.keySet();
+        TopK topK = new TopK(limit);
+        for (Long productId : ids) {
+            QuantizedEmbedding embedding = quantizedCache.get(productId);
+            if (embedding != null && !excludedProductIds.contains(productId)) {
+                topK.offer(productId, query.cosineSimilarity(embedding));
+            }
+        }
+        return topK.sorted();
+    }
+
+    /**
+     * Move a product between category partitions (null category removes it).
+     */
+    private void assignCategory(Long productId, Long categoryId) {
+        Long previous = categoryId != null
+                ? productCategories.put(productId, categoryId)
+                : productCategories.remove(productId);
+        if (previous != null && !previous.equals(categoryId)) {
+            categoryPartitions.computeIfPresent(previous, (id, members) -> {
+                members.remove(productId);
+                return members.isEmpty() ? null : members;
+            });
+        }
+        if (categoryId != null) {
+            // Added inside compute so a concurrent removal of an empty partition cannot orphan the set
+            categoryPartitions.compute(categoryId, (id, members) -> {
+                Set<Long> result = members != null ? members : ConcurrentHashMap.<Long>newKeySet();
+                result.add(productId);
+                return result;
+            });
+        }
+    }
+
+    /**
+     * Calculate cosine similarity between two vectors.
+     *
+     * @param a First vector
+     * @param b Second vector
+     * @return Cosine similarity value between -1 and 1 (1 = identical)
+     */
+    public double cosineSimilarity(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Vectors must have the same dimension");
+        }
+
+        double dotProduct = 0.0;
+        double normA = 0.0;
+        double normB = 0.0;
+
+        for (int i = 0; i < a.length; i++) {
+            dotProduct += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+
+        double denominator = Math.sqrt(normA) * Math.sqrt(normB);
+        return denominator == 0 ? 0 : dotProduct / denominator;
+    }
+
+    /**
+     * A product id paired with its similarity to a query vector.
+     */
+    public record SimilarProduct(Long productId, double score) {
+    }
+
+    /**
+     * Bounded min-heap keeping the {@code limit} best matches seen so far,
+     * so a scan never sorts the whole index.
+     */
+    private static final class TopK {
+
+        private final int limit;
+        private final PriorityQueue<SimilarProduct> heap;
+
+        TopK(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(SimilarProduct::score));
+        }
+
+        void offer(Long productId, double score) {
+            if (heap.size() < limit) {
+                heap.add(new SimilarProduct(productId, score));
+            } else if (score > heap.peek().score()) {
+                heap.poll();
+                heap.add(new SimilarProduct(productId, score));
+            }
+        }
+
+        List<SimilarProduct> sorted() {
+            List<SimilarProduct> result = new ArrayList<>(heap);
+            result.sort(Comparator.comparingDouble(SimilarProduct::score).reversed());
+            return result;
+        }
+    }
+
+    /**
+     * Embedding stored as int8 with a symmetric per-vector scale
+     * ({@code value ~= values[i] * scale}). 384 dims take 384 bytes instead of 1536.
      *
-     * @return Map of productId to embedding
+     * @param values Quantized components in [-127, 127]
+     * @param scale Dequantization factor (max |component| / 127)
+     * @param norm Euclidean norm of {@code values} (integer units, precomputed for cosine)
      */
-    public Map<Long, float[]> getAllCachedEmbeddings() {
-        return Map.copyOf(embeddingCache);
+    public record QuantizedEmbedding(byte[] values, float scale, float norm) {
+
+        static QuantizedEmbedding of(float[] embedding) {
+            float maxAbs = 0f;
+            for (float v : embedding) {
+                maxAbs = Math.max(maxAbs, Math.abs(v));
+            }
+            float scale = maxAbs == 0f ? 1f : maxAbs / 127f;
+
+            byte[] values = new byte[embedding.length];
+            long sumSquares = 0;
+            for (int i = 0; i < embedding.length; i++) {
+                int q = Math.round(embedding[i] / scale);
+                values[i] = (byte) Math.max(-127, Math.min(127, q));
+                sumSquares += (long) values[i] * values[i];
+            }
+            return new QuantizedEmbedding(values, scale, (float) Math.sqrt(sumSquares));
+        }
+
+        /**
+         * Cosine similarity between two quantized vectors, in integer arithmetic
+         * (the scales cancel out).
+         */
+        double cosineSimilarity(QuantizedEmbedding other) {
+            if (values.length != other.values.length) {
+                throw new IllegalArgumentException("Vectors must have the same dimension");
+            }
+            long dot = 0;
+            for (int i = 0; i < values.length; i++) {
+                dot += values[i] * other.values[i];
+            }
+            double denominator = (double) norm * other.norm;
+            return denominator == 0 ? 0 : dot / denominator;
+        }
     }
 }
@@ -0,0 +1,241 @@
+package com.pegasus.backend.features.recommendation.service;
+
+import com.pegasus.backend.features.catalog.event.CategoryHierarchyChangedEvent;
+import com.pegasus.backend.features.catalog.event.ProductChangedEvent;
+import com.pegasus.backend.features.inventory.event.StockChangedEvent;
+import com.pegasus.backend.features.recommendation.config.RecommendationCacheConfig;
+import com.pegasus.backend.features.recommendation.dto.RecommendationResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Bounded cache of computed {@link RecommendationResponse}s.
+ * Entries are evicted by size (LRU) and TTL, and invalidated precisely when the
+ * source product, any recommended product (including its price or stock) or the
+ * embedding index changes.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecommendationCache {
+
+    private final RecommendationCacheConfig config;
+    private final EmbeddingService embeddingService;
+
+    /** Entries in access order (guarded by this) */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Reverse indexes used for invalidation (guarded by this) */
+    private final Map<Long, Set<Key>> keysByProduct = new HashMap<>();
+    private final Map<Long, Set<Key>> keysByVariant = new HashMap<>();
+
+    /**
+     * Change clock, incremented by every product/stock change (guarded by this).
+     */
+    private long generation;
+
+    /**
+     * Clock value of the last change of each product / variant, and of the last clear.
+     * A response is not cached if one of its own products or variants changed while it
+     * was computed; changes elsewhere in the catalog do not affect it.
+     */
+    private final Map<Long, Long> productChangedAt = new HashMap<>();
+    private final Map<Long, Long> variantChangedAt = new HashMap<>();
+    private long clearedAt;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Get a cached response.
+     *
+     * @return The response, or empty if absent, expired or computed from an older embedding index
+     */
+    public synchronized Optional<RecommendationResponse> get(Key key) {
+        if (!config.isEnabled()) {
+            return Optional.empty();
+        }
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return Optional.empty();
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()
+                || entry.indexVersion() != embeddingService.getIndexVersion()) {
+            remove(key);
+            evictions++;
+            misses++;
+            return Optional.empty();
+        }
+
+        hits++;
+        return Optional.of(entry.response());
+    }
+
+    /**
+     * Get the current change clock (read before computing a response).
+     */
+    public synchronized long currentGeneration() {
+        return generation;
+    }
+
+    /**
+     * Cache a response together with the products and variants it depends on.
+     *
+     * @param indexVersion Embedding index version read before computing the response
+     * @param startGeneration Change clock read before computing the response
+     * @param productIds Source and recommended products
+     * @param variantIds Variants of those products (price and stock)
+     */
+    public synchronized void put(Key key, RecommendationResponse response, long indexVersion,
+            long startGeneration, Collection<Long> productIds, Collection<Long> variantIds) {
+        if (!config.isEnabled() || config.getMaxEntries() <= 0
+                || indexVersion != embeddingService.getIndexVersion()
+                || changedSince(startGeneration, productIds, variantIds)) {
+            return;
+        }
+
+        remove(key);
+        entries.put(key, new Entry(response, indexVersion,
+                System.currentTimeMillis() + config.getTtlSeconds() * 1000,
+                Set.copyOf(productIds), Set.copyOf(variantIds)));
+        productIds.forEach(id -> keysByProduct.computeIfAbsent(id, k -> new HashSet<>()).add(key));
+        variantIds.forEach(id -> keysByVariant.computeIfAbsent(id, k -> new HashSet<>()).add(key));
+
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > config.getMaxEntries() && eldest.hasNext()) {
+            Map.Entry<Key, Entry> evicted = eldest.next();
+            eldest.remove();
+            unindex(evicted.getKey(), evicted.getValue());
+            evictions++;
+        }
+    }
+
+    /**
+     * Invalidate every response that contains the product (as source or recommendation).
+     */
+    @TransactionalEventListener
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        productChangedAt.put(event.productId(), ++generation);
+        invalidate(keysByProduct.get(event.productId()));
+    }
+
+    /**
+     * Invalidate every response that contains a product of the variant.
+     */
+    @TransactionalEventListener
+    public synchronized void onStockChanged(StockChangedEvent event) {
+        variantChangedAt.put(event.variantId(), ++generation);
+        invalidate(keysByVariant.get(event.variantId()));
+    }
+
+    /**
+     * Subcategory results depend on the tree, so clear everything when it changes.
+     */
+    @TransactionalEventListener
+    public synchronized void onCategoryHierarchyChanged(CategoryHierarchyChangedEvent event) {
+        clear();
+    }
+
+    /**
+     * Remove all cached responses.
+     */
+    public synchronized void clear() {
+        clearedAt = ++generation;
+        // Older per-id stamps are covered by clearedAt
+        productChangedAt.clear();
+        variantChangedAt.clear();
+        invalidations += entries.size();
+        entries.clear();
+        keysByProduct.clear();
+        keysByVariant.clear();
+    }
+
+    /**
+     * Get a snapshot of the cache metrics.
+     */
+    public synchronized Stats getStats() {
+        return new Stats(entries.size(), hits, misses, evictions, invalidations);
+    }
+
+    /**
+     * Whether the cache was cleared or one of the products / variants changed
+     * after the clock value {@code since}.
+     */
+    private boolean changedSince(long since, Collection<Long> productIds, Collection<Long> variantIds) {
+        if (clearedAt > since) {
+            return true;
+        }
+        for (Long id : productIds) {
+            if (productChangedAt.getOrDefault(id, 0L) > since) {
+                return true;
+            }
+        }
+        for (Long id : variantIds) {
+            if (variantChangedAt.getOrDefault(id, 0L) > since) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void invalidate(Set<Key> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        for (Key key : Set.copyOf(keys)) {
+            if (remove(key)) {
+                invalidations++;
+            }
+        }
+    }
+
+    private boolean remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        unindex(key, entry);
+        return true;
+    }
+
+    private void unindex(Key key, Entry entry) {
+        entry.productIds().forEach(id -> removeKey(keysByProduct, id, key));
+        entry.variantIds().forEach(id -> removeKey(keysByVariant, id, key));
+    }
+
+    private void removeKey(Map<Long, Set<Key>> index, Long id, Key key) {
+        Set<Key> keys = index.get(id);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            index.remove(id);
+        }
+    }
+
+    /**
+     * Cache key: one response per product, limit and subcategory option.
+     */
+    public record Key(Long productId, int limit, boolean includeSubcategories) {
+    }
+
+    private record Entry(RecommendationResponse response, long indexVersion, long expiresAt,
+            Set<Long> productIds, Set<Long> variantIds) {
+    }
+
+    /**
+     * Cache metrics since startup.
+     */
+    public record Stats(int size, long hits, long misses, long evictions, long invalidations) {
+    }
+}
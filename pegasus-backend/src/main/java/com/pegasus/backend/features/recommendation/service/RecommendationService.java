@@ -1,11 +1,15 @@
 package com.pegasus.backend.features.recommendation.service;
 
+import com.pegasus.backend.features.catalog.entity.Category;
 import com.pegasus.backend.features.catalog.entity.Product;
 import com.pegasus.backend.features.catalog.entity.Variant;
 import com.pegasus.backend.features.catalog.entity.Image;
+import com.pegasus.backend.features.catalog.event.CategoryHierarchyChangedEvent;
+import com.pegasus.backend.features.catalog.repository.CategoryRepository;
 import com.pegasus.backend.features.catalog.repository.ProductRepository;
 import com.pegasus.backend.features.catalog.repository.VariantRepository;
 import com.pegasus.backend.features.catalog.repository.ImageRepository;
+import com.pegasus.backend.features.recommendation.dto.PersonalizedRecommendationResponse;
 import com.pegasus.backend.features.recommendation.dto.RecommendationItem;
 import com.pegasus.backend.features.recommendation.dto.RecommendationResponse;
 import com.pegasus.backend.features.recommendation.dto.RecommendationStatusResponse;
@@ -14,10 +18,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
@@ -32,23 +38,54 @@ public class RecommendationService {
     private final ProductRepository productRepository;
     private final VariantRepository variantRepository;
     private final ImageRepository imageRepository;
+    private final CategoryRepository categoryRepository;
     private final EmbeddingService embeddingService;
+    private final CustomerProfileService customerProfileService;
+    private final RecommendationCache recommendationCache;
 
     private static final int MAX_RECOMMENDATIONS = 12;
     private static final int DEFAULT_RECOMMENDATIONS = 6;
 
     private LocalDateTime lastReindexAt = null;
 
+    /**
+     * Snapshot of the category tree (parentId -> child ids), loaded lazily and
+     * dropped when the hierarchy changes. Every change installs a new snapshot
+     * object, so a tree loaded before the change can no longer be stored.
+     */
+    private final AtomicReference<CategoryTree> categoryTree = new AtomicReference<>(new CategoryTree(0, null));
+
     /**
      * Get similar products for a given product.
      *
      * @param productId The product to find recommendations for
      * @param limit Maximum number of recommendations (default: 6, max: 12)
+     * @param includeSubcategories Also consider products of descendant categories
      * @return RecommendationResponse with list of similar products
      */
-    public RecommendationResponse getSimilarProducts(Long productId, int limit) {
+    public RecommendationResponse getSimilarProducts(Long productId, int limit, boolean includeSubcategories) {
         int effectiveLimit = Math.min(Math.max(limit, 1), MAX_RECOMMENDATIONS);
 
+        RecommendationCache.Key cacheKey = new RecommendationCache.Key(productId, effectiveLimit, includeSubcategories);
+        Optional<RecommendationResponse> cached = recommendationCache.get(cacheKey);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        // Read before computing: a change during the computation prevents caching a stale result
+        long indexVersion = embeddingService.getIndexVersion();
+        long generation = recommendationCache.currentGeneration();
+
+        RecommendationResponse response = computeSimilarProducts(productId, effectiveLimit, includeSubcategories);
+        cacheResponse(cacheKey, response, indexVersion, generation);
+        return response;
+    }
+
+    /**
+     * Compute similar products (AI first, then fallback chain).
+     */
+    private RecommendationResponse computeSimilarProducts(Long productId, int effectiveLimit,
+            boolean includeSubcategories) {
         Product sourceProduct = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found: " + productId));
 
@@ -58,7 +95,7 @@ public class RecommendationService {
         // Try AI-based recommendations first
         if (embeddingService.isEnabled() && embeddingService.getCacheSize() > 0) {
             try {
-                recommendations = getAIRecommendations(sourceProduct, effectiveLimit);
+                recommendations = getAIRecommendations(sourceProduct, effectiveLimit, includeSubcategories);
                 if (!recommendations.isEmpty()) {
                     method = RecommendationResponse.RecommendationMethod.AI_EMBEDDING;
                     log.info("AI recommendations for product {}: {} results", productId, recommendations.size());
@@ -79,73 +116,165 @@ public class RecommendationService {
         return buildResponse(sourceProduct, recommendations, method);
     }
 
+    /**
+     * Cache a response, indexed by the products it contains and their variants
+     * (price and stock changes invalidate it).
+     */
+    private void cacheResponse(RecommendationCache.Key cacheKey, RecommendationResponse response,
+            long indexVersion, long generation) {
+        try {
+            Set<Long> productIds = new HashSet<>();
+            productIds.add(response.getProductId());
+            response.getRecommendations().forEach(item -> productIds.add(item.getId()));
+            List<Long> variantIds = variantRepository.findIdsByProductIdIn(productIds);
+            recommendationCache.put(cacheKey, response, indexVersion, generation, productIds, variantIds);
+        } catch (Exception e) {
+            log.warn("Failed to cache recommendations for product {}: {}", cacheKey.productId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Get personalized recommendations for a customer based on purchase history.
+     * Runs a top-k query with the cached customer profile vector, excluding products
+     * already bought or returned. Falls back to featured products.
+     *
+     * @param customerId Authenticated customer
+     * @param limit Maximum number of recommendations (default: 6, max: 12)
+     * @return PersonalizedRecommendationResponse with list of products
+     */
+    public PersonalizedRecommendationResponse getPersonalizedRecommendations(Long customerId, int limit) {
+        int effectiveLimit = Math.min(Math.max(limit, 1), MAX_RECOMMENDATIONS);
+        Set<Long> excludedProductIds = Set.of();
+
+        if (embeddingService.isEnabled() && embeddingService.getCacheSize() > 0) {
+            try {
+                CustomerProfileService.CustomerProfile profile = customerProfileService.getProfile(customerId);
+                excludedProductIds = profile.purchasedProductIds();
+
+                if (profile.vector() != null) {
+                    // Over-fetch slightly: inactive products are dropped during hydration
+                    List<RecommendationItem> recommendations = hydrate(
+                            embeddingService.findMostSimilar(profile.vector(), effectiveLimit * 2, excludedProductIds),
+                            effectiveLimit, RecommendationItem.RecommendationReason.PURCHASE_HISTORY);
+
+                    if (!recommendations.isEmpty()) {
+                        log.info("Personalized recommendations for customer {}: {} results",
+                                customerId, recommendations.size());
+                        return buildPersonalizedResponse(customerId, recommendations,
+                                RecommendationResponse.RecommendationMethod.AI_EMBEDDING);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Personalized recommendations failed for customer {}: {}", customerId, e.getMessage());
+            }
+        }
+
+        // Fallback: featured products not yet purchased
+        List<RecommendationItem> recommendations = new ArrayList<>();
+        for (Product p : productRepository.findByIsFeaturedTrue(PageRequest.of(0, effectiveLimit * 2)).getContent()) {
+            if (recommendations.size() >= effectiveLimit) {
+                break;
+            }
+            if (p.getIsActive() && !excludedProductIds.contains(p.getId())) {
+                recommendations.add(buildRecommendationItem(p, null,
+                        RecommendationItem.RecommendationReason.FEATURED));
+            }
+        }
+
+        return buildPersonalizedResponse(customerId, recommendations,
+                RecommendationResponse.RecommendationMethod.FEATURED_FALLBACK);
+    }
+
     /**
      * Get AI-based recommendations using cosine similarity of embeddings.
-     * Filters by same category first to ensure relevant recommendations.
+     * Candidates are the whole in-memory partition of the product's category
+     * (optionally with its descendants), so no product of the category is skipped.
      */
-    private List<RecommendationItem> getAIRecommendations(Product sourceProduct, int limit) {
-        float[] sourceEmbedding = embeddingService.getCachedEmbedding(sourceProduct.getId());
+    private List<RecommendationItem> getAIRecommendations(Product sourceProduct, int limit,
+            boolean includeSubcategories) {
+        if (sourceProduct.getCategoryId() == null) {
+            return Collections.emptyList();
+        }
 
-        if (sourceEmbedding == null) {
+        if (!embeddingService.hasEmbedding(sourceProduct.getId())) {
             // Generate embedding on-the-fly if not cached
             String text = buildEmbeddingText(sourceProduct);
-            sourceEmbedding = embeddingService.generateEmbedding(text);
+            float[] sourceEmbedding = embeddingService.generateEmbedding(text);
             if (sourceEmbedding != null) {
-                embeddingService.cacheEmbedding(sourceProduct.getId(), sourceEmbedding);
+                embeddingService.cacheEmbedding(sourceProduct.getId(), sourceProduct.getCategoryId(), sourceEmbedding);
             } else {
                 return Collections.emptyList();
             }
         }
 
-        // Get products from SAME CATEGORY only for relevant recommendations
-        List<Product> sameCategoryProducts = sourceProduct.getCategoryId() != null
-                ? productRepository.findActiveByCategoryId(sourceProduct.getCategoryId(), PageRequest.of(0, 50)).getContent()
-                : Collections.emptyList();
-
-        // Calculate similarity only with products in same category
-        Map<Long, float[]> allEmbeddings = embeddingService.getAllCachedEmbeddings();
-        List<Map.Entry<Long, Double>> similarities = new ArrayList<>();
+        Set<Long> categoryIds = includeSubcategories
+                ? resolveCategoryWithDescendants(sourceProduct.getCategoryId())
+                : Set.of(sourceProduct.getCategoryId());
 
-        Set<Long> sameCategoryIds = sameCategoryProducts.stream()
-                .map(Product::getId)
-                .collect(Collectors.toSet());
+        // Over-fetch slightly: inactive products are dropped during hydration
+        return hydrate(
+                embeddingService.findMostSimilarToProductInCategories(sourceProduct.getId(), limit * 2,
+                        Set.of(sourceProduct.getId()), categoryIds),
+                limit, RecommendationItem.RecommendationReason.CONTENT_SIMILARITY);
+    }
 
-        for (Map.Entry<Long, float[]> entry : allEmbeddings.entrySet()) {
-            Long productId = entry.getKey();
-            
-            // Skip source product and products NOT in same category
-            if (productId.equals(sourceProduct.getId()) || !sameCategoryIds.contains(productId)) {
-                continue;
+    /**
+     * Load the matched products with one query and build the items in score order,
+     * skipping inactive or deleted products.
+     */
+    private List<RecommendationItem> hydrate(List<EmbeddingService.SimilarProduct> matches, int limit,
+            RecommendationItem.RecommendationReason reason) {
+        Map<Long, Product> productsById = productRepository.findAllById(
+                        matches.stream().map(EmbeddingService.SimilarProduct::productId).toList())
+                .stream()
+                .collect(Collectors.toMap(Product::getId, p -> p));
+
+        List<RecommendationItem> items = new ArrayList<>();
+        for (EmbeddingService.SimilarProduct match : matches) {
+            Product product = productsById.get(match.productId());
+            if (product != null && product.getIsActive()) {
+                items.add(buildRecommendationItem(product, match.score(), reason));
+                if (items.size() >= limit) {
+                    break;
+                }
             }
-
-            double similarity = cosineSimilarity(sourceEmbedding, entry.getValue());
-            similarities.add(Map.entry(productId, similarity));
         }
+        return items;
+    }
 
-        // Sort by similarity (highest first) and take top N
-        similarities.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+    /**
+     * Resolve a category and all its descendants from the cached category tree.
+     */
+    private Set<Long> resolveCategoryWithDescendants(Long categoryId) {
+        CategoryTree tree = categoryTree.get();
+        Map<Long, List<Long>> children = tree.children();
+        if (children == null) {
+            children = categoryRepository.findAll().stream()
+                    .filter(c -> c.getParentId() != null)
+                    .collect(Collectors.groupingBy(Category::getParentId,
+                            Collectors.mapping(Category::getId, Collectors.toList())));
+            // Only stored if no hierarchy change happened while loading
+            categoryTree.compareAndSet(tree, new CategoryTree(tree.version(), children));
+        }
 
-        List<Long> topProductIds = similarities.stream()
-                .limit(limit)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+        Set<Long> result = new HashSet<>();
+        Deque<Long> pending = new ArrayDeque<>();
+        pending.push(categoryId);
+        while (!pending.isEmpty()) {
+            Long current = pending.pop();
+            if (result.add(current)) {
+                children.getOrDefault(current, List.of()).forEach(pending::push);
+            }
+        }
+        return result;
+    }
 
-        // Fetch products and build response
-        return topProductIds.stream()
-                .map(productId -> {
-                    Product product = productRepository.findById(productId).orElse(null);
-                    if (product == null || !product.getIsActive()) {
-                        return null;
-                    }
-                    double score = similarities.stream()
-                            .filter(e -> e.getKey().equals(productId))
-                            .findFirst()
-                            .map(Map.Entry::getValue)
-                            .orElse(0.0);
-                    return buildRecommendationItem(product, score, RecommendationItem.RecommendationReason.CONTENT_SIMILARITY);
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+    /**
+     * Drop the category tree snapshot when categories are created, moved or deleted.
+     */
+    @TransactionalEventListener
+    public void onCategoryHierarchyChanged(CategoryHierarchyChangedEvent event) {
+        categoryTree.updateAndGet(tree -> new CategoryTree(tree.version() + 1, null));
     }
 
     /**
@@ -225,6 +354,8 @@ public class RecommendationService {
 
         log.info("Starting embedding reindex...");
         embeddingService.clearCache();
+        customerProfileService.clearProfiles();
+        recommendationCache.clear();
 
         List<Product> allProducts = productRepository.findAllActiveProducts();
         int processed = 0;
@@ -237,7 +368,7 @@ public class RecommendationService {
                 String text = buildEmbeddingText(product);
                 float[] embedding = embeddingService.generateEmbedding(text);
                 if (embedding != null) {
-                    embeddingService.cacheEmbedding(product.getId(), embedding);
+                    embeddingService.cacheEmbedding(product.getId(), product.getCategoryId(), embedding);
                     success++;
                 } else {
                     errors++;
@@ -269,6 +400,7 @@ public class RecommendationService {
      */
     public RecommendationStatusResponse getStatus() {
         long totalProducts = productRepository.count();
+        RecommendationCache.Stats cacheStats = recommendationCache.getStats();
 
         return RecommendationStatusResponse.builder()
                 .enabled(embeddingService.isEnabled())
@@ -276,6 +408,12 @@ public class RecommendationService {
                 .totalProducts(totalProducts)
                 .productsWithEmbeddings(embeddingService.getCacheSize())
                 .embeddingDimension(embeddingService.getDimension())
+                .quantized(embeddingService.isQuantized())
+                .cacheSize(cacheStats.size())
+                .cacheHits(cacheStats.hits())
+                .cacheMisses(cacheStats.misses())
+                .cacheEvictions(cacheStats.evictions())
+                .cacheInvalidations(cacheStats.invalidations())
                 .lastReindexAt(lastReindexAt)
                 .message(embeddingService.isEnabled() 
                         ? "AI recommendations are active" 
@@ -377,6 +515,20 @@ public class RecommendationService {
                 .build();
     }
 
+    /**
+     * Build the personalized response DTO.
+     */
+    private PersonalizedRecommendationResponse buildPersonalizedResponse(Long customerId,
+            List<RecommendationItem> recommendations,
+            RecommendationResponse.RecommendationMethod method) {
+        return PersonalizedRecommendationResponse.builder()
+                .customerId(customerId)
+                .recommendations(recommendations)
+                .totalRecommendations(recommendations.size())
+                .method(method)
+                .build();
+    }
+
     /**
      * Determine the method from the recommendations list.
      */
@@ -396,7 +548,7 @@ public class RecommendationService {
 
         RecommendationItem.RecommendationReason reason = recommendations.get(0).getReason();
         return switch (reason) {
-            case CONTENT_SIMILARITY -> RecommendationResponse.RecommendationMethod.AI_EMBEDDING;
+            case CONTENT_SIMILARITY, PURCHASE_HISTORY -> RecommendationResponse.RecommendationMethod.AI_EMBEDDING;
             case SAME_CATEGORY -> RecommendationResponse.RecommendationMethod.CATEGORY_FALLBACK;
             case SAME_BRAND -> RecommendationResponse.RecommendationMethod.BRAND_FALLBACK;
             case FEATURED, RANDOM -> RecommendationResponse.RecommendationMethod.FEATURED_FALLBACK;
@@ -414,28 +566,11 @@ public class RecommendationService {
     }
 
     /**
-     * Calculate cosine similarity between two vectors.
+     * Category tree snapshot.
      *
-     * @param a First vector
-     * @param b Second vector
-     * @return Cosine similarity value between -1 and 1 (1 = identical)
+     * @param version Incremented on every hierarchy change
+     * @param children parentId -> child ids, or null if not loaded
      */
-    private double cosineSimilarity(float[] a, float[] b) {
-        if (a.length != b.length) {
-            throw new IllegalArgumentException("Vectors must have the same dimension");
-        }
-
-        double dotProduct = 0.0;
-        double normA = 0.0;
-        double normB = 0.0;
-
-        for (int i = 0; i < a.length; i++) {
-            dotProduct += a[i] * b[i];
-            normA += a[i] * a[i];
-            normB += b[i] * b[i];
-        }
-
-        double denominator = Math.sqrt(normA) * Math.sqrt(normB);
-        return denominator == 0 ? 0 : dotProduct / denominator;
+    private record CategoryTree(long version, Map<Long, List<Long>> children) {
     }
 }
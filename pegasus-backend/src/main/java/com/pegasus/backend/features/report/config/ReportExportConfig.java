@@ -0,0 +1,27 @@
+package com.pegasus.backend.features.report.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de las exportaciones CSV de reportes.
+ * Cargada desde application.properties con prefijo "report.export"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "report.export")
+@Data
+public class ReportExportConfig {
+
+    /**
+     * Filas que el driver trae por cada viaje a la base de datos (cursor del lado
+     * del servidor); la memoria usada no depende del tamaño de la exportación.
+     */
+    private int fetchSize = 1000;
+
+    /**
+     * Tiempo máximo (ms) de una exportación. Solo aplica a estas respuestas; el resto
+     * de solicitudes asíncronas mantiene el timeout por defecto.
+     */
+    private long timeoutMs = 1800000;
+}
@@ -1,16 +1,27 @@
 package com.pegasus.backend.features.report.controller;
 
+import com.pegasus.backend.features.report.config.ReportExportConfig;
 import com.pegasus.backend.features.report.dto.*;
+import com.pegasus.backend.features.report.service.ReportExportService;
 import com.pegasus.backend.features.report.service.ReportService;
+import com.pegasus.backend.shared.enums.OperationType;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 
 /**
  * Controlador de reportes contables
@@ -22,6 +33,8 @@ import java.time.LocalDate;
 public class ReportController {
 
     private final ReportService reportService;
+    private final ReportExportService reportExportService;
+    private final ReportExportConfig reportExportConfig;
 
     @GetMapping("/sales")
     @Operation(summary = "Reporte de ventas por período")
@@ -68,4 +81,82 @@ public class ReportController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
         return ResponseEntity.ok(reportService.getPaymentReport(startDate, endDate));
     }
+
+    @GetMapping("/order-status")
+    @Operation(summary = "Reporte de cambios de estado de pedidos",
+            description = "Con includeArchived=true incluye los meses archivados en el esquema cold")
+    public ResponseEntity<OrderStatusReportResponse> getOrderStatusReport(
+            @Parameter(description = "Fecha inicio (YYYY-MM-DD)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "Fecha fin (YYYY-MM-DD)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @Parameter(description = "Incluir historial archivado")
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return ResponseEntity.ok(reportService.getOrderStatusReport(startDate, endDate, includeArchived));
+    }
+
+    @GetMapping("/export/movements")
+    @Operation(summary = "Exportar movimientos del kardex (CSV)")
+    public WebAsyncTask<Void> exportMovements(
+            @RequestParam(required = false) Long warehouseId,
+            @RequestParam(required = false) Long variantId,
+            @RequestParam(required = false) OperationType operationType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime toDate,
+            HttpServletResponse response) {
+        reportExportService.validateMovementFilters(operationType);
+        return csv(response, "kardex.csv", out -> reportExportService.exportMovements(
+                warehouseId, variantId, operationType, fromDate, toDate, out));
+    }
+
+    @GetMapping("/export/sales")
+    @Operation(summary = "Exportar ventas por período (CSV)")
+    public WebAsyncTask<Void> exportSales(
+            @Parameter(description = "Fecha inicio (YYYY-MM-DD)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "Fecha fin (YYYY-MM-DD)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            HttpServletResponse response) {
+        return csv(response, "ventas_" + startDate + "_" + endDate + ".csv",
+                out -> reportExportService.exportSales(startDate, endDate, out));
+    }
+
+    @GetMapping("/export/invoices")
+    @Operation(summary = "Exportar comprobantes por período (CSV)")
+    public WebAsyncTask<Void> exportInvoices(
+            @Parameter(description = "Fecha inicio (YYYY-MM-DD)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "Fecha fin (YYYY-MM-DD)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            HttpServletResponse response) {
+        return csv(response, "comprobantes_" + startDate + "_" + endDate + ".csv",
+                out -> reportExportService.exportInvoices(startDate, endDate, out));
+    }
+
+    @GetMapping("/export/purchases")
+    @Operation(summary = "Exportar compras por período (CSV)")
+    public WebAsyncTask<Void> exportPurchases(
+            @Parameter(description = "Fecha inicio (YYYY-MM-DD)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "Fecha fin (YYYY-MM-DD)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            HttpServletResponse response) {
+        return csv(response, "compras_" + startDate + "_" + endDate + ".csv",
+                out -> reportExportService.exportPurchases(startDate, endDate, out));
+    }
+
+    /**
+     * Respuesta CSV descargable escrita por bloques en un hilo asíncrono, con el
+     * timeout propio de las exportaciones (report.export.timeout-ms)
+     */
+    private WebAsyncTask<Void> csv(HttpServletResponse response, String filename, StreamingResponseBody body) {
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(filename).build().toString());
+        response.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8).toString());
+        return new WebAsyncTask<>(reportExportConfig.getTimeoutMs(), () -> {
+            body.writeTo(response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
 }
@@ -0,0 +1,21 @@
+package com.pegasus.backend.features.report.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Reporte de cambios de estado de pedidos por período
+ */
+public record OrderStatusReportResponse(
+        LocalDate startDate,
+        LocalDate endDate,
+        boolean includeArchived,
+        Long totalTransitions,
+        List<StatusRow> byStatus
+) {
+    public record StatusRow(
+            String status,
+            Long transitions,
+            Long orders
+    ) {}
+}
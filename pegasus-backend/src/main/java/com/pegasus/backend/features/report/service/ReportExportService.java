@@ -0,0 +1,196 @@
+package com.pegasus.backend.features.report.service;
+
+import com.pegasus.backend.exception.BadRequestException;
+import com.pegasus.backend.features.inventory.service.MovementService;
+import com.pegasus.backend.features.report.config.ReportExportConfig;
+import com.pegasus.backend.shared.csv.CsvWriter;
+import com.pegasus.backend.shared.enums.OperationType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.OutputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exportaciones CSV de kardex y reportes contables con memoria constante.
+ *
+ * Cada exportación es una consulta forward-only con fetch size: dentro de la
+ * transacción de solo lectura el driver de PostgreSQL usa un cursor y trae las filas
+ * por bloques, que se escriben directamente en el OutputStream de la respuesta.
+ * Ninguna fila se acumula en memoria, sin importar el tamaño del rango.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class ReportExportService {
+
+        private static final ZoneOffset PERU_OFFSET = ZoneOffset.ofHours(-5);
+
+        /**
+         * Fechas en hora de Lima, legibles en Excel
+         */
+        private static final String LIMA_DATETIME = "'America/Lima', 'YYYY-MM-DD HH24:MI:SS'";
+
+        private final JdbcTemplate jdbcTemplate;
+        private final ReportExportConfig config;
+
+        /**
+         * Validar los filtros de la exportación de movimientos antes de iniciar la
+         * respuesta (una vez que empieza a escribirse ya no puede devolver un error).
+         */
+        public void validateMovementFilters(OperationType operationType) {
+                if (operationType != null && !MovementService.KARDEx_ALLOWED_TYPES.contains(operationType)) {
+                        throw new BadRequestException("Tipo de operación no permitido para Kardex: " + operationType);
+                }
+        }
+
+        /**
+         * Exportar movimientos del kardex (mismos filtros y tipos que la búsqueda).
+         */
+        public void exportMovements(Long warehouseId, Long variantId, OperationType operationType,
+                        OffsetDateTime fromDate, OffsetDateTime toDate, OutputStream out) {
+                StringBuilder sql = new StringBuilder("""
+                                SELECT m.id, to_char(m.created_at AT TIME ZONE %s), w.code, v.sku, p.name,
+                                       m.operation_type, m.quantity, m.balance, m.unit_cost, m.description,
+                                       m.reference_table, m.reference_id, u.username
+                                FROM movements m
+                                JOIN warehouses w ON w.id = m.warehouse_id
+                                JOIN variants v ON v.id = m.variant_id
+                                JOIN products p ON p.id = v.product_id
+                                LEFT JOIN users u ON u.id = m.user_id
+                                WHERE 1 = 1
+                                """.formatted(LIMA_DATETIME));
+                List<Object> args = new ArrayList<>();
+
+                // Solo los filtros presentes (índices por variante, almacén y fecha)
+                if (operationType != null) {
+                        sql.append(" AND m.operation_type = ?");
+                        args.add(operationType.name());
+                } else {
+                        sql.append(" AND m.operation_type = ANY (?)");
+                        args.add(MovementService.KARDEx_ALLOWED_TYPES.stream().map(Enum::name).toArray(String[]::new));
+                }
+                if (warehouseId != null) {
+                        sql.append(" AND m.warehouse_id = ?");
+                        args.add(warehouseId);
+                }
+                if (variantId != null) {
+                        sql.append(" AND m.variant_id = ?");
+                        args.add(variantId);
+                }
+                if (fromDate != null) {
+                        sql.append(" AND m.created_at >= ?");
+                        args.add(fromDate);
+                }
+                if (toDate != null) {
+                        sql.append(" AND m.created_at <= ?");
+                        args.add(toDate);
+                }
+                sql.append(" ORDER BY m.created_at, m.id");
+
+                stream("movements", sql.toString(), args.toArray(), out,
+                                "ID", "Fecha", "Almacén", "SKU", "Producto", "Operación", "Cantidad", "Saldo",
+                                "Costo unitario", "Descripción", "Tabla referencia", "ID referencia", "Usuario");
+        }
+
+        /**
+         * Exportar pedidos vendidos del período (mismos estados que el reporte de ventas).
+         */
+        public void exportSales(LocalDate startDate, LocalDate endDate, OutputStream out) {
+                String sql = """
+                                SELECT o.order_number, to_char(o.created_at AT TIME ZONE %s), o.status,
+                                       c.doc_type, c.doc_number, c.first_name || ' ' || c.last_name, o.total
+                                FROM orders o
+                                JOIN customers c ON c.id = o.customer_id
+                                WHERE o.created_at >= ? AND o.created_at < ?
+                                AND o.status IN ('PAID', 'PROCESSING', 'SHIPPED', 'DELIVERED')
+                                ORDER BY o.created_at, o.id
+                                """.formatted(LIMA_DATETIME);
+
+                stream("sales", sql, new Object[] { startOf(startDate), endOf(endDate) }, out,
+                                "Pedido", "Fecha", "Estado", "Tipo doc.", "Nro. doc.", "Cliente", "Total");
+        }
+
+        /**
+         * Exportar comprobantes emitidos en el período.
+         */
+        public void exportInvoices(LocalDate startDate, LocalDate endDate, OutputStream out) {
+                String sql = """
+                                SELECT i.invoice_type, i.series, i.number, to_char(i.issued_at AT TIME ZONE %s),
+                                       i.receiver_tax_id, i.receiver_name, i.subtotal, i.tax_amount, i.total_amount,
+                                       i.status, o.order_number
+                                FROM invoices i
+                                JOIN orders o ON o.id = i.order_id
+                                WHERE i.issued_at >= ? AND i.issued_at < ?
+                                ORDER BY i.issued_at, i.id
+                                """.formatted(LIMA_DATETIME);
+
+                stream("invoices", sql, new Object[] { startOf(startDate), endOf(endDate) }, out,
+                                "Tipo", "Serie", "Número", "Fecha emisión", "RUC/DNI", "Razón social",
+                                "Subtotal", "IGV", "Total", "Estado", "Pedido");
+        }
+
+        /**
+         * Exportar compras del período (fecha de compra, todos los estados).
+         */
+        public void exportPurchases(LocalDate startDate, LocalDate endDate, OutputStream out) {
+                String sql = """
+                                SELECT p.id, p.purchase_date, s.doc_number, s.company_name, p.invoice_type,
+                                       p.invoice_number, w.code, p.status, p.total_amount
+                                FROM purchases p
+                                JOIN suppliers s ON s.id = p.supplier_id
+                                JOIN warehouses w ON w.id = p.warehouse_id
+                                WHERE p.purchase_date >= ? AND p.purchase_date <= ?
+                                ORDER BY p.purchase_date, p.id
+                                """;
+
+                stream("purchases", sql, new Object[] { startDate, endDate }, out,
+                                "ID", "Fecha", "RUC proveedor", "Proveedor", "Tipo comprobante", "Nro. comprobante",
+                                "Almacén", "Estado", "Total");
+        }
+
+        /**
+         * Ejecutar la consulta con un cursor y escribir cada fila al recibirla.
+         */
+        private void stream(String name, String sql, Object[] args, OutputStream out, String... header) {
+                long startedAt = System.currentTimeMillis();
+                CsvWriter csv = new CsvWriter(out);
+                csv.row(header);
+
+                jdbcTemplate.query(con -> {
+                        PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                                        ResultSet.CONCUR_READ_ONLY);
+                        ps.setFetchSize(config.getFetchSize());
+                        new ArgumentPreparedStatementSetter(args).setValues(ps);
+                        return ps;
+                }, rs -> {
+                        String[] values = new String[header.length];
+                        for (int i = 0; i < values.length; i++) {
+                                values[i] = rs.getString(i + 1);
+                        }
+                        csv.row(values);
+                });
+
+                long rows = csv.finish() - 1;
+                log.info("Exported {} {} rows in {} ms", rows, name, System.currentTimeMillis() - startedAt);
+        }
+
+        private OffsetDateTime startOf(LocalDate date) {
+                return date.atStartOfDay().atOffset(PERU_OFFSET);
+        }
+
+        private OffsetDateTime endOf(LocalDate date) {
+                return date.plusDays(1).atStartOfDay().atOffset(PERU_OFFSET);
+        }
+}
@@ -318,4 +318,53 @@ public class ReportService {
 
                 return new PaymentReportResponse(startDate, endDate, totalPayments, totalAmount, byPaymentMethod);
         }
+
+        /**
+         * Reporte de cambios de estado de pedidos por período.
+         * Los meses archivados viven en el esquema cold y solo se consultan si se piden
+         * explícitamente; la tabla activa descarta las particiones fuera del rango.
+         */
+        public OrderStatusReportResponse getOrderStatusReport(LocalDate startDate, LocalDate endDate,
+                        boolean includeArchived) {
+                log.info("Generating order status report from {} to {} (archived: {})",
+                                startDate, endDate, includeArchived);
+
+                OffsetDateTime start = startDate.atStartOfDay().atOffset(PERU_OFFSET);
+                OffsetDateTime end = endDate.plusDays(1).atStartOfDay().atOffset(PERU_OFFSET);
+
+                String source = includeArchived
+                                ? """
+                                                (SELECT order_id, status, created_at FROM public.order_status_histories
+                                                UNION ALL
+                                                SELECT order_id, status, created_at FROM cold.order_status_histories)
+                                                """
+                                : "public.order_status_histories";
+
+                String sql = """
+                                SELECT h.status, COUNT(*), COUNT(DISTINCT h.order_id)
+                                FROM %s h
+                                WHERE h.created_at >= :start AND h.created_at < :end
+                                GROUP BY h.status
+                                ORDER BY COUNT(*) DESC
+                                """.formatted(source);
+
+                @SuppressWarnings("unchecked")
+                List<Object[]> results = entityManager.createNativeQuery(sql)
+                                .setParameter("start", start)
+                                .setParameter("end", end)
+                                .getResultList();
+
+                List<OrderStatusReportResponse.StatusRow> byStatus = results.stream()
+                                .map(row -> new OrderStatusReportResponse.StatusRow(
+                                                (String) row[0],
+                                                ((Number) row[1]).longValue(),
+                                                ((Number) row[2]).longValue()))
+                                .toList();
+                long totalTransitions = byStatus.stream()
+                                .mapToLong(OrderStatusReportResponse.StatusRow::transitions)
+                                .sum();
+
+                return new OrderStatusReportResponse(startDate, endDate, includeArchived, totalTransitions,
+                                byStatus);
+        }
 }
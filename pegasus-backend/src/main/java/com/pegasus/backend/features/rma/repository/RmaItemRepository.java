@@ -74,4 +74,17 @@ public interface RmaItemRepository extends JpaRepository<RmaItem, Long> {
             AND ri.itemCondition IS NULL
             """)
     boolean areAllItemsInspected(@Param("rmaId") Long rmaId);
+
+    /**
+     * Historial de devoluciones de un cliente para el perfil de recomendaciones.
+     * Cada fila: [productId, quantity, createdAt de la RMA]
+     */
+    @Query("""
+            SELECT oi.productId, ri.quantity, r.createdAt FROM RmaItem ri
+            JOIN ri.rma r
+            JOIN ri.orderItem oi
+            WHERE r.customerId = :customerId
+            AND r.status NOT IN ('REJECTED', 'CANCELLED')
+            """)
+    List<Object[]> findReturnHistoryByCustomerId(@Param("customerId") Long customerId);
 }
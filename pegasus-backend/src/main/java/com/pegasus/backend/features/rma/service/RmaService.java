@@ -18,6 +18,7 @@ import com.pegasus.backend.features.rma.repository.RmaStatusHistoryRepository;
 import com.pegasus.backend.shared.dto.PageResponse;
 import com.pegasus.backend.shared.enums.OrderStatus;
 import com.pegasus.backend.shared.enums.RmaStatus;
+import com.pegasus.backend.shared.sequence.service.DocumentNumberGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -47,6 +48,7 @@ public class RmaService {
     private final OrderItemRepository orderItemRepository;
     private final CustomerRepository customerRepository;
     private final RmaMapper rmaMapper;
+    private final DocumentNumberGenerator documentNumberGenerator;
 
     /**
      * Obtener todos los RMAs con filtros opcionales y paginación
@@ -468,11 +470,10 @@ public class RmaService {
     }
 
     /**
-     * Generar número único de RMA (formato: RMA-YYYY-NNNNN)
+     * Generar número único de RMA (formato: RMA-YYYY-NNNNN, secuencia anual)
      */
     private String generateRmaNumber() {
-        String yearMonth = OffsetDateTime.now().format(DateTimeFormatter.ofPattern("yyyy"));
-        long count = rmaRepository.count() + 1;
-        return String.format("RMA-%s-%05d", yearMonth, count);
+        String year = OffsetDateTime.now().format(DateTimeFormatter.ofPattern("yyyy"));
+        return documentNumberGenerator.next("RMA", year);
     }
 }
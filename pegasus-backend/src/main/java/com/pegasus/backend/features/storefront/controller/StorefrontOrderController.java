@@ -1,11 +1,15 @@
 package com.pegasus.backend.features.storefront.controller;
 
 import com.pegasus.backend.features.order.dto.CreateOrderRequest;
+import com.pegasus.backend.features.order.dto.OrderOwnership;
 import com.pegasus.backend.features.order.dto.OrderResponse;
 import com.pegasus.backend.features.order.dto.OrderSummaryResponse;
+import com.pegasus.backend.features.order.service.OrderIdempotencyService;
 import com.pegasus.backend.features.order.service.OrderService;
+import com.pegasus.backend.features.order.service.OrderStatusStreamService;
 import com.pegasus.backend.shared.dto.PageResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -13,9 +17,11 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Controlador REST para operaciones del Storefront (Clientes)
@@ -28,6 +34,8 @@ import org.springframework.web.bind.annotation.*;
 public class StorefrontOrderController {
 
         private final OrderService orderService;
+        private final OrderIdempotencyService orderIdempotencyService;
+        private final OrderStatusStreamService orderStatusStreamService;
 
         @GetMapping
         @Operation(summary = "Mis pedidos", description = "Obtener todos los pedidos del cliente autenticado")
@@ -40,6 +48,14 @@ public class StorefrontOrderController {
                 return ResponseEntity.ok(response);
         }
 
+        @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+        @Operation(summary = "Stream de estado de mis pedidos", description = "Server-Sent Events (evento 'order-status') con los cambios de estado de los pedidos del cliente autenticado. Reemplaza el polling; al reconectar se deben recargar los pedidos")
+        @ApiResponse(responseCode = "200", description = "Stream abierto")
+        public SseEmitter streamMyOrderStatus(Authentication authentication) {
+                Long customerId = (Long) authentication.getPrincipal();
+                return orderStatusStreamService.subscribeCustomer(customerId);
+        }
+
         @GetMapping("/{id}")
         @Operation(summary = "Obtener detalle de mi pedido", description = "Obtener detalle completo de un pedido del cliente autenticado")
         @ApiResponse(responseCode = "200", description = "Pedido encontrado")
@@ -49,22 +65,25 @@ public class StorefrontOrderController {
                         @PathVariable Long id,
                         Authentication authentication) {
                 Long customerId = (Long) authentication.getPrincipal();
-                OrderResponse response = orderService.getOrderById(id);
 
-                // Verificar que el pedido pertenece al cliente
-                if (!response.customerId().equals(customerId)) {
+                // Verificar que el pedido pertenece al cliente antes de armar el detalle
+                if (!isOwnedBy(id, customerId)) {
                         return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
                 }
 
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok(orderService.getOrderById(id));
         }
 
         @PostMapping
-        @Operation(summary = "Crear pedido", description = "Crear un nuevo pedido desde el storefront")
+        @Operation(summary = "Crear pedido", description = "Crear un nuevo pedido desde el storefront. "
+                        + "Con la cabecera Idempotency-Key, los reintentos devuelven el pedido ya creado")
         @ApiResponse(responseCode = "201", description = "Pedido creado exitosamente")
         @ApiResponse(responseCode = "400", description = "Datos inválidos")
+        @ApiResponse(responseCode = "409", description = "Hay una solicitud en curso con la misma Idempotency-Key")
         public ResponseEntity<OrderResponse> createOrder(
                         @Valid @RequestBody CreateOrderRequest request,
+                        @Parameter(description = "Clave única por intento de compra para reintentos seguros")
+                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
                         Authentication authentication) {
                 Long customerId = (Long) authentication.getPrincipal();
 
@@ -79,6 +98,14 @@ public class StorefrontOrderController {
                                 request.paymentTransactionId(),
                                 request.preferredInvoiceType());
 
+                if (idempotencyKey != null) {
+                        OrderIdempotencyService.IdempotentOrderResult result =
+                                        orderIdempotencyService.createOrder(idempotencyKey, securedRequest);
+                        return ResponseEntity.status(HttpStatus.CREATED)
+                                        .header("Idempotent-Replayed", String.valueOf(result.replayed()))
+                                        .body(result.order());
+                }
+
                 // Storefront actions are performed by a Customer, not a backoffice User.
                 // Pass null to avoid referencing a non-existent users.id in audit/FK columns.
                 OrderResponse response = orderService.createOrder(securedRequest, null);
@@ -95,10 +122,9 @@ public class StorefrontOrderController {
                         @RequestParam(required = false) String reason,
                         Authentication authentication) {
                 Long customerId = (Long) authentication.getPrincipal();
-                OrderResponse existingOrder = orderService.getOrderById(id);
 
                 // Verificar que el pedido pertenece al cliente
-                if (!existingOrder.customerId().equals(customerId)) {
+                if (!isOwnedBy(id, customerId)) {
                         return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
                 }
 
@@ -116,10 +142,9 @@ public class StorefrontOrderController {
                         @PathVariable Long id,
                         Authentication authentication) {
                 Long customerId = (Long) authentication.getPrincipal();
-                OrderResponse existingOrder = orderService.getOrderById(id);
 
                 // Verificar que el pedido pertenece al cliente
-                if (!existingOrder.customerId().equals(customerId)) {
+                if (!isOwnedBy(id, customerId)) {
                         return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
                 }
 
@@ -132,4 +157,12 @@ public class StorefrontOrderController {
                                 null);
                 return ResponseEntity.ok(response);
         }
+
+        /**
+         * Verificar la propiedad con una proyección ligera (id, cliente, estado)
+         */
+        private boolean isOwnedBy(Long orderId, Long customerId) {
+                OrderOwnership ownership = orderService.getOrderOwnership(orderId);
+                return ownership.customerId().equals(customerId);
+        }
 }
@@ -0,0 +1,38 @@
+package com.pegasus.backend.features.storefront.controller;
+
+import com.pegasus.backend.features.recommendation.dto.PersonalizedRecommendationResponse;
+import com.pegasus.backend.features.recommendation.service.RecommendationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controlador REST para recomendaciones personalizadas del Storefront (Clientes)
+ * Basadas en el historial de compras y devoluciones del cliente autenticado
+ */
+@RestController
+@RequestMapping("/api/storefront/recommendations")
+@RequiredArgsConstructor
+@Tag(name = "Storefront Recommendations", description = "Recomendaciones personalizadas para clientes")
+public class StorefrontRecommendationController {
+
+    private final RecommendationService recommendationService;
+
+    @GetMapping
+    @Operation(summary = "Recomendaciones para mí", description = "Productos recomendados según el historial de compras del cliente autenticado")
+    @ApiResponse(responseCode = "200", description = "Recomendaciones obtenidas exitosamente")
+    public ResponseEntity<PersonalizedRecommendationResponse> getMyRecommendations(
+            Authentication authentication,
+            @Parameter(description = "Maximum number of recommendations (default: 6, max: 12)")
+            @RequestParam(defaultValue = "6") int limit) {
+        Long customerId = (Long) authentication.getPrincipal();
+        PersonalizedRecommendationResponse response =
+                recommendationService.getPersonalizedRecommendations(customerId, limit);
+        return ResponseEntity.ok(response);
+    }
+}
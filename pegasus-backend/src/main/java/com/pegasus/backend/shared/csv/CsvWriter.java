@@ -0,0 +1,87 @@
+package com.pegasus.backend.shared.csv;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escritor CSV sobre el OutputStream de la respuesta (UTF-8 con BOM para Excel).
+ * Las filas se escriben a medida que llegan, sin acumularlas en memoria.
+ */
+public final class CsvWriter {
+
+    private final BufferedWriter writer;
+    private long rows;
+
+    public CsvWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        write("\uFEFF");
+    }
+
+    /**
+     * Escribir una fila (null se escribe como celda vacía).
+     */
+    public void row(String... values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(escape(values[i]));
+        }
+        line.append("\r\n");
+        write(line.toString());
+        rows++;
+    }
+
+    /**
+     * Vaciar el buffer al stream (no lo cierra: lo gestiona el contenedor).
+     *
+     * @return Filas escritas, incluida la cabecera
+     */
+    public long finish() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    private void write(String value) {
+        try {
+            writer.write(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String escape(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        // Evitar que Excel interprete texto como fórmula
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '@' || (first == '-' && !isNumeric(value))) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    private static boolean isNumeric(String value) {
+        for (int i = 1; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!Character.isDigit(c) && c != '.') {
+                return false;
+            }
+        }
+        return value.length() > 1;
+    }
+}
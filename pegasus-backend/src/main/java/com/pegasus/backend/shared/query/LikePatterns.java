@@ -0,0 +1,33 @@
+package com.pegasus.backend.shared.query;
+
+import java.util.Locale;
+
+/**
+ * Patrones LIKE a partir del texto de búsqueda ingresado por el usuario.
+ * Los comodines del texto se escapan con {@link #ESCAPE}, que debe pasarse a
+ * CriteriaBuilder.like para que se interpreten de forma literal.
+ */
+public final class LikePatterns {
+
+    /**
+     * Carácter de escape de los patrones generados
+     */
+    public static final char ESCAPE = '\\';
+
+    private LikePatterns() {
+    }
+
+    /**
+     * Patrón "contiene" en minúsculas: %texto%
+     */
+    public static String contains(String search) {
+        return "%" + escape(search.trim().toLowerCase(Locale.ROOT)) + "%";
+    }
+
+    /**
+     * Escapar comodines de LIKE en el texto ingresado por el usuario.
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
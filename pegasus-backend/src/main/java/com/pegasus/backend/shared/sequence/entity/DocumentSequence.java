@@ -0,0 +1,35 @@
+package com.pegasus.backend.shared.sequence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Entidad DocumentSequence - Secuencia de numeración por serie y periodo
+ * Tabla: document_sequences
+ */
+@Entity
+@Table(name = "document_sequences")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentSequence {
+
+    @Id
+    @Column(name = "sequence_key", length = 30)
+    private String sequenceKey;
+
+    @Column(name = "last_value", nullable = false)
+    private Long lastValue;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
@@ -0,0 +1,34 @@
+package com.pegasus.backend.shared.sequence.repository;
+
+import com.pegasus.backend.shared.sequence.entity.DocumentSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repositorio para DocumentSequence
+ */
+@Repository
+public interface DocumentSequenceRepository extends JpaRepository<DocumentSequence, String> {
+
+    /**
+     * Reservar un bloque de números para la secuencia (creándola si no existe).
+     * Se ejecuta en su propia transacción: si la transacción del llamador revierte,
+     * el bloque sigue reservado y ningún otro nodo puede recibir los mismos números.
+     *
+     * @return Último número del bloque reservado (el bloque es (valor - blockSize, valor])
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = """
+            INSERT INTO document_sequences (sequence_key, last_value, updated_at)
+            VALUES (:sequenceKey, :blockSize, NOW())
+            ON CONFLICT (sequence_key) DO UPDATE
+            SET last_value = document_sequences.last_value + EXCLUDED.last_value,
+                updated_at = NOW()
+            RETURNING last_value
+            """, nativeQuery = true)
+    Long allocateBlock(@Param("sequenceKey") String sequenceKey, @Param("blockSize") long blockSize);
+}
@@ -0,0 +1,74 @@
+package com.pegasus.backend.shared.sequence.service;
+
+import com.pegasus.backend.shared.sequence.repository.DocumentSequenceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generador de números de documento (pedidos, RMAs) sin colisiones.
+ *
+ * Cada serie y periodo (ej. ORD-20260115) tiene una fila en document_sequences.
+ * Cada nodo reserva bloques de {@code document-number.block-size} números con una
+ * única sentencia atómica y los entrega desde memoria (hi/lo), por lo que no se
+ * consulta la existencia de ningún número. Los números no usados de un bloque se
+ * pierden al reiniciar (huecos), pero nunca se repiten.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentNumberGenerator {
+
+    private final DocumentSequenceRepository documentSequenceRepository;
+
+    @Value("${document-number.block-size:20}")
+    private long blockSize;
+
+    /**
+     * Bloque actual por serie (solo el del periodo en curso)
+     */
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    /**
+     * Obtener el siguiente número de la serie en el periodo indicado.
+     * Formato: {SERIE}-{PERIODO}-{NNNNN}
+     *
+     * @param series Serie del documento (ej. ORD, RMA)
+     * @param period Periodo de la numeración (ej. 20260115, 2026)
+     */
+    public String next(String series, String period) {
+        String sequenceKey = series + "-" + period;
+        Block block = blocks.compute(series,
+                (key, current) -> current != null && current.sequenceKey.equals(sequenceKey) ? current
+                        : new Block(sequenceKey));
+        return String.format("%s-%05d", sequenceKey, block.next());
+    }
+
+    /**
+     * Rango de números reservado por este nodo para una secuencia.
+     */
+    private final class Block {
+
+        private final String sequenceKey;
+        private long next = 1;
+        private long max = 0;
+
+        private Block(String sequenceKey) {
+            this.sequenceKey = sequenceKey;
+        }
+
+        synchronized long next() {
+            if (next > max) {
+                long size = Math.max(1, blockSize);
+                max = documentSequenceRepository.allocateBlock(sequenceKey, size);
+                next = max - size + 1;
+                log.debug("Allocated document numbers {}-{} for {}", next, max, sequenceKey);
+            }
+            return next++;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+-- ============================================
+-- Migration V22: Create document_sequences
+-- Purpose: Collision-free document numbers (orders, RMAs) allocated in blocks (hi/lo)
+-- ============================================
+
+CREATE TABLE public.document_sequences (
+    sequence_key varchar(30) NOT NULL,
+    last_value bigint NOT NULL DEFAULT 0,
+    updated_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT document_sequences_pk PRIMARY KEY (sequence_key),
+    CONSTRAINT document_sequences_last_value_check CHECK (last_value >= 0)
+);
+
+COMMENT ON TABLE public.document_sequences IS 'Secuencias por serie y periodo para numeración de documentos (ej. ORD-20260115, RMA-2026)';
+COMMENT ON COLUMN public.document_sequences.last_value IS 'Último número asignado a algún nodo (fin del último bloque reservado)';
+
+-- Continuar la numeración existente para no reutilizar números ya emitidos
+INSERT INTO public.document_sequences (sequence_key, last_value)
+SELECT left(order_number, 12), max(substring(order_number FROM 14)::bigint)
+FROM public.orders
+WHERE order_number ~ '^ORD-[0-9]{8}-[0-9]+$'
+GROUP BY left(order_number, 12);
+
+INSERT INTO public.document_sequences (sequence_key, last_value)
+SELECT left(rma_number, 8), max(substring(rma_number FROM 10)::bigint)
+FROM public.rmas
+WHERE rma_number ~ '^RMA-[0-9]{4}-[0-9]+$'
+GROUP BY left(rma_number, 8);
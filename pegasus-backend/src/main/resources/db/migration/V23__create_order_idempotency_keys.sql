@@ -0,0 +1,20 @@
+-- ============================================
+-- Migration V23: Create order_idempotency_keys
+-- Purpose: Idempotency-Key support for storefront order creation (replay instead of duplicate orders)
+-- ============================================
+
+CREATE TABLE public.order_idempotency_keys (
+    customer_id bigint NOT NULL,
+    idempotency_key varchar(100) NOT NULL,
+    request_hash char(64) NOT NULL,
+    order_id bigint,
+    created_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at timestamptz NOT NULL,
+    CONSTRAINT order_idempotency_keys_pk PRIMARY KEY (customer_id, idempotency_key)
+);
+
+COMMENT ON TABLE public.order_idempotency_keys IS 'Claves de idempotencia de creación de pedidos del storefront (con expiración)';
+COMMENT ON COLUMN public.order_idempotency_keys.request_hash IS 'SHA-256 del cuerpo de la solicitud original';
+COMMENT ON COLUMN public.order_idempotency_keys.order_id IS 'Pedido creado (NULL mientras la solicitud está en curso)';
+
+CREATE INDEX idx_order_idempotency_keys_expires_at ON public.order_idempotency_keys USING btree (expires_at);
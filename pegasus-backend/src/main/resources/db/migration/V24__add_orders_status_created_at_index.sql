@@ -0,0 +1,6 @@
+-- ============================================
+-- Migration V24: Add (status, created_at) index to orders
+-- Purpose: Range scans of orders by status and age (reservation expiry job, backoffice filters)
+-- ============================================
+
+CREATE INDEX idx_orders_status_created_at ON public.orders USING btree (status, created_at);
@@ -0,0 +1,74 @@
+-- ============================================
+-- Migration V25: Add search_text to orders
+-- Purpose: Indexed backoffice order search (order number, customer name, email, document)
+-- ============================================
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE public.orders
+    ADD COLUMN search_text text;
+
+COMMENT ON COLUMN public.orders.search_text IS 'Texto de búsqueda en minúsculas (número de pedido, nombre, email y documento del cliente), mantenido por triggers';
+
+-- Texto de búsqueda de un pedido
+CREATE OR REPLACE FUNCTION public.orders_search_text(p_order_number varchar, p_customer_id bigint)
+RETURNS text
+LANGUAGE sql
+STABLE
+AS $$
+    SELECT lower(concat_ws(' ', p_order_number, c.first_name, c.last_name, c.email, c.doc_number))
+    FROM public.customers c
+    WHERE c.id = p_customer_id
+$$;
+
+-- Mantener search_text al crear un pedido o cambiar su número o cliente
+CREATE OR REPLACE FUNCTION public.orders_set_search_text()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    NEW.search_text := public.orders_search_text(NEW.order_number, NEW.customer_id);
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER trg_orders_search_text_insert
+    BEFORE INSERT ON public.orders
+    FOR EACH ROW
+    EXECUTE FUNCTION public.orders_set_search_text();
+
+CREATE TRIGGER trg_orders_search_text_update
+    BEFORE UPDATE OF order_number, customer_id ON public.orders
+    FOR EACH ROW
+    WHEN (NEW.order_number IS DISTINCT FROM OLD.order_number OR NEW.customer_id IS DISTINCT FROM OLD.customer_id)
+    EXECUTE FUNCTION public.orders_set_search_text();
+
+-- Propagar cambios de nombre, email o documento del cliente a sus pedidos
+CREATE OR REPLACE FUNCTION public.customers_refresh_order_search_text()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    UPDATE public.orders
+    SET search_text = public.orders_search_text(order_number, customer_id)
+    WHERE customer_id = NEW.id;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_customers_order_search_text
+    AFTER UPDATE OF first_name, last_name, email, doc_number ON public.customers
+    FOR EACH ROW
+    WHEN (NEW.first_name IS DISTINCT FROM OLD.first_name
+        OR NEW.last_name IS DISTINCT FROM OLD.last_name
+        OR NEW.email IS DISTINCT FROM OLD.email
+        OR NEW.doc_number IS DISTINCT FROM OLD.doc_number)
+    EXECUTE FUNCTION public.customers_refresh_order_search_text();
+
+-- Poblar pedidos existentes
+UPDATE public.orders o
+SET search_text = lower(concat_ws(' ', o.order_number, c.first_name, c.last_name, c.email, c.doc_number))
+FROM public.customers c
+WHERE c.id = o.customer_id;
+
+CREATE INDEX idx_orders_search_text ON public.orders USING gin (search_text gin_trgm_ops);
@@ -0,0 +1,30 @@
+-- ============================================
+-- Migration V26: Create outbox_events
+-- Purpose: Transactional outbox for work done after checkout (shipment, payment, notifications)
+-- ============================================
+
+CREATE TABLE public.outbox_events (
+    id bigint NOT NULL GENERATED ALWAYS AS IDENTITY,
+    aggregate_type varchar(50) NOT NULL,
+    aggregate_id bigint NOT NULL,
+    event_type varchar(50) NOT NULL,
+    payload jsonb NOT NULL DEFAULT '{}'::jsonb,
+    status varchar(20) NOT NULL DEFAULT 'PENDING',
+    attempts integer NOT NULL DEFAULT 0,
+    next_attempt_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error text,
+    created_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    processed_at timestamptz,
+    CONSTRAINT outbox_events_pk PRIMARY KEY (id),
+    CONSTRAINT outbox_events_status_check CHECK (status IN ('PENDING', 'PROCESSED', 'FAILED'))
+);
+
+COMMENT ON TABLE public.outbox_events IS 'Eventos escritos en la misma transacción que su origen y procesados de forma asíncrona con reintentos';
+COMMENT ON COLUMN public.outbox_events.next_attempt_at IS 'Momento a partir del cual el evento puede (re)intentarse';
+
+CREATE INDEX idx_outbox_events_pending ON public.outbox_events USING btree (next_attempt_at, id)
+    WHERE status = 'PENDING';
+CREATE INDEX idx_outbox_events_aggregate ON public.outbox_events USING btree (aggregate_type, aggregate_id, id)
+    WHERE status = 'PENDING';
+CREATE INDEX idx_outbox_events_processed_at ON public.outbox_events USING btree (processed_at)
+    WHERE status = 'PROCESSED';
@@ -0,0 +1,41 @@
+-- ============================================
+-- Migration V27: Create order_allocations
+-- Purpose: Per-warehouse stock reservations of each order (multi-warehouse fulfilment)
+-- ============================================
+
+CREATE TABLE public.order_allocations (
+    id bigint NOT NULL GENERATED ALWAYS AS IDENTITY,
+    order_id bigint NOT NULL,
+    warehouse_id bigint NOT NULL,
+    variant_id bigint NOT NULL,
+    quantity integer NOT NULL,
+    created_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT order_allocations_pk PRIMARY KEY (id),
+    CONSTRAINT order_allocations_uq UNIQUE (order_id, warehouse_id, variant_id),
+    CONSTRAINT order_allocations_quantity_check CHECK (quantity > 0),
+    CONSTRAINT order_allocations_order_fk FOREIGN KEY (order_id)
+        REFERENCES public.orders (id) MATCH SIMPLE
+        ON DELETE CASCADE ON UPDATE CASCADE,
+    CONSTRAINT order_allocations_warehouse_fk FOREIGN KEY (warehouse_id)
+        REFERENCES public.warehouses (id) MATCH SIMPLE
+        ON DELETE RESTRICT ON UPDATE CASCADE,
+    CONSTRAINT order_allocations_variant_fk FOREIGN KEY (variant_id)
+        REFERENCES public.variants (id) MATCH SIMPLE
+        ON DELETE NO ACTION ON UPDATE CASCADE
+);
+
+COMMENT ON TABLE public.order_allocations IS 'Stock reservado por cada pedido en cada almacén; la cancelación y el despacho operan sobre estas filas';
+
+CREATE INDEX idx_order_allocations_warehouse_variant ON public.order_allocations USING btree (warehouse_id, variant_id);
+
+-- Los pedidos existentes reservaron siempre en el almacén 1. Solo se registran los que
+-- aún tienen reserva (PENDING..PROCESSING) y los SHIPPED, cuyo envío en tránsito puede
+-- eliminarse y devolver el stock a su almacén; entregados, cancelados y reembolsados no.
+INSERT INTO public.order_allocations (order_id, warehouse_id, variant_id, quantity)
+SELECT oi.order_id, 1, oi.variant_id, SUM(oi.quantity)
+FROM public.order_items oi
+JOIN public.orders o ON o.id = oi.order_id
+WHERE o.status IN ('PENDING', 'AWAIT_PAYMENT', 'PAID', 'PROCESSING', 'SHIPPED')
+AND EXISTS (SELECT 1 FROM public.warehouses w WHERE w.id = 1)
+GROUP BY oi.order_id, oi.variant_id
+HAVING SUM(oi.quantity) > 0;
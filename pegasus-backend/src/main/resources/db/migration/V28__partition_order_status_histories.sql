@@ -0,0 +1,144 @@
+-- ============================================
+-- Migration V28: Partition order_status_histories by month
+-- Purpose: Monthly range partitions on created_at (America/Lima months), automatic
+--          creation of future partitions and archiving of old ones into the "cold" schema
+-- ============================================
+
+CREATE SCHEMA IF NOT EXISTS cold;
+
+COMMENT ON SCHEMA cold IS 'Datos históricos archivados (particiones separadas de las tablas activas)';
+
+-- 1) Tabla particionada (la PK debe incluir la clave de partición)
+ALTER TABLE public.order_status_histories RENAME TO order_status_histories_legacy;
+ALTER TABLE public.order_status_histories_legacy
+    RENAME CONSTRAINT order_status_histories_pk TO order_status_histories_legacy_pk;
+
+CREATE TABLE public.order_status_histories (
+    id bigint NOT NULL GENERATED ALWAYS AS IDENTITY,
+    order_id bigint NOT NULL,
+    comments text,
+    status varchar(20) NOT NULL,
+    created_by bigint,
+    created_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT order_status_histories_pk PRIMARY KEY (id, created_at),
+    CONSTRAINT order_status_histories_status_check CHECK (status IN (
+        'PENDING', 'AWAIT_PAYMENT', 'PAID', 'PROCESSING',
+        'SHIPPED', 'DELIVERED', 'CANCELLED', 'REFUNDED'
+    )),
+    CONSTRAINT order_status_histories_orders_fk FOREIGN KEY (order_id)
+        REFERENCES public.orders (id) MATCH SIMPLE
+        ON DELETE NO ACTION ON UPDATE NO ACTION,
+    CONSTRAINT order_status_histories_user_fk FOREIGN KEY (created_by)
+        REFERENCES public.users (id) MATCH SIMPLE
+        ON DELETE SET NULL ON UPDATE CASCADE
+) PARTITION BY RANGE (created_at);
+
+COMMENT ON TABLE public.order_status_histories IS 'Historial de estados de pedidos, particionado por mes (created_at)';
+COMMENT ON COLUMN public.order_status_histories.status IS 'Estado registrado en el historial';
+
+-- Red de seguridad: filas fuera de las particiones creadas (debe permanecer vacía)
+CREATE TABLE public.order_status_histories_default PARTITION OF public.order_status_histories DEFAULT;
+
+CREATE INDEX idx_order_status_histories_order_id ON public.order_status_histories
+    USING btree (order_id, created_at);
+CREATE INDEX idx_order_status_histories_created_at ON public.order_status_histories
+    USING btree (created_at);
+
+-- Tabla archivada: mismas columnas, sin claves foráneas; recibe las particiones antiguas
+CREATE TABLE cold.order_status_histories (
+    id bigint NOT NULL,
+    order_id bigint NOT NULL,
+    comments text,
+    status varchar(20) NOT NULL,
+    created_by bigint,
+    created_at timestamptz NOT NULL,
+    CONSTRAINT cold_order_status_histories_pk PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+COMMENT ON TABLE cold.order_status_histories IS 'Particiones archivadas de public.order_status_histories (solo lectura, reportes históricos)';
+
+-- 2) Creación de particiones mensuales: order_status_histories_yYYYYmMM
+CREATE OR REPLACE FUNCTION public.create_order_status_history_partitions(p_from timestamptz, p_to timestamptz)
+RETURNS integer
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_month date := date_trunc('month', p_from AT TIME ZONE 'America/Lima')::date;
+    v_last date := date_trunc('month', p_to AT TIME ZONE 'America/Lima')::date;
+    v_name text;
+    v_created integer := 0;
+BEGIN
+    WHILE v_month <= v_last LOOP
+        v_name := 'order_status_histories_' || to_char(v_month, '"y"YYYY"m"MM');
+        IF to_regclass('public.' || v_name) IS NULL AND to_regclass('cold.' || v_name) IS NULL THEN
+            EXECUTE format(
+                'CREATE TABLE public.%I PARTITION OF public.order_status_histories FOR VALUES FROM (%L) TO (%L)',
+                v_name,
+                v_month::timestamp AT TIME ZONE 'America/Lima',
+                (v_month + interval '1 month')::timestamp AT TIME ZONE 'America/Lima');
+            v_created := v_created + 1;
+        END IF;
+        v_month := (v_month + interval '1 month')::date;
+    END LOOP;
+    RETURN v_created;
+END;
+$$;
+
+COMMENT ON FUNCTION public.create_order_status_history_partitions(timestamptz, timestamptz)
+    IS 'Crea las particiones mensuales faltantes entre dos fechas; devuelve cuántas creó';
+
+-- 3) Archivado: separar los meses completos anteriores a p_before y moverlos a cold
+CREATE OR REPLACE FUNCTION public.archive_order_status_history_partitions(p_before timestamptz)
+RETURNS integer
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_partition record;
+    v_month date;
+    v_archived integer := 0;
+BEGIN
+    FOR v_partition IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        JOIN pg_class p ON p.oid = i.inhparent
+        JOIN pg_namespace n ON n.oid = p.relnamespace
+        WHERE n.nspname = 'public'
+        AND p.relname = 'order_status_histories'
+        AND c.relname ~ '^order_status_histories_y[0-9]{4}m[0-9]{2}$'
+        ORDER BY c.relname
+    LOOP
+        v_month := to_date(right(v_partition.relname, 7), 'YYYY"m"MM');
+        IF ((v_month + interval '1 month')::timestamp AT TIME ZONE 'America/Lima') <= p_before THEN
+            EXECUTE format('ALTER TABLE public.order_status_histories DETACH PARTITION public.%I',
+                v_partition.relname);
+            EXECUTE format('ALTER TABLE public.%I SET SCHEMA cold', v_partition.relname);
+            EXECUTE format(
+                'ALTER TABLE cold.order_status_histories ATTACH PARTITION cold.%I FOR VALUES FROM (%L) TO (%L)',
+                v_partition.relname,
+                v_month::timestamp AT TIME ZONE 'America/Lima',
+                (v_month + interval '1 month')::timestamp AT TIME ZONE 'America/Lima');
+            v_archived := v_archived + 1;
+        END IF;
+    END LOOP;
+    RETURN v_archived;
+END;
+$$;
+
+COMMENT ON FUNCTION public.archive_order_status_history_partitions(timestamptz)
+    IS 'Mueve a cold.order_status_histories las particiones de meses terminados antes de la fecha; devuelve cuántas movió';
+
+-- 4) Migrar los datos existentes (particiones desde el primer mes con datos hasta 3 meses adelante)
+SELECT public.create_order_status_history_partitions(
+    COALESCE((SELECT MIN(created_at) FROM public.order_status_histories_legacy), CURRENT_TIMESTAMP),
+    CURRENT_TIMESTAMP + interval '3 months');
+
+INSERT INTO public.order_status_histories (id, order_id, comments, status, created_by, created_at)
+OVERRIDING SYSTEM VALUE
+SELECT id, order_id, comments, status, created_by, created_at
+FROM public.order_status_histories_legacy;
+
+SELECT setval(pg_get_serial_sequence('public.order_status_histories', 'id'),
+    COALESCE((SELECT MAX(id) FROM public.order_status_histories), 0) + 1, false);
+
+DROP TABLE public.order_status_histories_legacy;
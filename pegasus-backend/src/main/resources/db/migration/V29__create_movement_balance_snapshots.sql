@@ -0,0 +1,32 @@
+-- ============================================
+-- Migration V29: Kardex balance snapshots
+-- Purpose: Periodic per-(variant, warehouse) balance checkpoints for as-of-date stock queries,
+--          and a (variant_id, warehouse_id, created_at DESC) index to replay movements since them
+-- ============================================
+
+-- Reemplaza a idx_movements_variant_warehouse (mismo prefijo)
+CREATE INDEX idx_movements_variant_warehouse_created_at ON public.movements
+    USING btree (variant_id, warehouse_id, created_at DESC);
+DROP INDEX IF EXISTS public.idx_movements_variant_warehouse;
+
+CREATE TABLE public.movement_balance_snapshots (
+    id bigint NOT NULL GENERATED ALWAYS AS IDENTITY,
+    variant_id bigint NOT NULL,
+    warehouse_id bigint NOT NULL,
+    snapshot_at timestamptz NOT NULL,
+    balance integer NOT NULL,
+    created_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT movement_balance_snapshots_pk PRIMARY KEY (id),
+    CONSTRAINT movement_balance_snapshots_uq UNIQUE (variant_id, warehouse_id, snapshot_at),
+    CONSTRAINT movement_balance_snapshots_warehouse_fk FOREIGN KEY (warehouse_id)
+        REFERENCES public.warehouses (id) MATCH SIMPLE
+        ON DELETE CASCADE ON UPDATE CASCADE,
+    CONSTRAINT movement_balance_snapshots_variant_fk FOREIGN KEY (variant_id)
+        REFERENCES public.variants (id) MATCH SIMPLE
+        ON DELETE CASCADE ON UPDATE CASCADE
+);
+
+COMMENT ON TABLE public.movement_balance_snapshots IS 'Saldo físico de cada variante y almacén al cierre de snapshot_at (puntos de control del kardex)';
+COMMENT ON COLUMN public.movement_balance_snapshots.snapshot_at IS 'Incluye los movimientos con created_at <= snapshot_at';
+
+CREATE INDEX idx_movement_balance_snapshots_snapshot_at ON public.movement_balance_snapshots USING btree (snapshot_at);
@@ -0,0 +1,11 @@
+-- ============================================
+-- Migration V30: Movement search indexes
+-- Purpose: Index-ordered Kardex pages for the common filter combinations
+--          (variant only, warehouse only); variant + warehouse is covered by V29
+--          and date-only / no filter by idx_movements_date (V4)
+-- ============================================
+
+CREATE INDEX idx_movements_variant_created_at ON public.movements
+    USING btree (variant_id, created_at DESC);
+CREATE INDEX idx_movements_warehouse_created_at ON public.movements
+    USING btree (warehouse_id, created_at DESC);
@@ -9,6 +9,9 @@ SET search_path TO pg_catalog, public;
 -- Enable pgvector extension for semantic search
 CREATE EXTENSION IF NOT EXISTS vector;
 
+-- Enable pg_trgm extension for substring search (orders.search_text)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
 -- ============================================
 -- RBAC: Users, Roles, Modules
 -- ============================================
@@ -337,7 +340,9 @@ COMMENT ON COLUMN public.movements.operation_type IS 'Tipo de operacion de inven
 
 CREATE INDEX idx_movements_tables ON public.movements USING btree (reference_id, reference_table);
 CREATE INDEX idx_modules_date ON public.movements USING btree (created_at);
-CREATE INDEX idx_movements_variant_warehouse ON public.movements USING btree (variant_id, warehouse_id);
+CREATE INDEX idx_movements_variant_warehouse_created_at ON public.movements USING btree (variant_id, warehouse_id, created_at DESC);
+CREATE INDEX idx_movements_variant_created_at ON public.movements USING btree (variant_id, created_at DESC);
+CREATE INDEX idx_movements_warehouse_created_at ON public.movements USING btree (warehouse_id, created_at DESC);
 
 -- ============================================
 -- CUSTOMERS: Customers, Addresses
@@ -402,6 +407,7 @@ CREATE TABLE public.orders (
     shipping_address jsonb NOT NULL,
     billing_address jsonb,
     preferred_invoice_type varchar(20),
+    search_text text,
     is_active boolean NOT NULL DEFAULT true,
     created_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -419,10 +425,80 @@ CREATE TABLE public.orders (
 COMMENT ON COLUMN public.orders.status IS 'Estado del pedido';
 COMMENT ON COLUMN public.orders.is_active IS 'Indica si el pedido esta activo (soft delete)';
 COMMENT ON COLUMN public.orders.preferred_invoice_type IS 'Tipo de comprobante preferido por el cliente: BILL (Boleta) o INVOICE (Factura)';
+COMMENT ON COLUMN public.orders.search_text IS 'Texto de búsqueda en minúsculas (número de pedido, nombre, email y documento del cliente), mantenido por triggers';
 
 CREATE INDEX idx_orders_customer ON public.orders USING btree (customer_id);
 CREATE INDEX idx_orders_order_number ON public.orders USING btree (order_number);
 CREATE INDEX idx_orders_created_at ON public.orders USING btree (created_at);
+CREATE INDEX idx_orders_status_created_at ON public.orders USING btree (status, created_at);
+CREATE INDEX idx_orders_search_text ON public.orders USING gin (search_text gin_trgm_ops);
+
+CREATE OR REPLACE FUNCTION public.orders_search_text(p_order_number varchar, p_customer_id bigint)
+RETURNS text
+LANGUAGE sql
+STABLE
+AS $$
+    SELECT lower(concat_ws(' ', p_order_number, c.first_name, c.last_name, c.email, c.doc_number))
+    FROM public.customers c
+    WHERE c.id = p_customer_id
+$$;
+
+CREATE OR REPLACE FUNCTION public.orders_set_search_text()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    NEW.search_text := public.orders_search_text(NEW.order_number, NEW.customer_id);
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER trg_orders_search_text_insert
+    BEFORE INSERT ON public.orders
+    FOR EACH ROW
+    EXECUTE FUNCTION public.orders_set_search_text();
+
+CREATE TRIGGER trg_orders_search_text_update
+    BEFORE UPDATE OF order_number, customer_id ON public.orders
+    FOR EACH ROW
+    WHEN (NEW.order_number IS DISTINCT FROM OLD.order_number OR NEW.customer_id IS DISTINCT FROM OLD.customer_id)
+    EXECUTE FUNCTION public.orders_set_search_text();
+
+CREATE OR REPLACE FUNCTION public.customers_refresh_order_search_text()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    UPDATE public.orders
+    SET search_text = public.orders_search_text(order_number, customer_id)
+    WHERE customer_id = NEW.id;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER trg_customers_order_search_text
+    AFTER UPDATE OF first_name, last_name, email, doc_number ON public.customers
+    FOR EACH ROW
+    WHEN (NEW.first_name IS DISTINCT FROM OLD.first_name
+        OR NEW.last_name IS DISTINCT FROM OLD.last_name
+        OR NEW.email IS DISTINCT FROM OLD.email
+        OR NEW.doc_number IS DISTINCT FROM OLD.doc_number)
+    EXECUTE FUNCTION public.customers_refresh_order_search_text();
+
+CREATE TABLE public.order_idempotency_keys (
+    customer_id bigint NOT NULL,
+    idempotency_key varchar(100) NOT NULL,
+    request_hash char(64) NOT NULL,
+    order_id bigint,
+    created_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at timestamptz NOT NULL,
+    CONSTRAINT order_idempotency_keys_pk PRIMARY KEY (customer_id, idempotency_key)
+);
+COMMENT ON TABLE public.order_idempotency_keys IS 'Claves de idempotencia de creación de pedidos del storefront (con expiración)';
+COMMENT ON COLUMN public.order_idempotency_keys.request_hash IS 'SHA-256 del cuerpo de la solicitud original';
+COMMENT ON COLUMN public.order_idempotency_keys.order_id IS 'Pedido creado (NULL mientras la solicitud está en curso)';
+
+CREATE INDEX idx_order_idempotency_keys_expires_at ON public.order_idempotency_keys USING btree (expires_at);
 
 CREATE TABLE public.order_items (
     id bigint NOT NULL GENERATED ALWAYS AS IDENTITY,
@@ -447,14 +523,18 @@ CREATE TABLE public.order_items (
         ON DELETE NO ACTION ON UPDATE CASCADE
 );
 
+CREATE SCHEMA IF NOT EXISTS cold;
+
+COMMENT ON SCHEMA cold IS 'Datos históricos archivados (particiones separadas de las tablas activas)';
+
 CREATE TABLE public.order_status_histories (
-    id integer NOT NULL GENERATED ALWAYS AS IDENTITY,
+    id bigint NOT NULL GENERATED ALWAYS AS IDENTITY,
     order_id bigint NOT NULL,
     comments text,
     status varchar(20) NOT NULL,
     created_by bigint,
     created_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    CONSTRAINT order_status_histories_pk PRIMARY KEY (id),
+    CONSTRAINT order_status_histories_pk PRIMARY KEY (id, created_at),
     CONSTRAINT order_status_histories_status_check CHECK (status IN (
         'PENDING', 'AWAIT_PAYMENT', 'PAID', 'PROCESSING',
         'SHIPPED', 'DELIVERED', 'CANCELLED', 'REFUNDED'
@@ -462,12 +542,109 @@ CREATE TABLE public.order_status_histories (
     CONSTRAINT order_status_histories_orders_fk FOREIGN KEY (order_id)
         REFERENCES public.orders (id) MATCH SIMPLE
         ON DELETE NO ACTION ON UPDATE NO ACTION,
-    CONSTRAINT orders_user_fk FOREIGN KEY (created_by)
+    CONSTRAINT order_status_histories_user_fk FOREIGN KEY (created_by)
         REFERENCES public.users (id) MATCH SIMPLE
         ON DELETE SET NULL ON UPDATE CASCADE
-);
+) PARTITION BY RANGE (created_at);
+
+COMMENT ON TABLE public.order_status_histories IS 'Historial de estados de pedidos, particionado por mes (created_at)';
 COMMENT ON COLUMN public.order_status_histories.status IS 'Estado registrado en el historial';
 
+-- Red de seguridad: filas fuera de las particiones creadas (debe permanecer vacía)
+CREATE TABLE public.order_status_histories_default PARTITION OF public.order_status_histories DEFAULT;
+
+CREATE INDEX idx_order_status_histories_order_id ON public.order_status_histories
+    USING btree (order_id, created_at);
+CREATE INDEX idx_order_status_histories_created_at ON public.order_status_histories
+    USING btree (created_at);
+
+-- Tabla archivada: mismas columnas, sin claves foráneas; recibe las particiones antiguas
+CREATE TABLE cold.order_status_histories (
+    id bigint NOT NULL,
+    order_id bigint NOT NULL,
+    comments text,
+    status varchar(20) NOT NULL,
+    created_by bigint,
+    created_at timestamptz NOT NULL,
+    CONSTRAINT cold_order_status_histories_pk PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+COMMENT ON TABLE cold.order_status_histories IS 'Particiones archivadas de public.order_status_histories (solo lectura, reportes históricos)';
+
+-- 2) Creación de particiones mensuales: order_status_histories_yYYYYmMM
+CREATE OR REPLACE FUNCTION public.create_order_status_history_partitions(p_from timestamptz, p_to timestamptz)
+RETURNS integer
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_month date := date_trunc('month', p_from AT TIME ZONE 'America/Lima')::date;
+    v_last date := date_trunc('month', p_to AT TIME ZONE 'America/Lima')::date;
+    v_name text;
+    v_created integer := 0;
+BEGIN
+    WHILE v_month <= v_last LOOP
+        v_name := 'order_status_histories_' || to_char(v_month, '"y"YYYY"m"MM');
+        IF to_regclass('public.' || v_name) IS NULL AND to_regclass('cold.' || v_name) IS NULL THEN
+            EXECUTE format(
+                'CREATE TABLE public.%I PARTITION OF public.order_status_histories FOR VALUES FROM (%L) TO (%L)',
+                v_name,
+                v_month::timestamp AT TIME ZONE 'America/Lima',
+                (v_month + interval '1 month')::timestamp AT TIME ZONE 'America/Lima');
+            v_created := v_created + 1;
+        END IF;
+        v_month := (v_month + interval '1 month')::date;
+    END LOOP;
+    RETURN v_created;
+END;
+$$;
+
+COMMENT ON FUNCTION public.create_order_status_history_partitions(timestamptz, timestamptz)
+    IS 'Crea las particiones mensuales faltantes entre dos fechas; devuelve cuántas creó';
+
+-- 3) Archivado: separar los meses completos anteriores a p_before y moverlos a cold
+CREATE OR REPLACE FUNCTION public.archive_order_status_history_partitions(p_before timestamptz)
+RETURNS integer
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_partition record;
+    v_month date;
+    v_archived integer := 0;
+BEGIN
+    FOR v_partition IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        JOIN pg_class p ON p.oid = i.inhparent
+        JOIN pg_namespace n ON n.oid = p.relnamespace
+        WHERE n.nspname = 'public'
+        AND p.relname = 'order_status_histories'
+        AND c.relname ~ '^order_status_histories_y[0-9]{4}m[0-9]{2}$'
+        ORDER BY c.relname
+    LOOP
+        v_month := to_date(right(v_partition.relname, 7), 'YYYY"m"MM');
+        IF ((v_month + interval '1 month')::timestamp AT TIME ZONE 'America/Lima') <= p_before THEN
+            EXECUTE format('ALTER TABLE public.order_status_histories DETACH PARTITION public.%I',
+                v_partition.relname);
+            EXECUTE format('ALTER TABLE public.%I SET SCHEMA cold', v_partition.relname);
+            EXECUTE format(
+                'ALTER TABLE cold.order_status_histories ATTACH PARTITION cold.%I FOR VALUES FROM (%L) TO (%L)',
+                v_partition.relname,
+                v_month::timestamp AT TIME ZONE 'America/Lima',
+                (v_month + interval '1 month')::timestamp AT TIME ZONE 'America/Lima');
+            v_archived := v_archived + 1;
+        END IF;
+    END LOOP;
+    RETURN v_archived;
+END;
+$$;
+
+COMMENT ON FUNCTION public.archive_order_status_history_partitions(timestamptz)
+    IS 'Mueve a cold.order_status_histories las particiones de meses terminados antes de la fecha; devuelve cuántas movió';
+
+-- Particiones iniciales (el job de mantenimiento crea las siguientes)
+SELECT public.create_order_status_history_partitions(CURRENT_TIMESTAMP, CURRENT_TIMESTAMP + interval '3 months');
+
 -- ============================================
 -- SETTINGS: Business Info, Storefront Settings
 -- ============================================
@@ -900,6 +1077,105 @@ CREATE TABLE public.payments (
 CREATE INDEX idx_payments_order_id ON public.payments USING btree (order_id);
 CREATE INDEX idx_payments_payment_method_id ON public.payments USING btree (payment_method_id);
 
+-- ============================================
+-- DOCUMENT SEQUENCES: Order and RMA numbering
+-- ============================================
+
+CREATE TABLE public.document_sequences (
+    sequence_key varchar(30) NOT NULL,
+    last_value bigint NOT NULL DEFAULT 0,
+    updated_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT document_sequences_pk PRIMARY KEY (sequence_key),
+    CONSTRAINT document_sequences_last_value_check CHECK (last_value >= 0)
+);
+COMMENT ON TABLE public.document_sequences IS 'Secuencias por serie y periodo para numeración de documentos (ej. ORD-20260115, RMA-2026)';
+COMMENT ON COLUMN public.document_sequences.last_value IS 'Último número asignado a algún nodo (fin del último bloque reservado)';
+
+-- ============================================
+-- OUTBOX: Asynchronous post-checkout work
+-- ============================================
+
+CREATE TABLE public.outbox_events (
+    id bigint NOT NULL GENERATED ALWAYS AS IDENTITY,
+    aggregate_type varchar(50) NOT NULL,
+    aggregate_id bigint NOT NULL,
+    event_type varchar(50) NOT NULL,
+    payload jsonb NOT NULL DEFAULT '{}'::jsonb,
+    status varchar(20) NOT NULL DEFAULT 'PENDING',
+    attempts integer NOT NULL DEFAULT 0,
+    next_attempt_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error text,
+    created_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    processed_at timestamptz,
+    CONSTRAINT outbox_events_pk PRIMARY KEY (id),
+    CONSTRAINT outbox_events_status_check CHECK (status IN ('PENDING', 'PROCESSED', 'FAILED'))
+);
+
+COMMENT ON TABLE public.outbox_events IS 'Eventos escritos en la misma transacción que su origen y procesados de forma asíncrona con reintentos';
+COMMENT ON COLUMN public.outbox_events.next_attempt_at IS 'Momento a partir del cual el evento puede (re)intentarse';
+
+CREATE INDEX idx_outbox_events_pending ON public.outbox_events USING btree (next_attempt_at, id)
+    WHERE status = 'PENDING';
+CREATE INDEX idx_outbox_events_aggregate ON public.outbox_events USING btree (aggregate_type, aggregate_id, id)
+    WHERE status = 'PENDING';
+CREATE INDEX idx_outbox_events_processed_at ON public.outbox_events USING btree (processed_at)
+    WHERE status = 'PROCESSED';
+
+-- ============================================
+-- ORDER ALLOCATIONS: Per-warehouse reservations
+-- ============================================
+
+CREATE TABLE public.order_allocations (
+    id bigint NOT NULL GENERATED ALWAYS AS IDENTITY,
+    order_id bigint NOT NULL,
+    warehouse_id bigint NOT NULL,
+    variant_id bigint NOT NULL,
+    quantity integer NOT NULL,
+    created_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT order_allocations_pk PRIMARY KEY (id),
+    CONSTRAINT order_allocations_uq UNIQUE (order_id, warehouse_id, variant_id),
+    CONSTRAINT order_allocations_quantity_check CHECK (quantity > 0),
+    CONSTRAINT order_allocations_order_fk FOREIGN KEY (order_id)
+        REFERENCES public.orders (id) MATCH SIMPLE
+        ON DELETE CASCADE ON UPDATE CASCADE,
+    CONSTRAINT order_allocations_warehouse_fk FOREIGN KEY (warehouse_id)
+        REFERENCES public.warehouses (id) MATCH SIMPLE
+        ON DELETE RESTRICT ON UPDATE CASCADE,
+    CONSTRAINT order_allocations_variant_fk FOREIGN KEY (variant_id)
+        REFERENCES public.variants (id) MATCH SIMPLE
+        ON DELETE NO ACTION ON UPDATE CASCADE
+);
+
+COMMENT ON TABLE public.order_allocations IS 'Stock reservado por cada pedido en cada almacén; la cancelación y el despacho operan sobre estas filas';
+
+CREATE INDEX idx_order_allocations_warehouse_variant ON public.order_allocations USING btree (warehouse_id, variant_id);
+
+-- ============================================
+-- MOVEMENT BALANCE SNAPSHOTS: Kardex checkpoints
+-- ============================================
+
+CREATE TABLE public.movement_balance_snapshots (
+    id bigint NOT NULL GENERATED ALWAYS AS IDENTITY,
+    variant_id bigint NOT NULL,
+    warehouse_id bigint NOT NULL,
+    snapshot_at timestamptz NOT NULL,
+    balance integer NOT NULL,
+    created_at timestamptz NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT movement_balance_snapshots_pk PRIMARY KEY (id),
+    CONSTRAINT movement_balance_snapshots_uq UNIQUE (variant_id, warehouse_id, snapshot_at),
+    CONSTRAINT movement_balance_snapshots_warehouse_fk FOREIGN KEY (warehouse_id)
+        REFERENCES public.warehouses (id) MATCH SIMPLE
+        ON DELETE CASCADE ON UPDATE CASCADE,
+    CONSTRAINT movement_balance_snapshots_variant_fk FOREIGN KEY (variant_id)
+        REFERENCES public.variants (id) MATCH SIMPLE
+        ON DELETE CASCADE ON UPDATE CASCADE
+);
+
+COMMENT ON TABLE public.movement_balance_snapshots IS 'Saldo físico de cada variante y almacén al cierre de snapshot_at (puntos de control del kardex)';
+COMMENT ON COLUMN public.movement_balance_snapshots.snapshot_at IS 'Incluye los movimientos con created_at <= snapshot_at';
+
+CREATE INDEX idx_movement_balance_snapshots_snapshot_at ON public.movement_balance_snapshots USING btree (snapshot_at);
+
 -- ============================================
 -- END OF SCHEMA
 -- ============================================
@@ -0,0 +1,110 @@
+package com.pegasus.backend.features.inventory.repository;
+
+import com.pegasus.backend.features.inventory.service.MovementService;
+import com.pegasus.backend.support.CapturingStatementInspector;
+import com.pegasus.backend.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plan de PostgreSQL de la búsqueda del kardex para cada combinación de filtros:
+ * cada una debe leer su índice ya ordenado por created_at, sin Seq Scan ni Sort.
+ * Se explica la consulta que Hibernate genera realmente desde MovementSpecifications
+ * con la página por defecto (created_at DESC), capturada con un StatementInspector.
+ * El plan es el genérico (EXPLAIN GENERIC_PLAN, el que se reutiliza para las sentencias
+ * preparadas) con el tamaño de página fijo.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MovementSearchPlanTest extends PostgresIntegrationTest {
+
+	private static final int MOVEMENTS = 100_000;
+	private static final int VARIANTS = 50;
+	private static final int WAREHOUSES = 10;
+	private static final int PAGE_SIZE = 20;
+
+	@Autowired
+	private MovementService movementService;
+
+	private Long[] variantIds;
+	private Long[] warehouseIds;
+
+	@BeforeAll
+	void seedMovements() {
+		variantIds = LongStream.range(0, VARIANTS).mapToObj(i -> createVariant()).toArray(Long[]::new);
+		warehouseIds = LongStream.range(0, WAREHOUSES).mapToObj(i -> createWarehouse()).toArray(Long[]::new);
+		jdbcTemplate.update("""
+				INSERT INTO movements (variant_id, warehouse_id, quantity, balance, operation_type,
+				                       reference_id, reference_table, created_at)
+				SELECT v.ids[1 + g % ?], w.ids[1 + (g / ?) % ?], 1, g,
+				       (ARRAY['INVENTORY_ADJUSTMENT', 'PURCHASE', 'SALE', 'RETURN'])[1 + g % 4],
+				       g, 'plan_test', now() - g * interval '10 minutes'
+				FROM generate_series(1, ?) g,
+				     (SELECT CAST(? AS bigint[]) AS ids) v,
+				     (SELECT CAST(? AS bigint[]) AS ids) w
+				""", VARIANTS, VARIANTS, WAREHOUSES, MOVEMENTS, variantIds, warehouseIds);
+		jdbcTemplate.execute("ANALYZE movements");
+	}
+
+	@ParameterizedTest(name = "variant={0}, warehouse={1}, dates={2} -> {3}")
+	@CsvSource({
+			"false, false, false, idx_movements_date",
+			"false, false, true,  idx_movements_date",
+			"true,  false, false, idx_movements_variant_created_at",
+			"true,  false, true,  idx_movements_variant_created_at",
+			"false, true,  false, idx_movements_warehouse_created_at",
+			"false, true,  true,  idx_movements_warehouse_created_at",
+			"true,  true,  false, idx_movements_variant_warehouse_created_at",
+			"true,  true,  true,  idx_movements_variant_warehouse_created_at"
+	})
+	void searchUsesIndexForFilterCombination(boolean byVariant, boolean byWarehouse, boolean byDates,
+			String expectedIndex) {
+		OffsetDateTime to = OffsetDateTime.now().minusDays(10);
+		List<String> statements = CapturingStatementInspector.capture(() -> movementService.searchMovements(
+				byWarehouse ? warehouseIds[3] : null,
+				byVariant ? variantIds[7] : null,
+				null,
+				byDates ? to.minusDays(30) : null,
+				byDates ? to : null,
+				PageRequest.of(0, PAGE_SIZE)));
+
+		String search = statements.stream()
+				.filter(sql -> sql.toLowerCase().contains("order by"))
+				.findFirst()
+				.orElseThrow(() -> new AssertionError("No se capturó la consulta de búsqueda: " + statements));
+		String plan = String.join("\n", jdbcTemplate.queryForList(
+				"EXPLAIN (GENERIC_PLAN) " + toGenericPlanSql(search), String.class));
+
+		assertThat(plan).as(search + "\n" + plan).contains("using " + expectedIndex + " ");
+		assertThat(plan).as(search + "\n" + plan).doesNotContain("Seq Scan").doesNotContain("Sort");
+	}
+
+	/**
+	 * Fijar el tamaño de página y numerar los demás parámetros JDBC ($1, $2...)
+	 */
+	private static String toGenericPlanSql(String sql) {
+		String paged = sql
+				.replaceAll("(?i)offset \\? rows", "offset 0 rows")
+				.replaceAll("(?i)fetch first \\? rows", "fetch first " + PAGE_SIZE + " rows")
+				.replaceAll("(?i)limit \\?", "limit " + PAGE_SIZE);
+		StringBuilder numbered = new StringBuilder();
+		int parameter = 0;
+		for (char c : paged.toCharArray()) {
+			if (c == '?') {
+				numbered.append('$').append(++parameter);
+			} else {
+				numbered.append(c);
+			}
+		}
+		return numbered.toString();
+	}
+}
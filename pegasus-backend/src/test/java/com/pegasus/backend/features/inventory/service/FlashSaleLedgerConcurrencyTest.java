@@ -0,0 +1,164 @@
+package com.pegasus.backend.features.inventory.service;
+
+import com.pegasus.backend.exception.BadRequestException;
+import com.pegasus.backend.features.inventory.config.FlashSaleConfig;
+import com.pegasus.backend.features.inventory.event.StockChangedEvent;
+import com.pegasus.backend.features.inventory.repository.StockRepository;
+import com.pegasus.backend.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ledger del modo flash sale contra PostgreSQL: compradores concurrentes (con
+ * transacciones que revierten y volcados en paralelo), liberaciones recortadas y
+ * recarga del disponible tras cambios por la vía transaccional.
+ */
+class FlashSaleLedgerConcurrencyTest extends PostgresIntegrationTest {
+
+	private static final int BUYERS = 200;
+	private static final int STOCK = 50;
+
+	@Autowired
+	private StockRepository stockRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private final FlashSaleNodeGuard nodeGuard = mock(FlashSaleNodeGuard.class);
+	private FlashSaleLedger ledger;
+	private Long warehouseId;
+	private Long variantId;
+
+	@BeforeEach
+	void setUp() {
+		warehouseId = createWarehouse();
+		variantId = createVariant();
+		setStock(warehouseId, variantId, STOCK, 0);
+
+		FlashSaleConfig config = new FlashSaleConfig();
+		config.setEnabled(true);
+		config.setWarehouseId(warehouseId);
+		config.setVariantIds(List.of(variantId));
+		when(nodeGuard.ensureHeld()).thenReturn(true);
+
+		ledger = new FlashSaleLedger(config, stockRepository, nodeGuard);
+		ledger.initialize();
+	}
+
+	@Test
+	void concurrentBuyersEndWithExactReservedAndNoOversell() throws InterruptedException {
+		AtomicInteger committed = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+		AtomicBoolean buying = new AtomicBoolean(true);
+
+		Thread flusher = new Thread(() -> {
+			while (buying.get()) {
+				ledger.flush();
+			}
+		});
+		flusher.start();
+
+		ExecutorService executor = Executors.newFixedThreadPool(32);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int i = 0; i < BUYERS; i++) {
+			boolean rollsBack = i % 5 == 0;
+			executor.submit(() -> {
+				try {
+					start.await();
+					transactionTemplate.executeWithoutResult(status -> {
+						ledger.reserve(Map.of(variantId, 1));
+						if (rollsBack) {
+							status.setRollbackOnly();
+						}
+					});
+					if (!rollsBack) {
+						committed.incrementAndGet();
+					}
+				} catch (BadRequestException e) {
+					rejected.incrementAndGet();
+				} catch (Throwable e) {
+					unexpected.add(e);
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+		buying.set(false);
+		flusher.join();
+
+		// Lo revertido vuelve al disponible: los siguientes compradores agotan el resto
+		while (true) {
+			try {
+				transactionTemplate.executeWithoutResult(status -> ledger.reserve(Map.of(variantId, 1)));
+				committed.incrementAndGet();
+			} catch (BadRequestException e) {
+				break;
+			}
+		}
+		ledger.flush();
+
+		assertThat(unexpected).isEmpty();
+		assertThat(committed.get()).isEqualTo(STOCK);
+		assertThat(getStock(warehouseId, variantId)).containsExactly(STOCK, STOCK);
+	}
+
+	@Test
+	void releaseShortfallIsNotFlushedBack() {
+		transactionTemplate.executeWithoutResult(status -> ledger.reserve(Map.of(variantId, 5)));
+
+		// Cancelación antes del volcado: el UPDATE recorta en 0 lo que aún no estaba en stocks
+		transactionTemplate.executeWithoutResult(status -> {
+			stockRepository.release(warehouseId, variantId, 3, OffsetDateTime.now());
+			ledger.recordReleaseShortfall(variantId, 3);
+		});
+		ledger.flush();
+
+		assertThat(getStock(warehouseId, variantId)).containsExactly(STOCK, 2);
+	}
+
+	@Test
+	void resyncPicksUpStockReceivedThroughTheTransactionalPath() {
+		transactionTemplate.executeWithoutResult(status -> ledger.reserve(Map.of(variantId, STOCK)));
+		ledger.flush();
+
+		setStock(warehouseId, variantId, STOCK + 10, STOCK);
+		ledger.onStockChanged(new StockChangedEvent(warehouseId, variantId));
+		ledger.flush();
+
+		transactionTemplate.executeWithoutResult(status -> ledger.reserve(Map.of(variantId, 10)));
+		ledger.flush();
+		assertThat(getStock(warehouseId, variantId)).containsExactly(STOCK + 10, STOCK + 10);
+	}
+
+	@Test
+	void flushWaitsWhileTheNodeGuardIsLost() {
+		transactionTemplate.executeWithoutResult(status -> ledger.reserve(Map.of(variantId, 7)));
+
+		when(nodeGuard.ensureHeld()).thenReturn(false);
+		ledger.flush();
+		assertThat(getStock(warehouseId, variantId)).containsExactly(STOCK, 0);
+
+		when(nodeGuard.ensureHeld()).thenReturn(true);
+		ledger.flush();
+		assertThat(getStock(warehouseId, variantId)).containsExactly(STOCK, 7);
+	}
+}
@@ -0,0 +1,74 @@
+package com.pegasus.backend.features.inventory.service;
+
+import com.pegasus.backend.features.inventory.repository.MovementBalanceSnapshotRepository;
+import com.pegasus.backend.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Un movimiento que confirma después de tomarse un punto de control no queda fuera
+ * del saldo: el corte nunca pasa del inicio de las transacciones aún abiertas.
+ */
+class KardexSnapshotLateCommitTest extends PostgresIntegrationTest {
+
+	@Autowired
+	private MovementBalanceSnapshotRepository snapshotRepository;
+
+	@Autowired
+	private KardexSnapshotService kardexSnapshotService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void movementCommittedAfterTheSnapshotStillCountsInTheBalance() throws Exception {
+		Long warehouseId = createWarehouse();
+		Long variantId = createVariant();
+		insertMovement(variantId, warehouseId, 10, 10, "NOW() - interval '90 seconds'");
+
+		CountDownLatch inserted = new CountDownLatch(1);
+		CountDownLatch snapshotTaken = new CountDownLatch(1);
+		CompletableFuture<Void> lateWriter = CompletableFuture.runAsync(() -> transactionTemplate
+				.executeWithoutResult(status -> {
+					insertMovement(variantId, warehouseId, 5, 15, "NOW()");
+					inserted.countDown();
+					await(snapshotTaken);
+				}));
+
+		assertThat(inserted.await(30, TimeUnit.SECONDS)).isTrue();
+		snapshotRepository.createSnapshots(0);
+		snapshotTaken.countDown();
+		lateWriter.get(30, TimeUnit.SECONDS);
+		snapshotRepository.createSnapshots(0);
+
+		assertThat(jdbcTemplate.queryForObject("""
+				SELECT COUNT(*) FROM movement_balance_snapshots WHERE variant_id = ? AND warehouse_id = ?
+				""", Integer.class, variantId, warehouseId)).isPositive();
+		assertThat(kardexSnapshotService.getBalanceAsOf(variantId, warehouseId, OffsetDateTime.now()).balance())
+				.isEqualTo(15);
+	}
+
+	private void insertMovement(Long variantId, Long warehouseId, int quantity, int balance, String createdAt) {
+		jdbcTemplate.update("""
+				INSERT INTO movements (variant_id, warehouse_id, quantity, balance, operation_type,
+				                       reference_id, reference_table, created_at)
+				VALUES (?, ?, ?, ?, 'PURCHASE', 1, 'late_commit_test', %s)
+				""".formatted(createdAt), variantId, warehouseId, quantity, balance);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(30, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.pegasus.backend.features.inventory.service;
+
+import com.pegasus.backend.features.inventory.config.FlashSaleConfig;
+import com.pegasus.backend.features.inventory.config.StockAllocationConfig;
+import com.pegasus.backend.features.inventory.dto.WarehouseAvailability;
+import com.pegasus.backend.features.inventory.entity.Warehouse;
+import com.pegasus.backend.features.inventory.repository.StockRepository;
+import com.pegasus.backend.features.inventory.repository.WarehouseRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tiempo de decisión de la asignación en memoria para un pedido de 50 líneas
+ * (objetivo: mediana < 500 µs, p99 < 1 ms). Solo con -Pbenchmark.
+ */
+@Tag("benchmark")
+class StockAllocatorBenchmarkTest {
+
+	private static final int WAREHOUSES = 3;
+	private static final int VARIANTS = 5000;
+	private static final int ORDER_LINES = 50;
+
+	@Test
+	void fiftyLineOrderDecisionTime() {
+		StockRepository stockRepository = mock(StockRepository.class);
+		WarehouseRepository warehouseRepository = mock(WarehouseRepository.class);
+		List<Warehouse> warehouses = new ArrayList<>();
+		List<WarehouseAvailability> rows = new ArrayList<>();
+		for (long w = 1; w <= WAREHOUSES; w++) {
+			warehouses.add(Warehouse.builder().id(w).ubigeoId("15010" + w).build());
+			for (long v = 1; v <= VARIANTS; v++) {
+				rows.add(new WarehouseAvailability(w, v, 1_000_000));
+			}
+		}
+		when(warehouseRepository.findByIsActiveTrue()).thenReturn(warehouses);
+		when(stockRepository.findAvailabilityInActiveWarehouses()).thenReturn(rows);
+
+		StockAllocator allocator = new StockAllocator(new StockAllocationConfig(), new FlashSaleConfig(),
+				mock(FlashSaleLedger.class), stockRepository, warehouseRepository);
+		allocator.reloadAll();
+
+		Map<Long, Integer> order = new LinkedHashMap<>();
+		for (long v = 1; v <= ORDER_LINES; v++) {
+			order.put(v * 97 % VARIANTS + 1, 2);
+		}
+
+		// Calentamiento del JIT antes de medir
+		for (int i = 0; i < 20_000; i++) {
+			allocator.allocate(order, "150101");
+		}
+
+		long[] nanos = new long[1000];
+		for (int i = 0; i < nanos.length; i++) {
+			long start = System.nanoTime();
+			allocator.allocate(order, "150101");
+			nanos[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(nanos);
+		long median = nanos[nanos.length / 2];
+		long p99 = nanos[nanos.length * 99 / 100];
+
+		System.out.printf("Asignación de %d líneas: mediana %d µs, p99 %d µs%n",
+				ORDER_LINES, median / 1000, p99 / 1000);
+		assertThat(median).isLessThan(500_000L);
+		assertThat(p99).isLessThan(1_000_000L);
+	}
+}
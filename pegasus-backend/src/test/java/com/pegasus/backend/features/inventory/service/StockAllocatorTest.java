@@ -0,0 +1,89 @@
+package com.pegasus.backend.features.inventory.service;
+
+import com.pegasus.backend.features.inventory.config.FlashSaleConfig;
+import com.pegasus.backend.features.inventory.config.StockAllocationConfig;
+import com.pegasus.backend.features.inventory.dto.StockAllocation;
+import com.pegasus.backend.features.inventory.dto.WarehouseAvailability;
+import com.pegasus.backend.features.inventory.entity.Warehouse;
+import com.pegasus.backend.features.inventory.repository.StockRepository;
+import com.pegasus.backend.features.inventory.repository.WarehouseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Asignación en memoria: pedido de 50 líneas y lecturas del disponible durante las
+ * recargas completas. El tiempo de decisión se mide en StockAllocatorBenchmarkTest.
+ */
+class StockAllocatorTest {
+
+	private static final int WAREHOUSES = 3;
+	private static final int VARIANTS = 5000;
+	private static final int STOCK_PER_WAREHOUSE = 1_000_000;
+	private static final int ORDER_LINES = 50;
+
+	private final StockRepository stockRepository = mock(StockRepository.class);
+	private final WarehouseRepository warehouseRepository = mock(WarehouseRepository.class);
+	private StockAllocator allocator;
+
+	@BeforeEach
+	void setUp() {
+		List<Warehouse> warehouses = new ArrayList<>();
+		List<WarehouseAvailability> rows = new ArrayList<>();
+		for (long w = 1; w <= WAREHOUSES; w++) {
+			warehouses.add(Warehouse.builder().id(w).ubigeoId("15010" + w).build());
+			for (long v = 1; v <= VARIANTS; v++) {
+				rows.add(new WarehouseAvailability(w, v, STOCK_PER_WAREHOUSE));
+			}
+		}
+		when(warehouseRepository.findByIsActiveTrue()).thenReturn(warehouses);
+		when(stockRepository.findAvailabilityInActiveWarehouses()).thenReturn(rows);
+
+		allocator = new StockAllocator(new StockAllocationConfig(), new FlashSaleConfig(),
+				mock(FlashSaleLedger.class), stockRepository, warehouseRepository);
+		allocator.reloadAll();
+	}
+
+	@Test
+	void allocatesFiftyLineOrderFromNearestWarehouse() {
+		Map<Long, Integer> order = new LinkedHashMap<>();
+		for (long v = 1; v <= ORDER_LINES; v++) {
+			order.put(v * 97 % VARIANTS + 1, 2);
+		}
+
+		List<StockAllocation> allocations = allocator.allocate(order, "150101");
+
+		assertThat(allocations).hasSize(ORDER_LINES)
+				.allMatch(allocation -> allocation.warehouseId() == 1L);
+	}
+
+	@Test
+	void fullReloadNeverExposesEmptyAvailability() throws InterruptedException {
+		AtomicBoolean running = new AtomicBoolean(true);
+		Thread reloader = new Thread(() -> {
+			while (running.get()) {
+				allocator.reloadAll();
+			}
+		});
+		reloader.start();
+		try {
+			for (int i = 0; i < 200_000; i++) {
+				long variantId = i % VARIANTS + 1;
+				assertThat(allocator.getTotalAvailable(variantId))
+						.isEqualTo(WAREHOUSES * STOCK_PER_WAREHOUSE);
+			}
+		} finally {
+			running.set(false);
+			reloader.join();
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.pegasus.backend.features.inventory.service;
+
+import com.pegasus.backend.exception.BadRequestException;
+import com.pegasus.backend.features.inventory.dto.AdjustStockRequest;
+import com.pegasus.backend.features.inventory.dto.TransferStockRequest;
+import com.pegasus.backend.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compradores concurrentes sobre la misma variante: las actualizaciones
+ * condicionales no deben sobrevender ni dejar stock negativo.
+ */
+class StockConcurrencyTest extends PostgresIntegrationTest {
+
+	private static final int BUYERS = 200;
+	private static final int STOCK = 50;
+
+	@Autowired
+	private StockService stockService;
+
+	@Test
+	void concurrentReservationsNeverOversell() throws InterruptedException {
+		Long warehouseId = createWarehouse();
+		Long variantId = createVariant();
+		setStock(warehouseId, variantId, STOCK, 0);
+
+		Outcome outcome = runConcurrently(BUYERS,
+				buyer -> stockService.reserveStock(warehouseId, variantId, 1, (long) buyer, null));
+
+		assertThat(outcome.unexpected()).isEmpty();
+		assertThat(outcome.succeeded()).isEqualTo(STOCK);
+		assertThat(outcome.rejected()).isEqualTo(BUYERS - STOCK);
+		assertThat(getStock(warehouseId, variantId)).containsExactly(STOCK, STOCK);
+	}
+
+	@Test
+	void concurrentDispatchesNeverLeaveNegativeStock() throws InterruptedException {
+		Long warehouseId = createWarehouse();
+		Long variantId = createVariant();
+		setStock(warehouseId, variantId, STOCK, STOCK);
+
+		Outcome outcome = runConcurrently(STOCK + 20,
+				order -> stockService.decreaseStock(warehouseId, variantId, 1, (long) order, null));
+
+		assertThat(outcome.unexpected()).isEmpty();
+		assertThat(outcome.succeeded()).isEqualTo(STOCK);
+		assertThat(getStock(warehouseId, variantId)).containsExactly(0, 0);
+		assertThat(jdbcTemplate.queryForObject("""
+				SELECT MIN(balance) FROM movements WHERE warehouse_id = ? AND variant_id = ?
+				""", Integer.class, warehouseId, variantId)).isZero();
+	}
+
+	@Test
+	void concurrentAdjustmentsKeepReservations() throws InterruptedException {
+		Long warehouseId = createWarehouse();
+		Long variantId = createVariant();
+		setStock(warehouseId, variantId, STOCK, 0);
+
+		Outcome outcome = runConcurrently(BUYERS, index -> {
+			if (index % 2 == 0) {
+				stockService.reserveStock(warehouseId, variantId, 1, (long) index, null);
+			} else {
+				stockService.adjustStock(new AdjustStockRequest(variantId, warehouseId, 1, "Conteo"), null);
+			}
+		});
+
+		assertThat(outcome.unexpected()).isEmpty();
+		assertThat(outcome.succeeded()).isEqualTo(BUYERS);
+		assertThat(getStock(warehouseId, variantId)).containsExactly(STOCK + BUYERS / 2, BUYERS / 2);
+	}
+
+	@Test
+	void concurrentTransfersNeverTakeReservedStock() throws InterruptedException {
+		Long first = createWarehouse();
+		Long second = createWarehouse();
+		Long variantId = createVariant();
+		setStock(first, variantId, STOCK, 0);
+		setStock(second, variantId, STOCK, 0);
+
+		// Transferencias en ambos sentidos mezcladas con reservas en el primer almacén
+		AtomicInteger reservations = new AtomicInteger();
+		Outcome outcome = runConcurrently(BUYERS, index -> {
+			switch (index % 3) {
+				case 0 -> {
+					stockService.reserveStock(first, variantId, 1, (long) index, null);
+					reservations.incrementAndGet();
+				}
+				case 1 -> stockService.transferStock(
+						new TransferStockRequest(variantId, first, second, 1, null), null);
+				default -> stockService.transferStock(
+						new TransferStockRequest(variantId, second, first, 1, null), null);
+			}
+		});
+
+		assertThat(outcome.unexpected()).isEmpty();
+		int[] firstStock = getStock(first, variantId);
+		int[] secondStock = getStock(second, variantId);
+		assertThat(firstStock[0] + secondStock[0]).isEqualTo(2 * STOCK);
+		assertThat(firstStock[1]).isEqualTo(reservations.get());
+		assertThat(firstStock[1]).isLessThanOrEqualTo(firstStock[0]);
+	}
+
+	/**
+	 * Ejecutar la operación desde {@code threads} hilos liberados a la vez.
+	 */
+	private Outcome runConcurrently(int threads, Operation operation) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger succeeded = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+		for (int i = 0; i < threads; i++) {
+			int index = i + 1;
+			executor.submit(() -> {
+				try {
+					start.await();
+					operation.run(index);
+					succeeded.incrementAndGet();
+				} catch (BadRequestException e) {
+					rejected.incrementAndGet();
+				} catch (Throwable e) {
+					unexpected.add(e);
+				}
+			});
+		}
+
+		start.countDown();
+		executor.shutdown();
+		assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+		return new Outcome(succeeded.get(), rejected.get(), List.copyOf(unexpected));
+	}
+
+	@FunctionalInterface
+	private interface Operation {
+		void run(int index) throws Exception;
+	}
+
+	private record Outcome(int succeeded, int rejected, List<Throwable> unexpected) {
+	}
+}
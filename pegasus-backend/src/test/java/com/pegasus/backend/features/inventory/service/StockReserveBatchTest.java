@@ -0,0 +1,120 @@
+package com.pegasus.backend.features.inventory.service;
+
+import com.pegasus.backend.exception.BadRequestException;
+import com.pegasus.backend.features.inventory.repository.StockRepository;
+import com.pegasus.backend.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Reserva de un pedido completo en una sola sentencia (reserveBatch).
+ */
+class StockReserveBatchTest extends PostgresIntegrationTest {
+
+	@Autowired
+	private StockRepository stockRepository;
+
+	@Autowired
+	private StockService stockService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void reserveBatchOnlyCountsLinesWithEnoughAvailable() {
+		Long warehouseId = createWarehouse();
+		Long enough = createVariant();
+		Long scarce = createVariant();
+		Long missing = createVariant();
+		setStock(warehouseId, enough, 10, 0);
+		setStock(warehouseId, scarce, 3, 1);
+
+		Integer reserved = transactionTemplate.execute(status -> stockRepository.reserveBatch(warehouseId,
+				new Long[] { enough, scarce, missing }, new Integer[] { 5, 3, 1 }));
+
+		assertThat(reserved).isEqualTo(1);
+		assertThat(getStock(warehouseId, enough)).containsExactly(10, 5);
+		assertThat(getStock(warehouseId, scarce)).containsExactly(3, 1);
+	}
+
+	@Test
+	void reserveStockBatchReservesNothingWhenALineFallsShort() {
+		Long warehouseId = createWarehouse();
+		Long enough = createVariant();
+		Long scarce = createVariant();
+		setStock(warehouseId, enough, 10, 0);
+		setStock(warehouseId, scarce, 3, 1);
+
+		assertThatThrownBy(() -> stockService.reserveStockBatch(warehouseId, Map.of(enough, 5, scarce, 3), null, null))
+				.isInstanceOf(BadRequestException.class);
+
+		assertThat(getStock(warehouseId, enough)).containsExactly(10, 0);
+		assertThat(getStock(warehouseId, scarce)).containsExactly(3, 1);
+	}
+
+	@Test
+	void reserveStockBatchReservesEveryLine() {
+		Long warehouseId = createWarehouse();
+		Long first = createVariant();
+		Long second = createVariant();
+		setStock(warehouseId, first, 10, 0);
+		setStock(warehouseId, second, 4, 1);
+
+		stockService.reserveStockBatch(warehouseId, Map.of(first, 10, second, 3), null, null);
+
+		assertThat(getStock(warehouseId, first)).containsExactly(10, 10);
+		assertThat(getStock(warehouseId, second)).containsExactly(4, 4);
+	}
+
+	@Test
+	@Timeout(60)
+	void batchesWithSharedVariantsInOppositeOrderDoNotDeadlock() throws Exception {
+		Long warehouseId = createWarehouse();
+		List<Long> variantIds = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			Long variantId = createVariant();
+			setStock(warehouseId, variantId, 1000, 0);
+			variantIds.add(variantId);
+		}
+		Map<Long, Integer> ascending = new LinkedHashMap<>();
+		Map<Long, Integer> descending = new LinkedHashMap<>();
+		for (int i = 0; i < variantIds.size(); i++) {
+			ascending.put(variantIds.get(i), 1);
+			descending.put(variantIds.get(variantIds.size() - 1 - i), 1);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			List<Future<?>> buyers = new ArrayList<>();
+			for (Map<Long, Integer> order : List.of(ascending, descending)) {
+				buyers.add(executor.submit(() -> {
+					for (int i = 0; i < 200; i++) {
+						stockService.reserveStockBatch(warehouseId, order, null, null);
+					}
+				}));
+			}
+			for (Future<?> buyer : buyers) {
+				buyer.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		for (Long variantId : variantIds) {
+			assertThat(getStock(warehouseId, variantId)).containsExactly(1000, 400);
+		}
+	}
+}
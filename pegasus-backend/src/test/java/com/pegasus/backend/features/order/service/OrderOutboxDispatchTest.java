@@ -0,0 +1,82 @@
+package com.pegasus.backend.features.order.service;
+
+import com.pegasus.backend.features.outbox.service.OutboxDispatcher;
+import com.pegasus.backend.features.outbox.service.OutboxService;
+import com.pegasus.backend.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Eventos del outbox de un pedido: el envío y el pago van en flujos distintos, por lo
+ * que un envío que falla no retiene el registro del pago.
+ */
+class OrderOutboxDispatchTest extends PostgresIntegrationTest {
+
+	private static final long MISSING_SHIPPING_METHOD = -1L;
+
+	@Autowired
+	private OutboxService outboxService;
+
+	@Autowired
+	private OutboxDispatcher outboxDispatcher;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void paymentIsRegisteredWhileTheShipmentKeepsFailing() throws InterruptedException {
+		Long orderId = createPendingOrder();
+
+		// Mismos eventos y en el mismo orden que createOrder
+		transactionTemplate.executeWithoutResult(status -> {
+			Map<String, Object> shipment = new HashMap<>();
+			shipment.put("shippingMethodId", MISSING_SHIPPING_METHOD);
+			outboxService.enqueue(OrderOutboxHandler.SHIPMENT_AGGREGATE_TYPE, orderId,
+					OrderOutboxHandler.SHIPMENT_REQUESTED, shipment);
+
+			Map<String, Object> payment = new HashMap<>();
+			payment.put("paymentMethod", "yape");
+			payment.put("transactionId", "TX-" + orderId);
+			payment.put("userId", null);
+			outboxService.enqueue(OrderOutboxHandler.PAYMENT_AGGREGATE_TYPE, orderId,
+					OrderOutboxHandler.PAYMENT_SUBMITTED, payment);
+		});
+
+		for (int i = 0; i < 50 && !"PAID".equals(orderStatus(orderId)); i++) {
+			outboxDispatcher.dispatch();
+			Thread.sleep(100);
+		}
+
+		assertThat(orderStatus(orderId)).isEqualTo("PAID");
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payments WHERE order_id = ?",
+				Integer.class, orderId)).isEqualTo(1);
+		assertThat(jdbcTemplate.queryForObject("""
+				SELECT status FROM outbox_events WHERE aggregate_id = ? AND event_type = ?
+				""", String.class, orderId, OrderOutboxHandler.SHIPMENT_REQUESTED)).isNotEqualTo("PROCESSED");
+	}
+
+	private Long createPendingOrder() {
+		String suffix = UUID.randomUUID().toString().substring(0, 8);
+		Long customerId = jdbcTemplate.queryForObject("""
+				INSERT INTO customers (username, email, password_hash, doc_type, doc_number, first_name, last_name)
+				VALUES (?, ?, 'x', 'DNI', ?, 'Cliente', 'Prueba')
+				RETURNING id
+				""", Long.class, "user-" + suffix, suffix + "@test.pe", suffix);
+		return jdbcTemplate.queryForObject("""
+				INSERT INTO orders (order_number, customer_id, total, shipping_address)
+				VALUES (?, ?, 100.00, CAST('{}' AS jsonb))
+				RETURNING id
+				""", Long.class, "ORD-" + suffix, customerId);
+	}
+
+	private String orderStatus(Long orderId) {
+		return jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, orderId);
+	}
+}
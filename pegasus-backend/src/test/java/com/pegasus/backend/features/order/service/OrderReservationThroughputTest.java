@@ -0,0 +1,81 @@
+package com.pegasus.backend.features.order.service;
+
+import com.pegasus.backend.features.catalog.entity.Variant;
+import com.pegasus.backend.features.catalog.repository.VariantRepository;
+import com.pegasus.backend.features.inventory.service.StockService;
+import com.pegasus.backend.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pedidos por segundo de la fase de carga y reserva de createOrder según el número
+ * de líneas: una consulta y una reserva por línea (antes) frente a la carga en una
+ * consulta y la reserva en una sola sentencia (ahora). Solo con -Pbenchmark.
+ */
+@Tag("benchmark")
+class OrderReservationThroughputTest extends PostgresIntegrationTest {
+
+	private static final int WARMUP_ORDERS = 200;
+	private static final int MEASURED_ORDERS = 1000;
+
+	@Autowired
+	private VariantRepository variantRepository;
+
+	@Autowired
+	private StockService stockService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@ParameterizedTest(name = "{0} líneas")
+	@ValueSource(ints = { 1, 10, 30, 50 })
+	void reservationThroughputByLineCount(int lines) {
+		Long warehouseId = createWarehouse();
+		Map<Long, Integer> order = new LinkedHashMap<>();
+		for (int i = 0; i < lines; i++) {
+			Long variantId = createVariant();
+			setStock(warehouseId, variantId, Integer.MAX_VALUE / 2, 0);
+			order.put(variantId, 1);
+		}
+
+		double perLine = ordersPerSecond(() -> reservePerLine(warehouseId, order));
+		double batched = ordersPerSecond(() -> reserveBatched(warehouseId, order));
+
+		System.out.printf("%d líneas: por línea %.0f pedidos/s, en lote %.0f pedidos/s (x%.1f)%n",
+				lines, perLine, batched, batched / perLine);
+	}
+
+	private void reservePerLine(Long warehouseId, Map<Long, Integer> order) {
+		transactionTemplate.executeWithoutResult(status -> order.forEach((variantId, quantity) -> {
+			Variant variant = variantRepository.findById(variantId).orElseThrow();
+			variant.getProduct().getName();
+			stockService.checkStockAvailability(warehouseId, variantId, quantity);
+			stockService.reserveStock(warehouseId, variantId, quantity, null, null);
+		}));
+	}
+
+	private void reserveBatched(Long warehouseId, Map<Long, Integer> order) {
+		transactionTemplate.executeWithoutResult(status -> {
+			variantRepository.findAllWithProductByIdIn(order.keySet())
+					.forEach(variant -> variant.getProduct().getName());
+			stockService.reserveStockBatch(warehouseId, order, null, null);
+		});
+	}
+
+	private static double ordersPerSecond(Runnable placeOrder) {
+		for (int i = 0; i < WARMUP_ORDERS; i++) {
+			placeOrder.run();
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < MEASURED_ORDERS; i++) {
+			placeOrder.run();
+		}
+		return MEASURED_ORDERS * 1e9 / (System.nanoTime() - start);
+	}
+}
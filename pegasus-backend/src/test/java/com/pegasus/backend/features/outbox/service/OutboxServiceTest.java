@@ -0,0 +1,69 @@
+package com.pegasus.backend.features.outbox.service;
+
+import com.pegasus.backend.exception.BadRequestException;
+import com.pegasus.backend.features.outbox.entity.OutboxEvent;
+import com.pegasus.backend.features.outbox.entity.OutboxStatus;
+import com.pegasus.backend.features.outbox.mapper.OutboxEventMapper;
+import com.pegasus.backend.features.outbox.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reencolar y resolver eventos FAILED del outbox.
+ */
+class OutboxServiceTest {
+
+	private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+	private final OutboxService outboxService = new OutboxService(outboxEventRepository, new OutboxEventMapper());
+	private OutboxEvent event;
+
+	@BeforeEach
+	void setUp() {
+		event = OutboxEvent.builder()
+				.id(1L)
+				.aggregateType("ORDER_SHIPMENT")
+				.aggregateId(10L)
+				.eventType("ORDER_SHIPMENT_REQUESTED")
+				.status(OutboxStatus.FAILED)
+				.attempts(10)
+				.nextAttemptAt(OffsetDateTime.now().minusHours(1))
+				.lastError("ResourceNotFoundException: Método de envío no encontrado")
+				.build();
+		when(outboxEventRepository.findById(1L)).thenReturn(Optional.of(event));
+		when(outboxEventRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+	}
+
+	@Test
+	void requeueResetsAttemptsAndMakesTheEventDue() {
+		outboxService.requeue(1L);
+
+		assertThat(event.getStatus()).isEqualTo(OutboxStatus.PENDING);
+		assertThat(event.getAttempts()).isZero();
+		assertThat(event.getNextAttemptAt()).isBeforeOrEqualTo(OffsetDateTime.now());
+	}
+
+	@Test
+	void resolveMarksTheEventProcessedWithoutRunningIt() {
+		outboxService.resolve(1L);
+
+		assertThat(event.getStatus()).isEqualTo(OutboxStatus.PROCESSED);
+		assertThat(event.getProcessedAt()).isNotNull();
+	}
+
+	@Test
+	void onlyFailedEventsCanBeRequeuedOrResolved() {
+		event.setStatus(OutboxStatus.PENDING);
+
+		assertThatThrownBy(() -> outboxService.requeue(1L)).isInstanceOf(BadRequestException.class);
+		assertThatThrownBy(() -> outboxService.resolve(1L)).isInstanceOf(BadRequestException.class);
+	}
+}
@@ -0,0 +1,251 @@
+package com.pegasus.backend.features.recommendation.service;
+
+import com.pegasus.backend.features.order.entity.OrderItem;
+import com.pegasus.backend.features.order.event.OrderStatusChangedEvent;
+import com.pegasus.backend.features.order.repository.OrderItemRepository;
+import com.pegasus.backend.features.recommendation.config.EmbeddingConfig;
+import com.pegasus.backend.features.rma.repository.RmaItemRepository;
+import com.pegasus.backend.shared.enums.OrderStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Customer profile cache: TTL eviction, folding of paid orders after commit
+ * (exactly once) and recency decay of the purchase weights.
+ */
+class CustomerProfileServiceTest {
+
+	private static final Long CUSTOMER_ID = 1L;
+	private static final Long ORDER_ID = 10L;
+	private static final Long RECENT_PRODUCT = 100L;
+	private static final Long OLD_PRODUCT = 200L;
+	private static final Long NEW_PRODUCT = 300L;
+
+	private AnnotationConfigApplicationContext context;
+	private CustomerProfileService service;
+	private OrderItemRepository orderItemRepository;
+	private ApplicationEventPublisher eventPublisher;
+	private TransactionTemplate transactionTemplate;
+	private MutableClock clock;
+
+	@BeforeEach
+	void setUp() {
+		context = new AnnotationConfigApplicationContext(TestConfig.class);
+		service = context.getBean(CustomerProfileService.class);
+		orderItemRepository = context.getBean(OrderItemRepository.class);
+		eventPublisher = context;
+		transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+		clock = new MutableClock(Instant.parse("2026-06-01T12:00:00Z"));
+		service.setClock(clock);
+
+		EmbeddingService embeddingService = context.getBean(EmbeddingService.class);
+		embeddingService.cacheEmbedding(RECENT_PRODUCT, null, new float[] { 1, 0, 0, 0 });
+		embeddingService.cacheEmbedding(OLD_PRODUCT, null, new float[] { 0, 2, 0, 0 });
+		embeddingService.cacheEmbedding(NEW_PRODUCT, null, new float[] { 0, 0, 3, 0 });
+	}
+
+	@AfterEach
+	void tearDown() {
+		context.close();
+	}
+
+	@Test
+	void profileIsRebuiltOnlyAfterTtlExpires() {
+		service.getProfile(CUSTOMER_ID);
+		clock.advance(Duration.ofMinutes(59));
+		service.getProfile(CUSTOMER_ID);
+		verify(orderItemRepository, times(1)).findPurchaseHistoryByCustomerId(eq(CUSTOMER_ID), any());
+
+		clock.advance(Duration.ofMinutes(2));
+		service.getProfile(CUSTOMER_ID);
+		verify(orderItemRepository, times(2)).findPurchaseHistoryByCustomerId(eq(CUSTOMER_ID), any());
+	}
+
+	@Test
+	void purchaseWeightHalvesAfterOneHalfLife() {
+		OffsetDateTime now = OffsetDateTime.now(clock);
+		when(orderItemRepository.findPurchaseHistoryByCustomerId(eq(CUSTOMER_ID), any())).thenReturn(List.of(
+				new Object[] { RECENT_PRODUCT, 1, now, 1L },
+				new Object[] { OLD_PRODUCT, 1, now.minusDays(90), 2L }));
+
+		float[] vector = service.getProfile(CUSTOMER_ID).vector();
+
+		assertThat(vector[0]).isCloseTo(1.0f, within(1e-4f));
+		assertThat(vector[1]).isCloseTo(0.5f, within(1e-4f));
+	}
+
+	@Test
+	void paidOrderIsFoldedOnceAfterCommit() {
+		when(orderItemRepository.findByOrderId(ORDER_ID)).thenReturn(List.of(
+				OrderItem.builder().productId(NEW_PRODUCT).quantity(2).build()));
+		service.getProfile(CUSTOMER_ID);
+
+		transactionTemplate.executeWithoutResult(status -> {
+			eventPublisher.publishEvent(paidEvent());
+			assertThat(service.getProfile(CUSTOMER_ID).vector()).isNull();
+		});
+
+		CustomerProfileService.CustomerProfile profile = service.getProfile(CUSTOMER_ID);
+		assertThat(profile.vector()[2]).isCloseTo(2.0f, within(1e-4f));
+		assertThat(profile.orderIds()).containsExactly(ORDER_ID);
+
+		// Duplicate event: the order is already in the profile
+		transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(paidEvent()));
+		assertThat(service.getProfile(CUSTOMER_ID).vector()[2]).isCloseTo(2.0f, within(1e-4f));
+	}
+
+	@Test
+	void rolledBackPaymentIsNotFolded() {
+		when(orderItemRepository.findByOrderId(ORDER_ID)).thenReturn(List.of(
+				OrderItem.builder().productId(NEW_PRODUCT).quantity(2).build()));
+		service.getProfile(CUSTOMER_ID);
+
+		transactionTemplate.executeWithoutResult(status -> {
+			eventPublisher.publishEvent(paidEvent());
+			status.setRollbackOnly();
+		});
+
+		assertThat(service.getProfile(CUSTOMER_ID).vector()).isNull();
+		assertThat(service.getProfile(CUSTOMER_ID).orderIds()).isEmpty();
+	}
+
+	@Test
+	void orderAlreadyInHistoryIsNotFoldedAgain() {
+		OffsetDateTime now = OffsetDateTime.now(clock);
+		List<Object[]> history = List.<Object[]>of(new Object[] { NEW_PRODUCT, 2, now, ORDER_ID });
+		when(orderItemRepository.findPurchaseHistoryByCustomerId(eq(CUSTOMER_ID), any())).thenReturn(history);
+		when(orderItemRepository.findByOrderId(ORDER_ID)).thenReturn(List.of(
+				OrderItem.builder().productId(NEW_PRODUCT).quantity(2).build()));
+		service.getProfile(CUSTOMER_ID);
+
+		// Profile built after the payment committed but before the event arrived
+		transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(paidEvent()));
+
+		assertThat(service.getProfile(CUSTOMER_ID).vector()[2]).isCloseTo(2.0f, within(1e-4f));
+	}
+
+	private OrderStatusChangedEvent paidEvent() {
+		return new OrderStatusChangedEvent(ORDER_ID, CUSTOMER_ID, OrderStatus.PENDING, OrderStatus.PAID,
+				OffsetDateTime.now(clock));
+	}
+
+	@Configuration
+	@EnableTransactionManagement
+	static class TestConfig {
+
+		@Bean
+		EmbeddingConfig embeddingConfig() {
+			EmbeddingConfig config = new EmbeddingConfig();
+			config.setProfileHalfLifeDays(90);
+			config.setProfileCacheTtlMinutes(60);
+			return config;
+		}
+
+		@Bean
+		EmbeddingService embeddingService(EmbeddingConfig config) {
+			return new EmbeddingService(config, null);
+		}
+
+		@Bean
+		OrderItemRepository orderItemRepository() {
+			return mock(OrderItemRepository.class);
+		}
+
+		@Bean
+		RmaItemRepository rmaItemRepository() {
+			return mock(RmaItemRepository.class);
+		}
+
+		@Bean
+		CustomerProfileService customerProfileService(EmbeddingService embeddingService, EmbeddingConfig config,
+				OrderItemRepository orderItemRepository, RmaItemRepository rmaItemRepository) {
+			return new CustomerProfileService(embeddingService, config, orderItemRepository, rmaItemRepository);
+		}
+
+		@Bean
+		PlatformTransactionManager transactionManager() {
+			return new NoOpTransactionManager();
+		}
+	}
+
+	/**
+	 * Resource-less transactions: they only drive the synchronization used by
+	 * AFTER_COMMIT listeners.
+	 */
+	static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+		@Override
+		protected Object doGetTransaction() {
+			return new Object();
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+		}
+	}
+
+	static class MutableClock extends Clock {
+
+		private Instant instant;
+
+		MutableClock(Instant instant) {
+			this.instant = instant;
+		}
+
+		void advance(Duration duration) {
+			instant = instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
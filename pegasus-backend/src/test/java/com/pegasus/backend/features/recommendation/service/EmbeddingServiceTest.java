@@ -0,0 +1,130 @@
+package com.pegasus.backend.features.recommendation.service;
+
+import com.pegasus.backend.features.recommendation.config.EmbeddingConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Quality of the int8-quantized index compared with the full-precision vectors
+ * (recall@10 benchmark). Quantized search has no exact re-rank, so this recall is
+ * what the storefront gets.
+ */
+class EmbeddingServiceTest {
+
+	private static final int DIMENSION = 384;
+	private static final int PRODUCTS = 1000;
+	private static final int CLUSTERS = 50;
+	private static final int K = 10;
+
+	@Test
+	void quantizedSearchKeepsRecallAt10() {
+		Map<Long, float[]> exact = randomEmbeddings(new Random(42));
+
+		assertThat(quantizedRecallAt10(exact, 100)).isGreaterThanOrEqualTo(0.95);
+	}
+
+	@Test
+	void quantizedSearchKeepsRecallAt10OnClusteredEmbeddings() {
+		Map<Long, float[]> exact = clusteredEmbeddings(new Random(42));
+
+		assertThat(quantizedRecallAt10(exact, 100)).isGreaterThanOrEqualTo(0.95);
+	}
+
+	@Test
+	void quantizedProfileAccumulationMatchesFullPrecision() {
+		EmbeddingService quantized = newService(true);
+		EmbeddingService full = newService(false);
+		Map<Long, float[]> embeddings = randomEmbeddings(new Random(7));
+		embeddings.forEach((id, embedding) -> {
+			quantized.cacheEmbedding(id, 1L, embedding);
+			full.cacheEmbedding(id, 1L, embedding);
+		});
+
+		float[] quantizedProfile = null;
+		float[] fullProfile = null;
+		for (long id = 1; id <= 20; id++) {
+			double weight = id % 5 == 0 ? -1.0 : 2.0;
+			quantizedProfile = quantized.addNormalizedEmbedding(id, quantizedProfile, weight);
+			fullProfile = full.addNormalizedEmbedding(id, fullProfile, weight);
+		}
+
+		assertThat(quantized.addNormalizedEmbedding(-1L, null, 1.0)).isNull();
+		assertThat(full.cosineSimilarity(quantizedProfile, fullProfile)).isGreaterThan(0.999);
+	}
+
+	/**
+	 * Mean recall@10 of the quantized search against an exact float search, using the
+	 * first {@code sampleSize} products as queries.
+	 */
+	private double quantizedRecallAt10(Map<Long, float[]> exact, int sampleSize) {
+		EmbeddingService service = newService(true);
+		exact.forEach((id, embedding) -> service.cacheEmbedding(id, 1L, embedding));
+
+		double totalRecall = 0.0;
+		List<Long> queries = exact.keySet().stream().limit(sampleSize).toList();
+		for (Long queryId : queries) {
+			float[] query = exact.get(queryId);
+			List<Long> expected = exact.keySet().stream()
+					.filter(id -> !id.equals(queryId))
+					.sorted(Comparator.comparingDouble((Long id) -> service.cosineSimilarity(query, exact.get(id)))
+							.reversed())
+					.limit(K)
+					.toList();
+
+			Set<Long> found = new HashSet<>();
+			service.findMostSimilar(query, K, Set.of(queryId)).forEach(match -> found.add(match.productId()));
+			totalRecall += (double) expected.stream().filter(found::contains).count() / K;
+		}
+		return totalRecall / queries.size();
+	}
+
+	private EmbeddingService newService(boolean quantizedMode) {
+		EmbeddingConfig config = new EmbeddingConfig();
+		config.setQuantized(quantizedMode);
+		return new EmbeddingService(config, null);
+	}
+
+	private Map<Long, float[]> randomEmbeddings(Random random) {
+		Map<Long, float[]> embeddings = new LinkedHashMap<>();
+		for (long id = 1; id <= PRODUCTS; id++) {
+			float[] embedding = new float[DIMENSION];
+			for (int i = 0; i < DIMENSION; i++) {
+				embedding[i] = (float) random.nextGaussian();
+			}
+			embeddings.put(id, embedding);
+		}
+		return embeddings;
+	}
+
+	/**
+	 * Products grouped around category centroids, closer to real text embeddings
+	 * than independent random vectors.
+	 */
+	private Map<Long, float[]> clusteredEmbeddings(Random random) {
+		float[][] centroids = new float[CLUSTERS][DIMENSION];
+		for (float[] centroid : centroids) {
+			for (int i = 0; i < DIMENSION; i++) {
+				centroid[i] = (float) random.nextGaussian();
+			}
+		}
+		Map<Long, float[]> embeddings = new LinkedHashMap<>();
+		for (long id = 1; id <= PRODUCTS; id++) {
+			float[] centroid = centroids[(int) (id % CLUSTERS)];
+			float[] embedding = new float[DIMENSION];
+			for (int i = 0; i < DIMENSION; i++) {
+				embedding[i] = centroid[i] + 0.5f * (float) random.nextGaussian();
+			}
+			embeddings.put(id, embedding);
+		}
+		return embeddings;
+	}
+}
@@ -0,0 +1,39 @@
+package com.pegasus.backend.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registra el SQL que genera Hibernate mientras se ejecuta {@link #capture}, para
+ * poder inspeccionar (p. ej. con EXPLAIN) las consultas reales de un repositorio.
+ * Se activa en PostgresIntegrationTest con hibernate.session_factory.statement_inspector.
+ */
+public class CapturingStatementInspector implements StatementInspector {
+
+	private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+	@Override
+	public String inspect(String sql) {
+		List<String> captured = CAPTURED.get();
+		if (captured != null) {
+			captured.add(sql);
+		}
+		return sql;
+	}
+
+	/**
+	 * Ejecutar la acción en el hilo actual y devolver las sentencias que generó
+	 */
+	public static List<String> capture(Runnable action) {
+		List<String> captured = new ArrayList<>();
+		CAPTURED.set(captured);
+		try {
+			action.run();
+		} finally {
+			CAPTURED.remove();
+		}
+		return captured;
+	}
+}
@@ -0,0 +1,75 @@
+package com.pegasus.backend.support;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+/**
+ * Base de las pruebas contra PostgreSQL real (se omiten si no hay Docker).
+ * Todas las subclases comparten el mismo contexto y contenedor, por lo que cada
+ * prueba crea sus propios almacenes y variantes en lugar de depender de los seeds.
+ */
+@SpringBootTest(properties = {
+		"SERVER_PORT=0",
+		"DB_HOST=localhost",
+		"DB_PORT=5432",
+		"DB_NAME=pegasus_test",
+		"DB_USERNAME=test",
+		"DB_PASSWORD=test",
+		"JWT_SECRET=pegasus-test-secret-key-with-at-least-256-bits",
+		"JWT_EXPIRATION_MS=3600000",
+		"spring.jpa.show-sql=false",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+				+ "com.pegasus.backend.support.CapturingStatementInspector"
+})
+@Import(PostgresTestConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresIntegrationTest {
+
+	@Autowired
+	protected JdbcTemplate jdbcTemplate;
+
+	protected Long createWarehouse() {
+		return jdbcTemplate.queryForObject("""
+				INSERT INTO warehouses (code, name, ubigeo_id, address, is_active)
+				VALUES (?, 'Almacén de prueba', '150101', 'Av. Prueba 123', true)
+				RETURNING id
+				""", Long.class, "T-" + uniqueSuffix());
+	}
+
+	protected Long createVariant() {
+		String suffix = uniqueSuffix();
+		Long categoryId = jdbcTemplate.queryForObject("""
+				INSERT INTO categories (name, slug) VALUES (?, ?) RETURNING id
+				""", Long.class, "Categoría " + suffix, "cat-" + suffix);
+		Long productId = jdbcTemplate.queryForObject("""
+				INSERT INTO products (code, name, slug, category_id) VALUES (?, ?, ?, ?) RETURNING id
+				""", Long.class, "P-" + suffix, "Producto " + suffix, "prod-" + suffix, categoryId);
+		return jdbcTemplate.queryForObject("""
+				INSERT INTO variants (product_id, sku, price) VALUES (?, ?, 10.00) RETURNING id
+				""", Long.class, productId, "SKU-" + suffix);
+	}
+
+	protected void setStock(Long warehouseId, Long variantId, int quantity, int reservedQuantity) {
+		jdbcTemplate.update("""
+				INSERT INTO stocks (warehouse_id, variant_id, quantity, reserved_quantity)
+				VALUES (?, ?, ?, ?)
+				ON CONFLICT (warehouse_id, variant_id)
+				DO UPDATE SET quantity = EXCLUDED.quantity, reserved_quantity = EXCLUDED.reserved_quantity
+				""", warehouseId, variantId, quantity, reservedQuantity);
+	}
+
+	protected int[] getStock(Long warehouseId, Long variantId) {
+		return jdbcTemplate.queryForObject("""
+				SELECT quantity, reserved_quantity FROM stocks WHERE warehouse_id = ? AND variant_id = ?
+				""", (rs, row) -> new int[] { rs.getInt(1), rs.getInt(2) }, warehouseId, variantId);
+	}
+
+	private static String uniqueSuffix() {
+		return UUID.randomUUID().toString().substring(0, 12);
+	}
+}